@@ -245,9 +245,11 @@ public class Vars implements Loadable{
     public static BeControl becontrol;
     public static AsyncCore asyncCore;
     public static BaseRegistry bases;
+    public static BasePlacementIndex basePlacements;
     public static GlobalVars logicVars;
     public static MapEditor editor;
     public static GameService service = new GameService();
+    public static TickProfiler profiler = new TickProfiler();
 
     public static Universe universe;
     public static World world;
@@ -330,6 +332,7 @@ public class Vars implements Loadable{
         controlPath = new ControlPathfinder();
         fogControl = new FogControl();
         bases = new BaseRegistry();
+        basePlacements = new BasePlacementIndex();
         logicVars = new GlobalVars();
         javaPath =
             new Fi(OS.prop("java.home")).child("bin/java").exists() ? new Fi(OS.prop("java.home")).child("bin/java").absolutePath() :
@@ -22,15 +22,15 @@ import mindustry.world.blocks.storage.CoreBlock.*;
 import static mindustry.Vars.*;
 
 public class BaseBuilderAI{
-    private static final Vec2 axis = new Vec2(), rotator = new Vec2();
     private static final int attempts = 6, coreUnitMultiplier = 2;
+    /** search radius for ores around a random position, and the maximum number of ore tiles tried per attempt */
+    private static final int anchorRange = 12, anchorChecks = 8;
     private static final float emptyChance = 0.01f;
     private static final int timerStep = 0, timerSpawn = 1, timerRefreshPath = 2;
     private static final float placeIntervalMin = 12f, placeIntervalMax = 2f;
     private static final int pathStep = 50;
     private static final Seq<Tile> tmpTiles = new Seq<>();
-
-    private static int correct = 0, incorrect = 0;
+    private static final IntSeq tmpAnchors = new IntSeq();
 
     private boolean foundPath;
 
@@ -44,6 +44,9 @@ public class BaseBuilderAI{
     int calcCount = 0;
     int totalCalcs = 0;
 
+    /** Rejected placements by rotated part ID. Maps anchor position to the placement index stamp at the time of rejection. */
+    IntIntMap[] rejected = {};
+
     public BaseBuilderAI(TeamData data){
         this.data = data;
     }
@@ -132,6 +135,8 @@ public class BaseBuilderAI{
                             path.clear();
                             path.addAll(calcPath);
                             calcPath.clear();
+                            //the path affects placement, so earlier rejections are no longer valid
+                            rejected = new IntIntMap[0];
                             calcTile = null;
                             totalCalcs ++;
                             foundPath = true;
@@ -160,24 +165,34 @@ public class BaseBuilderAI{
                 int wx = (int)(World.toTile(pos.getX()) + Tmp.v1.x), wy = (int)(World.toTile(pos.getY()) + Tmp.v1.y);
                 Tile tile = world.tiles.getc(wx, wy);
 
-                //try not to block the spawn point
-                if(spawner.getSpawns().contains(t -> t.within(tile, tilesize * 40f))){
-                    continue;
+                //look up nearby ores directly instead of hoping to land on one
+                IntSeq anchors = basePlacements.findAnchors(tile.x, tile.y, anchorRange, tmpAnchors);
+                boolean placed = false;
+
+                for(int j = 0; j < anchorChecks && anchors.size > 0; j++){
+                    int index = Mathf.random(anchors.size - 1);
+                    int anchorPos = anchors.items[index];
+                    anchors.removeIndex(index);
+                    Tile anchor = world.tile(anchorPos);
+
+                    //try not to block the spawn point
+                    if(anchor == null || nearSpawn(anchor)) continue;
+
+                    //pick a random base part that needs this ore
+                    BasePart part = Vars.bases.forResource(anchor.drop()).random();
+                    if(part != null && tryPlace(part.rotations[Mathf.random(3)], anchor.x, anchor.y)){
+                        placed = true;
+                        break;
+                    }
                 }
 
-                Seq<BasePart> parts = null;
+                if(placed) break;
 
                 //pick a completely random base part, and place it a random location
                 //((yes, very intelligent))
-                if(tile.drop() != null && Vars.bases.forResource(tile.drop()).any()){
-                    parts = Vars.bases.forResource(tile.drop());
-                }else if(Mathf.chance(emptyChance)){
-                    parts = Vars.bases.parts;
-                }
-
-                if(parts != null){
-                    BasePart part = parts.random();
-                    if(tryPlace(part, tile.x, tile.y)){
+                if(Mathf.chance(emptyChance) && Vars.bases.parts.any() && !nearSpawn(tile)){
+                    BasePart part = Vars.bases.parts.random();
+                    if(tryPlace(part.rotations[Mathf.random(3)], tile.x, tile.y)){
                         break;
                     }
                 }
@@ -185,6 +200,10 @@ public class BaseBuilderAI{
         }
     }
 
+    private boolean nearSpawn(Tile tile){
+        return spawner.getSpawns().contains(t -> t.within(tile, tilesize * 40f));
+    }
+
     /** @return a random position from which to seed building. */
     private Position randomPosition(){
         if(data.hasCore()){
@@ -195,18 +214,64 @@ public class BaseBuilderAI{
         return null;
     }
 
-    private boolean tryPlace(BasePart part, int x, int y){
-        int rotation = Mathf.range(2);
-        axis.set((int)(part.schematic.width / 2f), (int)(part.schematic.height / 2f));
-        Schematic result = Schematics.rotate(part.schematic, rotation);
-        int rotdeg = rotation*90;
-        rotator.set(part.centerX, part.centerY).rotateAround(axis, rotdeg);
+    private boolean tryPlace(RotatedPart part, int x, int y){
+        Schematic result = part.schematic;
         //bottom left schematic corner
-        int cx = x - (int)rotator.x;
-        int cy = y - (int)rotator.y;
+        int cx = x - part.offsetX;
+        int cy = y - part.offsetY;
 
-        //check valid placeability
+        //skip placements that were already rejected, unless something nearby has changed since then
+        if(rejected.length != Vars.bases.rotatedParts.size){
+            rejected = new IntIntMap[Vars.bases.rotatedParts.size];
+        }
+        if(rejected[part.id] == null){
+            rejected[part.id] = new IntIntMap();
+        }
+
+        int anchor = Point2.pack(x, y);
+        int stamp = basePlacements.stamp(cx - 1, cy - 1, cx + result.width, cy + result.height);
+        if(rejected[part.id].get(anchor, -1) == stamp){
+            return false;
+        }
+
+        if(!canPlace(part, cx, cy)){
+            rejected[part.id].put(anchor, stamp);
+            return false;
+        }
+
+        //queue it
         for(Stile tile : result.tiles){
+            data.plans.add(new BlockPlan(cx + tile.x, cy + tile.y, tile.rotation, tile.block.id, tile.config));
+        }
+
+        return true;
+    }
+
+    private boolean canPlace(RotatedPart part, int cx, int cy){
+        //make sure at least X% of resource requirements are met; this is cheap, so it is checked first
+        if(part.part.required instanceof Item && part.drillTiles.size > 0){
+            int correct = 0, incorrect = 0;
+
+            for(int i = 0; i < part.drillTiles.size; i++){
+                int pos = part.drillTiles.items[i];
+                Tile res = world.tile(Point2.x(pos) + cx, Point2.y(pos) + cy);
+                if(res == null) return false;
+
+                if(res.drop() == part.part.required){
+                    correct ++;
+                }else if(res.drop() != null){
+                    incorrect ++;
+                }
+            }
+
+            //fail if not enough fit requirements
+            if(incorrect != 0 || correct == 0){
+                return false;
+            }
+        }
+
+        //check valid placeability
+        for(Stile tile : part.schematic.tiles){
             int realX = tile.x + cx, realY = tile.y + cy;
             if(!Build.validPlace(tile.block, data.team, realX, realY, tile.rotation)){
                 return false;
@@ -230,37 +295,6 @@ public class BaseBuilderAI{
             }
         }
 
-        //make sure at least X% of resource requirements are met
-        correct = incorrect = 0;
-        boolean anyDrills = false;
-
-        if(part.required instanceof Item){
-            for(Stile tile : result.tiles){
-                if(tile.block instanceof Drill){
-                    anyDrills = true;
-
-                    tile.block.iterateTaken(tile.x + cx, tile.y + cy, (ex, ey) -> {
-                        Tile res = world.rawTile(ex, ey);
-                        if(res.drop() == part.required){
-                            correct ++;
-                        }else if(res.drop() != null){
-                            incorrect ++;
-                        }
-                    });
-                }
-            }
-        }
-
-        //fail if not enough fit requirements
-        if(anyDrills && (incorrect != 0 || correct == 0)){
-            return false;
-        }
-
-        //queue it
-        for(Stile tile : result.tiles){
-            data.plans.add(new BlockPlan(cx + tile.x, cy + tile.y, tile.rotation, tile.block.id, tile.config));
-        }
-
         return true;
     }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package mindustry.ai;
+
+import arc.*;
+import arc.math.*;
+import arc.math.geom.*;
+import arc.struct.*;
+import mindustry.content.*;
+import mindustry.core.*;
+import mindustry.game.EventType.*;
+import mindustry.type.*;
+import mindustry.world.*;
+
+import java.util.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Indexes candidate anchor tiles for {@link BaseBuilderAI} placement by ore type and quadrant.
+ * Each quadrant also tracks a change stamp, so that rejected placements can be cached until a tile under them changes.
+ * Ore anchors are built when the world loads, and updated by {@link Tile} whenever a floor or overlay changes afterwards.
+ */
+public class BasePlacementIndex{
+    /** Size of one quadrant, in tiles. */
+    public static final int quadrantSize = 16;
+
+    private int quadWidth, quadHeight;
+    /** Maps item ID to quadrant to a list of packed ore positions. Null if there is no such ore in the quadrant. */
+    private IntSeq[][] anchors = new IntSeq[0][];
+    /** Last change stamp of every quadrant. */
+    private int[] stamps = {};
+    /** Global stamp counter; never reset, so stamps from a previous map can never match. */
+    private int stamp;
+
+    public BasePlacementIndex(){
+        World.addLoadStage("base-placements", this::rebuild);
+
+        //the pre-change event covers the footprint of removed blocks, the change event covers placed ones
+        Events.on(TilePreChangeEvent.class, e -> markChanged(e.tile));
+        Events.on(TileChangeEvent.class, e -> markChanged(e.tile));
+    }
+
+    private void rebuild(){
+        quadWidth = Mathf.ceil(world.width() / (float)quadrantSize);
+        quadHeight = Mathf.ceil(world.height() / (float)quadrantSize);
+        anchors = new IntSeq[content.items().size][];
+        stamps = new int[quadWidth * quadHeight];
+        stamp ++;
+        Arrays.fill(stamps, stamp);
+
+        for(Tile tile : world.tiles){
+            addAnchor(tile);
+        }
+    }
+
+    /** Updates the anchor of a tile after its floor or overlay changed, and marks its quadrant as changed. */
+    public void updateTile(Tile tile){
+        if(stamps.length == 0 || tile.x >= quadWidth * quadrantSize || tile.y >= quadHeight * quadrantSize) return;
+
+        int quad = quadrant(tile.x, tile.y), pos = tile.pos();
+        for(IntSeq[] quads : anchors){
+            if(quads != null && quads[quad] != null){
+                quads[quad].removeValue(pos);
+            }
+        }
+
+        addAnchor(tile);
+        markChanged(tile.x, tile.y, tile.x, tile.y);
+    }
+
+    private void addAnchor(Tile tile){
+        Item drop = tile.drop();
+        //only ores that base parts can actually mine are relevant
+        if(drop == null || !bases.forResource(drop).any()) return;
+
+        if(anchors[drop.id] == null){
+            anchors[drop.id] = new IntSeq[quadWidth * quadHeight];
+        }
+
+        int quad = quadrant(tile.x, tile.y);
+        if(anchors[drop.id][quad] == null){
+            anchors[drop.id][quad] = new IntSeq(false, 16);
+        }
+        anchors[drop.id][quad].add(tile.pos());
+    }
+
+    private void markChanged(Tile tile){
+        int offset = tile.block().sizeOffset, size = tile.block().size;
+        markChanged(tile.x + offset, tile.y + offset, tile.x + offset + size - 1, tile.y + offset + size - 1);
+    }
+
+    /** Marks every quadrant intersecting the specified tile rectangle (inclusive) as changed. */
+    public void markChanged(int x1, int y1, int x2, int y2){
+        if(stamps.length == 0) return;
+
+        stamp ++;
+        int qx1 = Mathf.clamp(x1 / quadrantSize, 0, quadWidth - 1), qy1 = Mathf.clamp(y1 / quadrantSize, 0, quadHeight - 1);
+        int qx2 = Mathf.clamp(x2 / quadrantSize, 0, quadWidth - 1), qy2 = Mathf.clamp(y2 / quadrantSize, 0, quadHeight - 1);
+        for(int qx = qx1; qx <= qx2; qx++){
+            for(int qy = qy1; qy <= qy2; qy++){
+                stamps[qx + qy * quadWidth] = stamp;
+            }
+        }
+    }
+
+    /** @return the latest change stamp of all quadrants intersecting the specified tile rectangle (inclusive). */
+    public int stamp(int x1, int y1, int x2, int y2){
+        if(stamps.length == 0) return 0;
+
+        int result = 0;
+        int qx1 = Mathf.clamp(x1 / quadrantSize, 0, quadWidth - 1), qy1 = Mathf.clamp(y1 / quadrantSize, 0, quadHeight - 1);
+        int qx2 = Mathf.clamp(x2 / quadrantSize, 0, quadWidth - 1), qy2 = Mathf.clamp(y2 / quadrantSize, 0, quadHeight - 1);
+        for(int qx = qx1; qx <= qx2; qx++){
+            for(int qy = qy1; qy <= qy2; qy++){
+                result = Math.max(result, stamps[qx + qy * quadWidth]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the positions of all unobstructed ore tiles in quadrants within range of the specified tile to the output.
+     * @return the output sequence
+     */
+    public IntSeq findAnchors(int x, int y, int range, IntSeq out){
+        out.clear();
+        if(stamps.length == 0) return out;
+
+        int qx1 = Math.max((x - range) / quadrantSize, 0), qy1 = Math.max((y - range) / quadrantSize, 0);
+        int qx2 = Math.min((x + range) / quadrantSize, quadWidth - 1), qy2 = Math.min((y + range) / quadrantSize, quadHeight - 1);
+
+        for(IntSeq[] quads : anchors){
+            if(quads == null) continue;
+
+            for(int qx = qx1; qx <= qx2; qx++){
+                for(int qy = qy1; qy <= qy2; qy++){
+                    IntSeq seq = quads[qx + qy * quadWidth];
+                    if(seq == null) continue;
+
+                    for(int i = 0; i < seq.size; i++){
+                        int pos = seq.items[i];
+                        if(world.rawTile(Point2.x(pos), Point2.y(pos)).block() == Blocks.air){
+                            out.add(pos);
+                        }
+                    }
+                }
+            }
+        }
+
+        return out;
+    }
+
+    private int quadrant(int x, int y){
+        return x / quadrantSize + y / quadrantSize * quadWidth;
+    }
+}
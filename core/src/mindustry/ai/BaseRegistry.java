@@ -2,6 +2,7 @@ package mindustry.ai;
 
 import arc.*;
 import arc.math.*;
+import arc.math.geom.*;
 import arc.struct.*;
 import arc.util.*;
 import mindustry.ctype.*;
@@ -25,6 +26,8 @@ public class BaseRegistry{
     /** parts with no requirement */
     public Seq<BasePart> parts = new Seq<>();
     public ObjectMap<Content, Seq<BasePart>> reqParts = new ObjectMap<>();
+    /** every rotation of every part, indexed by {@link RotatedPart#id} */
+    public Seq<RotatedPart> rotatedParts = new Seq<>();
     public ObjectMap<Item, OreBlock> ores = new ObjectMap<>();
     public ObjectMap<Item, Floor> oreFloors = new ObjectMap<>();
 
@@ -36,6 +39,7 @@ public class BaseRegistry{
         cores.clear();
         parts.clear();
         reqParts.clear();
+        rotatedParts.clear();
 
         //load ore types and corresponding items
         for(Block block : content.blocks()){
@@ -103,6 +107,11 @@ public class BaseRegistry{
                     reqParts.get(part.required, Seq::new).add(part);
                 }
 
+                for(int i = 0; i < 4; i++){
+                    part.rotations[i] = new RotatedPart(part, i, rotatedParts.size);
+                    rotatedParts.add(part.rotations[i]);
+                }
+
             }catch(IOException e){
                 throw new RuntimeException(e);
             }
@@ -125,6 +134,9 @@ public class BaseRegistry{
         //total build cost
         public float tier;
 
+        /** this part rotated 90 degrees counterclockwise N times, where N is the index */
+        public final RotatedPart[] rotations = new RotatedPart[4];
+
         public BasePart(Schematic schematic){
             this.schematic = schematic;
         }
@@ -134,4 +146,40 @@ public class BaseRegistry{
             return Float.compare(tier, other.tier);
         }
     }
+
+    /** A base part with a fixed rotation, precomputed once so placement checks do not need to rotate schematics. */
+    public static class RotatedPart{
+        private static final Vec2 axis = new Vec2(), rotator = new Vec2();
+
+        public final BasePart part;
+        public final Schematic schematic;
+        /** unique index in {@link BaseRegistry#rotatedParts} */
+        public final int id;
+        /** rotation, in 90 degree steps */
+        public final int rotation;
+        /** offset from the anchor (drill center) to the bottom left schematic corner */
+        public final int offsetX, offsetY;
+        /** packed positions of all tiles covered by drills, relative to the bottom left schematic corner */
+        public final IntSeq drillTiles = new IntSeq();
+
+        public RotatedPart(BasePart part, int rotation, int id){
+            this.part = part;
+            this.rotation = rotation;
+            this.id = id;
+
+            Schematic rotated = Schematics.rotate(part.schematic, rotation);
+            schematic = new Schematic(rotated.tiles.map(Stile::copy), part.schematic.tags, rotated.width, rotated.height);
+
+            axis.set((int)(part.schematic.width / 2f), (int)(part.schematic.height / 2f));
+            rotator.set(part.centerX, part.centerY).rotateAround(axis, rotation * 90);
+            offsetX = (int)rotator.x;
+            offsetY = (int)rotator.y;
+
+            for(Stile tile : schematic.tiles){
+                if(tile.block instanceof Drill){
+                    tile.block.iterateTaken(tile.x, tile.y, (ex, ey) -> drillTiles.add(Point2.pack(ex, ey)));
+                }
+            }
+        }
+    }
 }
@@ -7,6 +7,7 @@ import arc.math.geom.*;
 import arc.struct.*;
 import arc.util.*;
 import mindustry.content.*;
+import mindustry.core.*;
 import mindustry.game.EventType.*;
 import mindustry.game.*;
 import mindustry.game.Teams.*;
@@ -53,7 +54,8 @@ public class BlockIndexer{
             addIndex(event.tile);
         });
 
-        Events.on(WorldLoadEvent.class, event -> {
+        //only touches the index and team data, so it runs in parallel with other load stages
+        World.addLoadStage("indexer", () -> {
             damagedTiles = new Seq[Team.all.length];
             flagMap = new Seq[Team.all.length][BlockFlag.all.length];
             activeTeams = new Seq<>(Team.class);
@@ -8,6 +8,7 @@ import arc.math.geom.*;
 import arc.struct.*;
 import arc.util.*;
 import mindustry.annotations.Annotations.*;
+import mindustry.async.*;
 import mindustry.content.*;
 import mindustry.core.*;
 import mindustry.game.EventType.*;
@@ -16,6 +17,8 @@ import mindustry.gen.*;
 import mindustry.graphics.*;
 import mindustry.world.*;
 
+import java.util.concurrent.*;
+
 import static mindustry.Vars.*;
 import static mindustry.ai.Pathfinder.*;
 
@@ -81,6 +84,9 @@ public class ControlPathfinder implements Runnable{
     private static final int updateStepInterval = 200;
     private static final int updateFPS = 30;
     private static final int updateInterval = 1000 / updateFPS, invalidateCheckInterval = 1000;
+    private static final int queueCapacity = 4096;
+    //number of threads used for recomputing inner edges; less than this many cluster updates are done on the pathfinding thread
+    private static final int clusterThreads = Math.max(OS.cores - 1, 1), parallelThreshold = 4;
 
     static final int clusterSize = 12;
 
@@ -111,37 +117,42 @@ public class ControlPathfinder implements Runnable{
 
     int cwidth, cheight;
 
-    //temporarily used for resolving connections for intra-edges
-    IntSet usedEdges = new IntSet();
-    //tasks to run on pathfinding thread
-    TaskQueue queue = new TaskQueue();
+    //temporary data for inner edges of the pathfinding thread
+    EdgeSearch search = new EdgeSearch();
+    //temporary data for each chunk of a parallel cluster update
+    EdgeSearch[] chunkSearches = {};
+    //computes inner edges of many clusters at once
+    final ForkJoinPool clusterPool = new ForkJoinPool(clusterThreads);
+    //tasks to run on pathfinding thread; replaced when the thread is restarted
+    volatile BoundedTaskQueue queue = new BoundedTaskQueue(queueCapacity);
 
     //individual requests based on unit - MAIN THREAD ONLY
     ObjectMap<Unit, PathRequest> unitRequests = new ObjectMap<>();
 
     Seq<PathRequest> threadPathRequests = new Seq<>(false);
 
-    //TODO: very dangerous usage;
-    //TODO - it is accessed from the main thread
-    //TODO - it is written to on the pathfinding thread
+    //PATHFINDING THREAD ONLY - use fieldSnapshot on other threads
     //maps position in world in (x + y * width format) | path type | team (bitpacked to long with FieldIndex.get) to a cache of flow fields
     LongMap<FieldCache> fields = new LongMap<>();
-    //MAIN THREAD ONLY
-    Seq<FieldCache> fieldList = new Seq<>(false);
-
-    //these are for inner edge A* (temporary!)
-    IntFloatMap innerCosts = new IntFloatMap();
-    PathfindQueue innerFrontier = new PathfindQueue();
+    //immutable copy of fields, replaced by the pathfinding thread after every change; never modify this
+    volatile LongMap<FieldCache> fieldSnapshot = new LongMap<>();
 
     //ONLY modify on pathfinding thread.
-    IntSet clustersToUpdate = new IntSet();
-    IntSet clustersToInnerUpdate = new IntSet();
+    //dirty rectangle of each cluster in cluster-local tile coordinates, as (minX, minY, maxX, maxY); minX is -1 if the cluster is clean
+    int[] dirtyRects = {};
+    //indices of clusters that have a dirty rectangle
+    IntSeq dirtyClusters = new IntSeq();
+    //clusters that need their inner edges recomputed
+    Seq<ClusterUpdate> clusterUpdates = new Seq<>(false);
+    ObjectSet<Cluster> queuedClusters = new ObjectSet<>();
+    //portals of an edge before it was rescanned
+    IntSeq lastPortals = new IntSeq();
 
     //PATHFINDING THREAD - requests that should be recomputed
     ObjectSet<PathRequest> invalidRequests = new ObjectSet<>();
 
     /** Current pathfinding thread */
-    @Nullable Thread thread;
+    volatile @Nullable Thread thread;
 
     //path requests are per-unit
     static class PathRequest{
@@ -186,22 +197,29 @@ public class ControlPathfinder implements Runnable{
         final int goalPos;
         //frontier for flow fields
         final IntQueue frontier = new IntQueue();
-        //maps cluster index to field weights; 0 means uninitialized
-        final IntMap<int[]> fields = new IntMap<>();
+        //maps cluster index to field weights; null if the cluster has no field yet, 0 means uninitialized
+        //never resized, and elements are only set on the pathfinding thread, so reading from the main thread is safe
+        final int[][] fields;
         //packed (goalPos | costId | team) long key to use in the global fields map
         final long mapKey;
 
         //main thread only!
         long lastUpdateId = state.updateId;
+        //main thread only; set once removal has been posted to the pathfinding thread
+        boolean removing;
+        //main thread only; clusters that have already been requested through getCost
+        final boolean[] requested;
 
         //TODO: how are the nodes merged? CAN they be merged?
 
-        FieldCache(PathCost cost, int costId, int team, int goalPos){
+        FieldCache(PathCost cost, int costId, int team, int goalPos, int clusters){
             this.cost = cost;
             this.team = team;
             this.goalPos = goalPos;
             this.costId = costId;
             this.mapKey = FieldIndex.get(goalPos, costId, team);
+            this.fields = new int[clusters][];
+            this.requested = new boolean[clusters];
         }
     }
 
@@ -211,6 +229,30 @@ public class ControlPathfinder implements Runnable{
         LongSeq[][] portalConnections = new LongSeq[4][];
     }
 
+    //pending inner edge recomputation of a cluster
+    static class ClusterUpdate{
+        final int team, pathCost, cx, cy;
+        final Cluster cluster;
+        //new portal connections; computed in parallel, assigned on the pathfinding thread
+        @Nullable LongSeq[][] result;
+
+        ClusterUpdate(int team, int pathCost, int cx, int cy, Cluster cluster){
+            this.team = team;
+            this.pathCost = pathCost;
+            this.cx = cx;
+            this.cy = cy;
+            this.cluster = cluster;
+        }
+    }
+
+    //temporary data for inner edge A*; one per thread
+    static class EdgeSearch{
+        //used for resolving connections for intra-edges
+        final IntSet usedEdges = new IntSet();
+        final IntFloatMap costs = new IntFloatMap();
+        final PathfindQueue frontier = new PathfindQueue();
+    }
+
     public ControlPathfinder(){
 
         Events.on(ResetEvent.class, event -> stop());
@@ -218,25 +260,26 @@ public class ControlPathfinder implements Runnable{
         Events.on(WorldLoadEvent.class, event -> {
             stop();
 
-            //TODO: can the pathfinding thread even see these?
+            //the thread is started afterwards, so it sees these
             unitRequests = new ObjectMap<>();
             fields = new LongMap<>();
-            fieldList = new Seq<>(false);
+            fieldSnapshot = new LongMap<>();
 
             clusters = new Cluster[256][][];
             cwidth = Mathf.ceil((float)world.width() / clusterSize);
             cheight = Mathf.ceil((float)world.height() / clusterSize);
 
+            dirtyRects = new int[cwidth * cheight * 4];
+            for(int i = 0; i < dirtyRects.length; i += 4){
+                dirtyRects[i] = -1;
+            }
+            dirtyClusters = new IntSeq();
 
             start();
         });
 
-        Events.on(TileChangeEvent.class, e -> {
-
-            updateTile(e.tile);
-
-            //TODO: recalculate affected flow fields? or just all of them? how to reflow?
-        });
+        //TODO: recalculate affected flow fields? or just all of them? how to reflow?
+        World.changes.subscribe(this::updateTiles);
 
         //invalidate paths
         Events.run(Trigger.update, () -> {
@@ -250,12 +293,11 @@ public class ControlPathfinder implements Runnable{
                 }
             }
 
-            for(var field : fieldList){
+            for(var field : fieldSnapshot.values()){
                 //skipped N update -> drop it
-                if(field.lastUpdateId <= state.updateId - 30){
-                    //make sure it's only modified on the main thread...? but what about calling get() on this thread??
-                    queue.post(() -> fields.remove(field.mapKey));
-                    Core.app.post(() -> fieldList.remove(field));
+                if(!field.removing && field.lastUpdateId <= state.updateId - 30){
+                    field.removing = true;
+                    queue.post(() -> removeField(field));
                 }
             }
         });
@@ -319,21 +361,22 @@ public class ControlPathfinder implements Runnable{
                         }
                     }
 
-                    for(var fields : fieldList){
-                        try{
-                            for(var entry : fields.fields){
-                                int cx = entry.key % cwidth, cy = entry.key / cwidth;
-                                for(int y = 0; y < clusterSize; y++){
-                                    for(int x = 0; x < clusterSize; x++){
-                                        int value = entry.value[x + y * clusterSize];
-                                        Tmp.c1.a = 1f;
-                                        Lines.stroke(0.8f, Tmp.c1.fromHsv(value * 3f, 1f, 1f));
-                                        Draw.alpha(0.5f);
-                                        Fill.square((x + cx * clusterSize) * tilesize, (y + cy * clusterSize) * tilesize, tilesize / 2f);
-                                    }
+                    for(var fields : fieldSnapshot.values()){
+                        for(int index = 0; index < fields.fields.length; index++){
+                            int[] weights = fields.fields[index];
+                            if(weights == null) continue;
+
+                            int cx = index % cwidth, cy = index / cwidth;
+                            for(int y = 0; y < clusterSize; y++){
+                                for(int x = 0; x < clusterSize; x++){
+                                    int value = weights[x + y * clusterSize];
+                                    Tmp.c1.a = 1f;
+                                    Lines.stroke(0.8f, Tmp.c1.fromHsv(value * 3f, 1f, 1f));
+                                    Draw.alpha(0.5f);
+                                    Fill.square((x + cx * clusterSize) * tilesize, (y + cy * clusterSize) * tilesize, tilesize / 2f);
                                 }
                             }
-                        }catch(Exception ignored){} //probably has some concurrency issues when iterating but I don't care, this is for debugging
+                        }
                     }
                 });
 
@@ -346,28 +389,52 @@ public class ControlPathfinder implements Runnable{
         tile.getLinkedTiles(this::updateSingleTile);
     }
 
-    public void updateSingleTile(Tile t){
-        int x = t.x, y = t.y, mx = x % clusterSize, my = y % clusterSize, cx = x / clusterSize, cy = y / clusterSize, cluster = cx + cy * cwidth;
-
-        //is at the edge of a cluster; this means the portals may have changed.
-        if(mx == 0 || my == 0 || mx == clusterSize - 1 || my == clusterSize - 1){
+    /** Marks the area around all tiles that changed during the last tick as dirty, with a single task. */
+    void updateTiles(TileChangeFeed changes){
+        int[] changed = changes.tiles.toArray();
+        int width = world.width();
 
-            if(mx == 0) queueClusterUpdate(cx - 1, cy); //left
-            if(my == 0) queueClusterUpdate(cx, cy - 1); //bottom
-            if(mx == clusterSize - 1) queueClusterUpdate(cx + 1, cy); //right
-            if(my == clusterSize - 1) queueClusterUpdate(cx, cy + 1); //top
+        queue.post(() -> {
+            for(int pos : changed){
+                markDirty(pos % width, pos / width);
+            }
+        });
+    }
 
-            queueClusterUpdate(cx, cy);
-            //TODO: recompute edge clusters too.
-        }else{
-            //there is no need to recompute portals for block updates that are not on the edge.
-            queue.post(() -> clustersToInnerUpdate.add(cluster));
-        }
+    public void updateSingleTile(Tile t){
+        int x = t.x, y = t.y;
+        queue.post(() -> markDirty(x, y));
     }
 
-    void queueClusterUpdate(int cx, int cy){
-        if(cx >= 0 && cy >= 0 && cx < cwidth && cy < cheight){
-            queue.post(() -> clustersToUpdate.add(cx + cy * cwidth));
+    //PATHFINDING THREAD ONLY
+    //adds the area around a tile to the dirty rectangles; a tile also changes the 'near solid' flags of its neighbors, which may be in another cluster.
+    void markDirty(int x, int y){
+        if(dirtyRects.length == 0) return;
+
+        int
+        minX = Math.max(x - 1, 0), minY = Math.max(y - 1, 0),
+        maxX = Math.min(x + 1, wwidth - 1), maxY = Math.min(y + 1, wheight - 1);
+
+        for(int cy = minY / clusterSize; cy <= maxY / clusterSize; cy++){
+            for(int cx = minX / clusterSize; cx <= maxX / clusterSize; cx++){
+                int
+                index = cx + cy * cwidth, offset = index * 4,
+                x1 = Math.max(minX - cx * clusterSize, 0), y1 = Math.max(minY - cy * clusterSize, 0),
+                x2 = Math.min(maxX - cx * clusterSize, clusterSize - 1), y2 = Math.min(maxY - cy * clusterSize, clusterSize - 1);
+
+                if(dirtyRects[offset] == -1){
+                    dirtyClusters.add(index);
+                    dirtyRects[offset] = x1;
+                    dirtyRects[offset + 1] = y1;
+                    dirtyRects[offset + 2] = x2;
+                    dirtyRects[offset + 3] = y2;
+                }else{
+                    dirtyRects[offset] = Math.min(dirtyRects[offset], x1);
+                    dirtyRects[offset + 1] = Math.min(dirtyRects[offset + 1], y1);
+                    dirtyRects[offset + 2] = Math.max(dirtyRects[offset + 2], x2);
+                    dirtyRects[offset + 3] = Math.max(dirtyRects[offset + 3], y2);
+                }
+            }
         }
     }
 
@@ -402,7 +469,28 @@ public class ControlPathfinder implements Runnable{
             thread.interrupt();
             thread = null;
         }
-        queue.clear();
+        //the queue only supports a single consumer, so the next thread gets a new one
+        queue = new BoundedTaskQueue(queueCapacity);
+    }
+
+    /** @return the task queue of the pathfinding thread, for contention metrics. */
+    public BoundedTaskQueue taskQueue(){
+        return queue;
+    }
+
+    //PATHFINDING THREAD ONLY
+    private void putField(FieldCache cache){
+        fields.put(cache.mapKey, cache);
+        fieldSnapshot = new LongMap<>(fields);
+    }
+
+    //PATHFINDING THREAD ONLY
+    private void removeField(FieldCache cache){
+        //the field may have already been replaced by a newer one
+        if(fields.get(cache.mapKey) == cache){
+            fields.remove(cache.mapKey);
+            fieldSnapshot = new LongMap<>(fields);
+        }
     }
 
     /** @return a cluster at coordinates; can be null if not cluster was created yet*/
@@ -459,18 +547,27 @@ public class ControlPathfinder implements Runnable{
         Cluster cluster = dim2[cy * cwidth + cx];
         if(cluster == null){
             cluster = dim2[cy * cwidth + cx] = new Cluster();
-        }else{
-            //reset data
-            for(var p : cluster.portals){
-                if(p != null){
-                    p.clear();
-                }
-            }
         }
 
+        updatePortals(team, pathCost, cx, cy, cluster, 0b1111);
+        updateInnerEdges(team, pathCost, cx, cy, cluster);
+
+        return cluster;
+    }
+
+    /**
+     * Rescans the portals on the specified edges of a cluster.
+     * @param edges bitmask of directions to rescan
+     * @return bitmask of directions where the portals have changed
+     */
+    int updatePortals(int team, int pathCost, int cx, int cy, Cluster cluster, int edges){
+        Cluster[] dim2 = clusters[team][pathCost];
         PathCost cost = idToCost(pathCost);
+        int changed = 0;
 
         for(int direction = 0; direction < 4; direction++){
+            if((edges & (1 << direction)) == 0) continue;
+
             int otherX = cx + Geometry.d4x(direction), otherY = cy + Geometry.d4y(direction);
             //out of bounds, no portals in this direction
             if(otherX < 0 || otherY < 0 || otherX >= cwidth || otherY >= cheight){
@@ -478,7 +575,10 @@ public class ControlPathfinder implements Runnable{
             }
 
             Cluster other = dim2[otherX + otherY * cwidth];
-            IntSeq portals;
+            IntSeq portals, old = cluster.portals[direction];
+
+            lastPortals.clear();
+            if(old != null) lastPortals.addAll(old);
 
             if(other == null){
                 //create new portals at direction
@@ -528,11 +628,21 @@ public class ControlPathfinder implements Runnable{
                 //portals are an inclusive range
                 portals.add(Point2.pack(previous, lastPortal));
             }
+
+            if(!samePortals(lastPortals, portals)){
+                changed |= 1 << direction;
+            }
         }
 
-        updateInnerEdges(team, cost, cx, cy, cluster);
+        return changed;
+    }
 
-        return cluster;
+    private static boolean samePortals(IntSeq a, IntSeq b){
+        if(a.size != b.size) return false;
+        for(int i = 0; i < a.size; i++){
+            if(a.items[i] != b.items[i]) return false;
+        }
+        return true;
     }
 
     void updateInnerEdges(int team, int cost, int cx, int cy, Cluster cluster){
@@ -540,12 +650,18 @@ public class ControlPathfinder implements Runnable{
     }
 
     void updateInnerEdges(int team, PathCost cost, int cx, int cy, Cluster cluster){
+        cluster.portalConnections = computeInnerEdges(search, team, cost, cx, cy, cluster);
+    }
+
+    /** @return new portal connections of a cluster. Only reads the cluster, so this can be called from any thread as long as its portals are not modified. */
+    LongSeq[][] computeInnerEdges(EdgeSearch search, int team, PathCost cost, int cx, int cy, Cluster cluster){
         int minX = cx * clusterSize, minY = cy * clusterSize, maxX = Math.min(minX + clusterSize - 1, wwidth - 1), maxY = Math.min(minY + clusterSize - 1, wheight - 1);
 
+        var usedEdges = search.usedEdges;
         usedEdges.clear();
 
-        //clear all connections, since portals changed, they need to be recomputed.
-        cluster.portalConnections = new LongSeq[4][];
+        //all connections are recomputed, since portals changed
+        LongSeq[][] connections = new LongSeq[4][];
 
         for(int direction = 0; direction < 4; direction++){
             var portals = cluster.portals[direction];
@@ -586,7 +702,7 @@ public class ControlPathfinder implements Runnable{
                             }
 
                             float connectionCost = innerAstar(
-                                team, cost,
+                                search, team, cost,
                                 minX, minY, maxX, maxY,
                                 x + y * wwidth,
                                 otherX + otherY * wwidth,
@@ -597,20 +713,22 @@ public class ControlPathfinder implements Runnable{
                             );
 
                             if(connectionCost != -1f){
-                                if(cluster.portalConnections[direction] == null) cluster.portalConnections[direction] = new LongSeq[cluster.portals[direction].size];
-                                if(cluster.portalConnections[otherDir] == null) cluster.portalConnections[otherDir] = new LongSeq[cluster.portals[otherDir].size];
-                                if(cluster.portalConnections[direction][i] == null) cluster.portalConnections[direction][i] = new LongSeq(8);
-                                if(cluster.portalConnections[otherDir][j] == null) cluster.portalConnections[otherDir][j] = new LongSeq(8);
+                                if(connections[direction] == null) connections[direction] = new LongSeq[cluster.portals[direction].size];
+                                if(connections[otherDir] == null) connections[otherDir] = new LongSeq[cluster.portals[otherDir].size];
+                                if(connections[direction][i] == null) connections[direction][i] = new LongSeq(8);
+                                if(connections[otherDir][j] == null) connections[otherDir][j] = new LongSeq(8);
 
                                 //TODO: can there be duplicate edges??
-                                cluster.portalConnections[direction][i].add(IntraEdge.get(otherDir, j, connectionCost));
-                                cluster.portalConnections[otherDir][j].add(IntraEdge.get(direction, i, connectionCost));
+                                connections[direction][i].add(IntraEdge.get(otherDir, j, connectionCost));
+                                connections[otherDir][j].add(IntraEdge.get(direction, i, connectionCost));
                             }
                         }
                     }
                 }
             }
         }
+
+        return connections;
     }
 
     //distance heuristic: manhattan
@@ -629,9 +747,9 @@ public class ControlPathfinder implements Runnable{
     }
 
     /** @return -1 if no path was found */
-    float innerAstar(int team, PathCost cost, int minX, int minY, int maxX, int maxY, int startPos, int goalPos, int goalX1, int goalY1, int goalX2, int goalY2){
-        var frontier = innerFrontier;
-        var costs = innerCosts;
+    float innerAstar(EdgeSearch search, int team, PathCost cost, int minX, int minY, int maxX, int maxY, int startPos, int goalPos, int goalX1, int goalY1, int goalX2, int goalY2){
+        var frontier = search.frontier;
+        var costs = search.costs;
 
         frontier.clear();
         costs.clear();
@@ -737,7 +855,7 @@ public class ControlPathfinder implements Runnable{
                 otherY = (moveDirs[dir * 2 + 1] * otherAverage + oy);
 
                 float connectionCost = innerAstar(
-                team, cost,
+                search, team, cost,
                 minX, minY, maxX, maxY,
                 tileX + tileY * wwidth,
                 otherX + otherY * wwidth,
@@ -905,7 +1023,7 @@ public class ControlPathfinder implements Runnable{
             int curWeightIndex = (baseX / clusterSize) + (baseY / clusterSize) * cwidth;
 
             //TODO: how can this be null??? serious problem!
-            int[] curWeights = fields.get(curWeightIndex);
+            int[] curWeights = fields[curWeightIndex];
             if(curWeights == null) continue;
 
             int cost = curWeights[baseX % clusterSize + ((baseY % clusterSize) * clusterSize)];
@@ -921,7 +1039,7 @@ public class ControlPathfinder implements Runnable{
 
                     int nextWeightIndex = clx + cly * cwidth;
 
-                    int[] weights = nextWeightIndex == curWeightIndex ? curWeights : fields.get(nextWeightIndex);
+                    int[] weights = nextWeightIndex == curWeightIndex ? curWeights : fields[nextWeightIndex];
 
                     //out of bounds; not allowed to move this way because no weights were registered here
                     if(weights == null) continue;
@@ -967,8 +1085,8 @@ public class ControlPathfinder implements Runnable{
         var fields = cache.fields;
         int key = cx + cy * cwidth;
 
-        if(!fields.containsKey(key)){
-            fields.put(key, new int[clusterSize * clusterSize]);
+        if(fields[key] == null){
+            fields[key] = new int[clusterSize * clusterSize];
 
             if(addingFrontier){
                 for(int dir = 0; dir < 4; dir++){
@@ -976,7 +1094,7 @@ public class ControlPathfinder implements Runnable{
 
                     if(ox < 0 || oy < 0 || ox >= cwidth || oy >= cheight) continue;
 
-                    var otherField = fields.get(ox + oy * cwidth);
+                    var otherField = fields[ox + oy * cwidth];
 
                     if(otherField == null) continue;
 
@@ -1038,11 +1156,9 @@ public class ControlPathfinder implements Runnable{
 
         //create the cache if it doesn't exist, and initialize it
         if(cache == null){
-            cache = new FieldCache(pcost, costId, team, goalPos);
-            fields.put(cache.mapKey, cache);
-            FieldCache fcache = cache;
-            //register field in main thread for iteration
-            Core.app.post(() -> fieldList.add(fcache));
+            cache = new FieldCache(pcost, costId, team, goalPos, cwidth * cheight);
+            //publish the field for the main thread
+            putField(cache);
             cache.frontier.addFirst(goalPos);
             addingFrontier = false; //when it's a new field, there is no need to add to the frontier to merge the flowfield
         }
@@ -1159,12 +1275,7 @@ public class ControlPathfinder implements Runnable{
             request.lastUpdateId = state.updateId;
 
             Tile tileOn = unit.tileOn(), initialTileOn = tileOn;
-            //TODO: should fields be accessible from this thread?
-            FieldCache fieldCache = null;
-            try{
-                fieldCache = fields.get(fieldKey);
-            }catch(ArrayIndexOutOfBoundsException ignored){ //TODO fix this, rare crash due to remove() elsewhere
-            }
+            FieldCache fieldCache = fieldSnapshot.get(fieldKey);
             if(fieldCache == null) fieldCache = request.oldCache;
 
             if(fieldCache != null && tileOn != null){
@@ -1294,20 +1405,17 @@ public class ControlPathfinder implements Runnable{
     }
 
     private int getCost(FieldCache cache, int x, int y, boolean requeue){
-        try{
-            int[] field = cache.fields.get(x / clusterSize + (y / clusterSize) * cwidth);
-            if(field == null){
-                if(!requeue) return 0;
-                //request a new flow cluster if one wasn't found; this may be a spammed a bit, but the function will return early once it's created the first time
+        int index = x / clusterSize + (y / clusterSize) * cwidth;
+        int[] field = cache.fields[index];
+        if(field == null){
+            //request a new flow cluster if one wasn't found; only once per cluster, the thread returns early if it was already created
+            if(requeue && !cache.requested[index]){
+                cache.requested[index] = true;
                 queue.post(() -> addFlowCluster(cache, x / clusterSize, y / clusterSize, true));
-                return 0;
             }
-            return field[(x % clusterSize) + (y % clusterSize) * clusterSize];
-        }catch(ArrayIndexOutOfBoundsException e){
-            //TODO: this crashes because the fields are being added while they're accessed. really bad. needs a long-term solution and some way to cache the map lookup results.
-            //using an array instead of a map would be nice, but that can mean something like 2500 entries in a sparse array, which is pretty terrible...
             return 0;
         }
+        return field[(x % clusterSize) + (y % clusterSize) * clusterSize];
     }
 
     private static boolean raycast(int team, PathCost type, int x1, int y1, int x2, int y2){
@@ -1467,46 +1575,99 @@ public class ControlPathfinder implements Runnable{
         for(var req : threadPathRequests){
             long mapKey = FieldIndex.get(req.destination, pathCost, team);
             var field = fields.get(mapKey);
-            if((field != null && field.fields.containsKey(index)) || req.notFound){
+            if((field != null && field.fields[index] != null) || req.notFound){
                 invalidRequests.add(req);
             }
         }
 
     }
 
-    private void updateClustersComplete(int clusterIndex){
-        for(int team = 0; team < clusters.length; team++){
-            var dim1 = clusters[team];
-            if(dim1 != null){
+    //PATHFINDING THREAD ONLY
+    private void updateDirtyClusters(){
+        //rescan the portals of edges touched by dirty rectangles; this is sequential, as neighboring clusters share their portals
+        for(int i = 0; i < dirtyClusters.size; i++){
+            int index = dirtyClusters.items[i], offset = index * 4, cx = index % cwidth, cy = index / cwidth;
+            int edges =
+                (dirtyRects[offset + 2] == clusterSize - 1 ? 1 : 0) | //right
+                (dirtyRects[offset + 3] == clusterSize - 1 ? 2 : 0) | //top
+                (dirtyRects[offset] == 0 ? 4 : 0) | //left
+                (dirtyRects[offset + 1] == 0 ? 8 : 0); //bottom
+
+            dirtyRects[offset] = -1;
+
+            for(int team = 0; team < clusters.length; team++){
+                var dim1 = clusters[team];
+                if(dim1 == null) continue;
+
                 for(int pathCost = 0; pathCost < dim1.length; pathCost++){
                     var dim2 = dim1[pathCost];
-                    if(dim2 != null){
-                        var cluster = dim2[clusterIndex];
-                        if(cluster != null){
-                            updateCluster(team, pathCost, clusterIndex % cwidth, clusterIndex / cwidth);
-                            clusterChanged(team, pathCost, clusterIndex % cwidth, clusterIndex / cwidth);
+                    if(dim2 == null || dim2[index] == null) continue;
+
+                    int changed = edges == 0 ? 0 : updatePortals(team, pathCost, cx, cy, dim2[index], edges);
+                    queueInnerUpdate(team, pathCost, cx, cy, dim2[index]);
+
+                    //the neighbor shares these portals, so its connections refer to stale portal indices now
+                    for(int dir = 0; dir < 4; dir++){
+                        if((changed & (1 << dir)) == 0) continue;
+
+                        int ox = cx + Geometry.d4x(dir), oy = cy + Geometry.d4y(dir);
+                        if(ox >= 0 && oy >= 0 && ox < cwidth && oy < cheight && dim2[ox + oy * cwidth] != null){
+                            queueInnerUpdate(team, pathCost, ox, oy, dim2[ox + oy * cwidth]);
                         }
                     }
                 }
             }
         }
-    }
 
-    private void updateClustersInner(int clusterIndex){
-        for(int team = 0; team < clusters.length; team++){
-            var dim1 = clusters[team];
-            if(dim1 != null){
-                for(int pathCost = 0; pathCost < dim1.length; pathCost++){
-                    var dim2 = dim1[pathCost];
-                    if(dim2 != null){
-                        var cluster = dim2[clusterIndex];
-                        if(cluster != null){
-                            updateInnerEdges(team, pathCost, clusterIndex % cwidth, clusterIndex / cwidth, cluster);
-                            clusterChanged(team, pathCost, clusterIndex % cwidth, clusterIndex / cwidth);
-                        }
-                    }
+        dirtyClusters.clear();
+
+        if(clusterUpdates.isEmpty()) return;
+
+        //inner edges only depend on the portals and tiles of their own cluster, so they can be computed in parallel
+        if(clusterUpdates.size < parallelThreshold){
+            for(var update : clusterUpdates){
+                update.result = computeInnerEdges(search, update.team, idToCost(update.pathCost), update.cx, update.cy, update.cluster);
+            }
+        }else{
+            int chunks = Math.min(clusterThreads, clusterUpdates.size);
+            if(chunkSearches.length < chunks){
+                chunkSearches = new EdgeSearch[chunks];
+                for(int i = 0; i < chunks; i++){
+                    chunkSearches[i] = new EdgeSearch();
                 }
             }
+
+            ForkJoinTask<?>[] tasks = new ForkJoinTask[chunks];
+            for(int chunk = 0; chunk < chunks; chunk++){
+                int fchunk = chunk;
+                tasks[chunk] = clusterPool.submit(() -> {
+                    EdgeSearch chunkSearch = chunkSearches[fchunk];
+                    for(int i = fchunk; i < clusterUpdates.size; i += chunks){
+                        var update = clusterUpdates.get(i);
+                        update.result = computeInnerEdges(chunkSearch, update.team, idToCost(update.pathCost), update.cx, update.cy, update.cluster);
+                    }
+                });
+            }
+
+            //rethrows any exception
+            for(var task : tasks){
+                task.join();
+            }
+        }
+
+        //merge results
+        for(var update : clusterUpdates){
+            update.cluster.portalConnections = update.result;
+            clusterChanged(update.team, update.pathCost, update.cx, update.cy);
+        }
+
+        clusterUpdates.clear();
+        queuedClusters.clear();
+    }
+
+    private void queueInnerUpdate(int team, int pathCost, int cx, int cy, Cluster cluster){
+        if(queuedClusters.add(cluster)){
+            clusterUpdates.add(new ClusterUpdate(team, pathCost, cx, cy, cluster));
         }
     }
 
@@ -1515,27 +1676,18 @@ public class ControlPathfinder implements Runnable{
         long lastInvalidCheck = Time.millis() + invalidateCheckInterval;
 
         while(true){
-            if(net.client()) return;
+            //a restarted thread replaces this one
+            if(net.client() || thread != Thread.currentThread()) return;
             try{
 
 
                 if(state.isPlaying()){
+                    profiler.controlPathfinder.begin();
                     queue.run();
 
-                    clustersToUpdate.each(cluster -> {
-                        updateClustersComplete(cluster);
-
-                        //just in case: don't redundantly update inner clusters after you've recalculated it entirely
-                        clustersToInnerUpdate.remove(cluster);
-                    });
-
-                    clustersToInnerUpdate.each(cluster -> {
-                        //only recompute the inner links
-                        updateClustersInner(cluster);
-                    });
-
-                    clustersToInnerUpdate.clear();
-                    clustersToUpdate.clear();
+                    if(!dirtyClusters.isEmpty()){
+                        updateDirtyClusters();
+                    }
 
                     //periodically check for invalidated paths
                     if(Time.timeSinceMillis(lastInvalidCheck) > invalidateCheckInterval){
@@ -1560,8 +1712,7 @@ public class ControlPathfinder implements Runnable{
                                 if(field.frontier.isEmpty()){
 
                                     //remove the field, to be recalculated next update once recalculatePath is processed
-                                    fields.remove(field.mapKey);
-                                    Core.app.post(() -> fieldList.remove(field));
+                                    removeField(field);
 
                                     //once the field is invalidated, make sure that all the requests that have it stored in their 'old' field, so units don't stutter during recalculations
                                     for(var otherRequest : threadPathRequests){
@@ -1590,6 +1741,7 @@ public class ControlPathfinder implements Runnable{
                     for(FieldCache cache : fields.values()){
                         updateFields(cache, maxUpdate);
                     }
+                    profiler.controlPathfinder.end();
                 }
 
                 try{
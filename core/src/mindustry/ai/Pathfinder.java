@@ -68,6 +68,8 @@ public class Pathfinder implements Runnable{
 
     /** tile data, see PathTileStruct - kept as a separate array for threading reasons */
     int[] tiles = new int[0];
+    /** Tiles packed by the load stage, installed once the thread is stopped. */
+    private @Nullable int[] loadedTiles;
 
     /** maps team, cost, type to flow field*/
     Flowfield[][][] cache;
@@ -82,22 +84,32 @@ public class Pathfinder implements Runnable{
     public Pathfinder(){
         clearCache();
 
+        //tiles are packed into a new array while the pathfinding thread may still be using the old one
+        World.addLoadStage("pathfinder", () -> {
+            Tiles all = world.tiles;
+            int[] packed = new int[all.width * all.height];
+
+            World.eachRowParallel(all, y -> {
+                for(int x = 0, i = y * all.width; x < all.width; x++, i++){
+                    packed[i] = packTile(all.geti(i), false);
+                }
+            });
+
+            loadedTiles = packed;
+        }, "darkness");
+
         Events.on(WorldLoadEvent.class, event -> {
             stop();
 
             //reset and update internal tile array
-            tiles = new int[world.width() * world.height()];
+            tiles = loadedTiles;
+            loadedTiles = null;
             wwidth = world.width();
             wheight = world.height();
             threadList = new Seq<>();
             mainList = new Seq<>();
             clearCache();
 
-            for(int i = 0; i < tiles.length; i++){
-                Tile tile = world.tiles.geti(i);
-                tiles[i] = packTile(tile);
-            }
-
             //don't bother setting up paths unless necessary
             if(state.rules.waveTeam.needsFlowField() && !net.client()){
                 preloadPath(getField(state.rules.waveTeam, costGround, fieldCore));
@@ -116,7 +128,7 @@ public class Pathfinder implements Runnable{
 
         Events.on(ResetEvent.class, event -> stop());
 
-        Events.on(TileChangeEvent.class, event -> updateTile(event.tile));
+        World.changes.subscribe(this::updateTiles);
 
         //remove nearSolid flag for tiles
         Events.on(TilePreChangeEvent.class, event -> {
@@ -154,6 +166,11 @@ public class Pathfinder implements Runnable{
 
     /** Packs a tile into its internal representation. */
     public int packTile(Tile tile){
+        return packTile(tile, true);
+    }
+
+    /** @param markNeighbors whether to mark neighbors as near solid. Not needed when packing every tile, as each tile checks its own neighbors. */
+    private int packTile(Tile tile, boolean markNeighbors){
         boolean nearLiquid = false, nearSolid = false, nearLegSolid = false, nearGround = false, solid = tile.solid(), allDeep = tile.floor().isDeep();
 
         for(int i = 0; i < 4; i++){
@@ -169,7 +186,7 @@ public class Pathfinder implements Runnable{
                 if(other.legSolid()) nearLegSolid = true;
 
                 //other tile is now near solid
-                if(solid && !tile.block().teamPassable){
+                if(markNeighbors && solid && !tile.block().teamPassable){
                     tiles[other.array()] |= PathTile.bitMaskNearSolid;
                 }
             }
@@ -249,6 +266,35 @@ public class Pathfinder implements Runnable{
         controlPath.updateTile(tile);
     }
 
+    /** Updates all tiles that changed during the last tick. Target positions and flow fields are only invalidated once. */
+    void updateTiles(TileChangeFeed changes){
+        if(net.client()) return;
+
+        IntSeq changed = changes.tiles;
+        for(int i = 0; i < changed.size; i++){
+            int pos = changed.items[i];
+            if(pos < tiles.length){
+                tiles[pos] = packTile(world.tiles.geti(pos));
+            }
+        }
+
+        //can't iterate through array so use the map, which should not lead to problems
+        for(Flowfield path : mainList){
+            if(path != null){
+                synchronized(path.targets){
+                    path.updateTargetPositions();
+                }
+            }
+        }
+
+        //mark every flow field as dirty, so it updates when it's done
+        queue.post(() -> {
+            for(Flowfield data : threadList){
+                data.dirty = true;
+            }
+        });
+    }
+
     /** Thread implementation. */
     @Override
     public void run(){
@@ -257,6 +303,7 @@ public class Pathfinder implements Runnable{
             try{
 
                 if(state.isPlaying()){
+                    profiler.pathfinder.begin();
                     queue.run();
 
                     //each update time (not total!) no longer than maxUpdate
@@ -270,6 +317,7 @@ public class Pathfinder implements Runnable{
 
                         updateFrontier(data, maxUpdate);
                     }
+                    profiler.pathfinder.end();
                 }
 
                 try{
@@ -284,6 +332,11 @@ public class Pathfinder implements Runnable{
         }
     }
 
+    /** @return the number of tasks waiting for the pathfinding thread. */
+    public int queueSize(){
+        return queue.size();
+    }
+
     public Flowfield getField(Team team, int costType, int fieldType){
         if(cache[team.id][costType][fieldType] == null){
             Flowfield field = fieldTypes.get(fieldType).get();
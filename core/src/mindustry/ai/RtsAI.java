@@ -11,6 +11,7 @@ import mindustry.ai.types.*;
 import mindustry.content.*;
 import mindustry.core.*;
 import mindustry.entities.*;
+import mindustry.game.*;
 import mindustry.game.EventType.*;
 import mindustry.game.Teams.*;
 import mindustry.gen.*;
@@ -44,7 +45,7 @@ public class RtsAI{
 
     //must be static, as this class can get instantiated many times; event listeners are hard to clean up
     static{
-        Events.on(BuildDamageEvent.class, e -> {
+        EventDispatch.on(BuildDamageEvent.class, e -> {
             if(e.build.team.rules().rtsAi){
                 var ai = e.build.team.data().rtsAi;
                 if(ai != null){
@@ -3,6 +3,7 @@ package mindustry.async;
 import arc.*;
 import arc.struct.*;
 import arc.util.*;
+import mindustry.core.*;
 import mindustry.game.EventType.*;
 
 import java.util.concurrent.*;
@@ -19,6 +20,8 @@ public class AsyncCore{
     private final Seq<Future<?>> futures = new Seq<>();
 
     private ExecutorService executor;
+    //profiler sections for each process, timed on the worker thread
+    private final ObjectMap<AsyncProcess, TickProfiler.Section> sections = new ObjectMap<>();
 
     public AsyncCore(){
         Events.on(WorldLoadEvent.class, e -> {
@@ -38,6 +41,8 @@ public class AsyncCore{
 
     public void begin(){
         if(state.isPlaying()){
+            profiler.asyncBegin.begin();
+
             //sync begin
             for(AsyncProcess p : processes){
                 p.begin();
@@ -58,21 +63,40 @@ public class AsyncCore{
             //submit all tasks
             for(AsyncProcess p : processes){
                 if(p.shouldProcess()){
-                    futures.add(executor.submit(p::process));
+                    TickProfiler.Section section = processSection(p);
+                    futures.add(executor.submit(() -> {
+                        long start = Time.nanos();
+                        p.process();
+                        section.record(Time.nanos() - start);
+                    }));
                 }
             }
+
+            profiler.asyncBegin.end();
         }
     }
 
     public void end(){
         if(state.isPlaying()){
+            profiler.asyncEnd.begin();
+
             complete();
 
             //sync end (flush data)
             for(AsyncProcess p : processes){
                 p.end();
             }
+
+            profiler.asyncEnd.end();
+        }
+    }
+
+    private TickProfiler.Section processSection(AsyncProcess process){
+        TickProfiler.Section section = sections.get(process);
+        if(section == null){
+            sections.put(process, section = profiler.section("async.process." + process.getClass().getSimpleName()));
         }
+        return section;
     }
 
     private void complete(){
@@ -0,0 +1,140 @@
+package mindustry.async;
+
+import arc.struct.*;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Lock-free bounded task queue with any number of producers and a single consumer thread.
+ * Tasks that do not fit into the ring are kept in a locked overflow list, so nothing is ever dropped;
+ * once the queue overflows, tasks keep going to the overflow list until the consumer has drained it, which keeps the order of each producer intact.
+ * All counters are approximate and may be read from any thread.
+ */
+public class BoundedTaskQueue{
+    private final Runnable[] buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+    /** Only written by the consumer. */
+    private volatile long head;
+
+    private final Object overflowLock = new Object();
+    private final Seq<Runnable> overflow = new Seq<>(false, 16, Runnable.class), drained = new Seq<>(false, 16, Runnable.class);
+    private volatile boolean overflowing;
+
+    /** Total number of posted tasks. */
+    public final AtomicLong posted = new AtomicLong();
+    /** Number of times a producer had to retry because another producer claimed the same slot. */
+    public final AtomicLong contended = new AtomicLong();
+    /** Number of tasks that did not fit into the ring and went to the overflow list. */
+    public final AtomicLong overflowed = new AtomicLong();
+    /** Largest number of pending tasks seen by the consumer. */
+    public volatile long maxDepth;
+
+    /** @param capacity ring capacity; rounded up to a power of two. */
+    public BoundedTaskQueue(int capacity){
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        buffer = new Runnable[size];
+        sequences = new AtomicLongArray(size);
+        mask = size - 1;
+        for(int i = 0; i < size; i++){
+            sequences.set(i, i);
+        }
+    }
+
+    /** Adds a task to the queue. May be called from any thread. */
+    public void post(Runnable task){
+        posted.incrementAndGet();
+
+        if(overflowing){
+            synchronized(overflowLock){
+                if(overflowing){
+                    overflow.add(task);
+                    overflowed.incrementAndGet();
+                    return;
+                }
+            }
+        }
+
+        if(!offer(task)){
+            synchronized(overflowLock){
+                overflowing = true;
+                overflow.add(task);
+                overflowed.incrementAndGet();
+            }
+        }
+    }
+
+    private boolean offer(Runnable task){
+        long pos = tail.get();
+        while(true){
+            int index = (int)(pos & mask);
+            long diff = sequences.get(index) - pos;
+
+            if(diff == 0){
+                if(tail.compareAndSet(pos, pos + 1)){
+                    buffer[index] = task;
+                    //publishes the task to the consumer
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+                contended.incrementAndGet();
+                pos = tail.get();
+            }else if(diff < 0){
+                //full
+                return false;
+            }else{
+                //another producer got here first
+                contended.incrementAndGet();
+                pos = tail.get();
+            }
+        }
+    }
+
+    /** Runs all pending tasks. Must only be called from the consumer thread. */
+    public void run(){
+        long depth = size();
+        if(depth > maxDepth) maxDepth = depth;
+
+        long pos = head;
+        while(true){
+            int index = (int)(pos & mask);
+            if(sequences.get(index) != pos + 1) break;
+
+            Runnable task = buffer[index];
+            buffer[index] = null;
+            //frees the slot for producers
+            sequences.lazySet(index, pos + mask + 1);
+            head = ++pos;
+            task.run();
+        }
+
+        if(overflowing){
+            synchronized(overflowLock){
+                drained.addAll(overflow);
+                overflow.clear();
+                overflowing = false;
+            }
+
+            //these were posted before anything that is in the ring now, so they are run first
+            for(int i = 0; i < drained.size; i++){
+                drained.items[i].run();
+            }
+            drained.clear();
+        }
+    }
+
+    /** @return the approximate number of pending tasks. */
+    public long size(){
+        return Math.max(tail.get() - head, 0) + (overflowing ? overflow.size : 0);
+    }
+
+    /** Resets all counters. */
+    public void resetStats(){
+        posted.set(0);
+        contended.set(0);
+        overflowed.set(0);
+        maxDepth = 0;
+    }
+}
@@ -876,6 +876,7 @@ public class Blocks{
             hasItems = true;
 
             consumeItem(Items.coal, 2);
+            regionSleep = true;
         }};
 
         multiPress = new GenericCrafter("multi-press"){{
@@ -893,6 +894,7 @@ public class Blocks{
             consumePower(1.8f);
             consumeItem(Items.coal, 3);
             consumeLiquid(Liquids.water, 0.1f);
+            regionSleep = true;
         }};
 
         siliconSmelter = new GenericCrafter("silicon-smelter"){{
@@ -909,6 +911,7 @@ public class Blocks{
 
             consumeItems(with(Items.coal, 1, Items.sand, 2));
             consumePower(0.50f);
+            regionSleep = true;
         }};
 
         siliconCrucible = new AttributeCrafter("silicon-crucible"){{
@@ -942,6 +945,7 @@ public class Blocks{
 
             consumeItems(with(Items.lead, 1, Items.sand, 1));
             consumePower(0.60f);
+            regionSleep = true;
         }};
 
         plastaniumCompressor = new GenericCrafter("plastanium-compressor"){{
@@ -960,6 +964,7 @@ public class Blocks{
             consumeLiquid(Liquids.oil, 0.25f);
             consumePower(3f);
             consumeItem(Items.titanium, 2);
+            regionSleep = true;
         }};
 
         phaseWeaver = new GenericCrafter("phase-weaver"){{
@@ -978,6 +983,7 @@ public class Blocks{
             consumeItems(with(Items.thorium, 4, Items.sand, 10));
             consumePower(5f);
             itemCapacity = 30;
+            regionSleep = true;
         }};
 
         surgeSmelter = new GenericCrafter("surge-smelter"){{
@@ -992,6 +998,7 @@ public class Blocks{
 
             consumePower(4f);
             consumeItems(with(Items.copper, 3, Items.lead, 4, Items.titanium, 2, Items.silicon, 3));
+            regionSleep = true;
         }};
 
         cryofluidMixer = new GenericCrafter("cryofluid-mixer"){{
@@ -1026,6 +1033,7 @@ public class Blocks{
 
             consumePower(0.20f);
             consumeItems(with(Items.coal, 1, Items.lead, 2, Items.sand, 2));
+            regionSleep = true;
         }};
 
         blastMixer = new GenericCrafter("blast-mixer"){{
@@ -1038,6 +1046,7 @@ public class Blocks{
 
             consumeItems(with(Items.pyratite, 1, Items.sporePod, 1));
             consumePower(0.40f);
+            regionSleep = true;
         }};
 
         melter = new GenericCrafter("melter"){{
@@ -1131,6 +1140,7 @@ public class Blocks{
 
             consumeItem(Items.scrap, 1);
             consumePower(0.50f);
+            regionSleep = true;
         }};
 
         coalCentrifuge = new GenericCrafter("coal-centrifuge"){{
@@ -1144,6 +1154,7 @@ public class Blocks{
 
             consumeLiquid(Liquids.oil, 0.1f);
             consumePower(0.7f);
+            regionSleep = true;
         }};
 
         incinerator = new Incinerator("incinerator"){{
@@ -1174,6 +1185,7 @@ public class Blocks{
 
             consumeItems(with(Items.graphite, 1, Items.sand, 4));
             consumePower(6f);
+            regionSleep = true;
         }};
 
         electrolyzer = new GenericCrafter("electrolyzer"){{
@@ -1893,6 +1905,7 @@ public class Blocks{
             displayedSpeed = 4.2f;
             buildCostMultiplier = 2f;
             researchCost = with(Items.copper, 5);
+            regionSleep = true;
         }};
 
         titaniumConveyor = new Conveyor("titanium-conveyor"){{
@@ -1900,6 +1913,7 @@ public class Blocks{
             health = 65;
             speed = 0.08f;
             displayedSpeed = 11f;
+            regionSleep = true;
         }};
 
         plastaniumConveyor = new StackConveyor("plastanium-conveyor"){{
@@ -1914,6 +1928,7 @@ public class Blocks{
             health = 280;
             speed = 0.08f;
             displayedSpeed = 11f;
+            regionSleep = true;
         }};
 
         junction = new Junction("junction"){{
@@ -61,7 +61,7 @@ public class Control implements ApplicationListener, Loadable{
         sound = new SoundControl();
         indicators = new AttackIndicators();
 
-        Events.on(BuildDamageEvent.class, e -> {
+        EventDispatch.on(BuildDamageEvent.class, e -> {
             if(e.build.team == Vars.player.team()){
                 indicators.add(e.build.tileX(), e.build.tileY());
             }
@@ -30,10 +30,12 @@ import static mindustry.Vars.*;
  * This class should <i>not</i> call any outside methods to change state of modules, but instead fire events.
  */
 public class Logic implements ApplicationListener{
+    /** If positive, every update advances the game by exactly this many ticks instead of the frame time. */
+    public float fixedDelta;
 
     public Logic(){
 
-        Events.on(BlockDestroyEvent.class, event -> {
+        EventDispatch.on(BlockDestroyEvent.class, event -> {
             //skip if rule is off
             if(!state.rules.ghostBlocks) return;
 
@@ -160,7 +162,7 @@ public class Logic implements ApplicationListener{
             }
         });
 
-        Events.on(BlockDestroyEvent.class, e -> {
+        EventDispatch.on(BlockDestroyEvent.class, e -> {
             if(e.tile.build instanceof CoreBuild core && core.team.isAI() && state.rules.coreDestroyClear){
                 Core.app.post(() -> {
                     core.team.data().timeDestroy(core.x, core.y, state.rules.enemyCoreBuildRadius);
@@ -185,19 +187,19 @@ public class Logic implements ApplicationListener{
             }
         });
 
-        Events.on(BlockDestroyEvent.class, e -> {
+        EventDispatch.on(BlockDestroyEvent.class, e -> {
             if(e.tile.team() == state.rules.defaultTeam){
                 state.stats.buildingsDestroyed ++;
             }
         });
 
-        Events.on(UnitDestroyEvent.class, e -> {
+        EventDispatch.on(UnitDestroyEvent.class, e -> {
             if(e.unit.team() != state.rules.defaultTeam){
                 state.stats.enemyUnitsDestroyed ++;
             }
         });
 
-        Events.on(UnitCreateEvent.class, e -> {
+        EventDispatch.on(UnitCreateEvent.class, e -> {
             if(e.unit.team == state.rules.defaultTeam){
                 state.stats.unitsCreated++;
             }
@@ -428,14 +430,17 @@ public class Logic implements ApplicationListener{
             }
 
             if(!state.isPaused()){
-                float delta = Core.graphics.getDeltaTime();
+                profiler.logic.begin();
+                float delta = fixedDelta > 0f ? fixedDelta / 60f : Core.graphics.getDeltaTime();
                 state.tick += Float.isNaN(delta) || Float.isInfinite(delta) ? 0f : delta * 60f;
                 state.updateId ++;
                 state.teams.updateTeamStats();
                 MapPreviewLoader.checkPreviews();
 
                 if(state.rules.fog){
+                    profiler.logicFog.begin();
                     fogControl.update();
+                    profiler.logicFog.end();
                 }
 
                 if(state.isCampaign()){
@@ -443,7 +448,9 @@ public class Logic implements ApplicationListener{
                 }
 
                 if(state.isCampaign()){
+                    profiler.logicUniverse.begin();
                     universe.update();
+                    profiler.logicUniverse.end();
                 }
                 Time.update();
 
@@ -453,6 +460,7 @@ public class Logic implements ApplicationListener{
                 if(!net.client() && !state.isEditor()){
                     updateWeather();
 
+                    profiler.logicTeamAi.begin();
                     for(TeamData data : state.teams.getActive()){
                         //does not work on PvP so built-in attack maps can have it on by default without issues
                         if(data.team.rules().buildAi && !state.rules.pvp){
@@ -465,10 +473,13 @@ public class Logic implements ApplicationListener{
                             data.rtsAi.update();
                         }
                     }
+                    profiler.logicTeamAi.end();
                 }
 
                 if(!state.isEditor()){
+                    profiler.logicObjectives.begin();
                     state.rules.objectives.update();
+                    profiler.logicObjectives.end();
                 }
 
                 if(state.rules.waves && state.rules.waveTimer && !state.gameOver){
@@ -486,9 +497,15 @@ public class Logic implements ApplicationListener{
                 state.envAttrs.add(state.rules.attributes);
                 Groups.weather.each(w -> state.envAttrs.add(w.weather.attrs, w.opacity));
 
+                profiler.logicGroups.begin();
                 Groups.update();
+                profiler.logicGroups.end();
+                profiler.logic.end();
             }
 
+            //hand all tile changes of this tick to batched subscribers
+            World.changes.flush();
+
             if(runStateCheck){
                 checkGameState();
             }
@@ -15,6 +15,7 @@ import mindustry.*;
 import mindustry.annotations.Annotations.*;
 import mindustry.core.GameState.*;
 import mindustry.entities.*;
+import mindustry.entities.units.*;
 import mindustry.game.EventType.*;
 import mindustry.game.*;
 import mindustry.game.Teams.*;
@@ -37,6 +38,12 @@ public class NetClient implements ApplicationListener{
     private static final float dataTimeout = 60 * 30;
     /** ticks between syncs, e.g. 5 means 60/5 = 12 syncs/sec*/
     private static final float playerSyncTime = 4;
+    /** ticks between re-sending unchanged build plan changes that have not been acknowledged */
+    private static final float planResendTime = 30;
+    /** maximum amount of build plans added in a single packet */
+    private static final int maxPlansPerSync = 50, maxPlanConfigBytes = 500, maxPendingPlanSyncs = 32;
+    /** maximum amount of removed build plan IDs in a single packet; 4 bytes each, so a full packet still fits into the write buffer */
+    private static final int maxRemovedPerSync = 1000;
     private static final Reads dataReads = new Reads(null);
     private static final JsonValue tmpJsonMap = new JsonValue(ValueType.object);
 
@@ -53,6 +60,23 @@ public class NetClient implements ApplicationListener{
     /** Last sent client snapshot ID. */
     private int lastSent;
 
+    /** Next sync ID for build plans. Never reset, so IDs are unique for the whole session. */
+    private int nextPlanId = 1;
+    /** Last sent plan sync packet ID. */
+    private int lastPlanSync;
+    /** Unit that the plan sync state belongs to. */
+    private int planUnit = -1;
+    /** Hash of the last sent plan changes, used to avoid re-sending them every sync. */
+    private int lastPlanHash;
+    private float lastPlanSend;
+    /** Sync IDs of plans that the server has acknowledged. */
+    private IntSet ackedPlans = new IntSet();
+    /** Plans that the server knows about once a packet is acknowledged, by packet ID. */
+    private IntMap<IntSeq> pendingPlanSyncs = new IntMap<>();
+    private IntSet currentPlans = new IntSet();
+    private IntSeq planRemoved = new IntSeq(), planAddedIds = new IntSeq();
+    private Seq<BuildPlan> planAdded = new Seq<>(BuildPlan.class);
+
     /** List of entities that were removed, and need not be added while syncing. */
     private IntSet removed = new IntSet();
     /** Byte stream for reading in snapshots. */
@@ -190,6 +214,22 @@ public class NetClient implements ApplicationListener{
         clientPacketReliable(type, contents);
     }
 
+    /** Acknowledges a plan sync packet; the server has applied all plan changes in it. */
+    @Remote(variants = Variant.one, unreliable = true)
+    public static void planSyncAck(int syncID){
+        IntSeq known = netClient.pendingPlanSyncs.get(syncID);
+        if(known == null) return;
+
+        netClient.ackedPlans.clear();
+        netClient.ackedPlans.addAll(known);
+
+        //older packets are irrelevant now
+        var keys = netClient.pendingPlanSyncs.keys();
+        while(keys.hasNext){
+            if(keys.next() <= syncID) keys.remove();
+        }
+    }
+
     @Remote(variants = Variant.both, unreliable = true, called = Loc.server)
     public static void sound(Sound sound, float volume, float pitch, float pan){
         if(sound == null || headless) return;
@@ -622,6 +662,7 @@ public class NetClient implements ApplicationListener{
         quietReset = false;
         quiet = false;
         lastSent = 0;
+        resetPlanSync(-1);
 
         Groups.clear();
         ui.chatfrag.clearMessages();
@@ -678,10 +719,13 @@ public class NetClient implements ApplicationListener{
             unit == null ? 0f : unit.vel.x, unit == null ? 0f : unit.vel.y,
             dead ? null : unit.mineTile,
             player.boosting, player.shooting, ui.chatfrag.shown(), control.input.isBuilding,
-            player.isBuilder() && unit != null ? unit.plans : null,
             Core.camera.position.x, Core.camera.position.y,
             Core.camera.width, Core.camera.height
             );
+
+            if(player.isBuilder() && unit != null){
+                syncPlans(unit);
+            }
         }
 
         if(timer.get(1, 60)){
@@ -689,6 +733,86 @@ public class NetClient implements ApplicationListener{
         }
     }
 
+    private void resetPlanSync(int unitID){
+        planUnit = unitID;
+        lastPlanHash = 0;
+        ackedPlans.clear();
+        pendingPlanSyncs.clear();
+    }
+
+    /** Sends all build plan changes that the server has not acknowledged yet. */
+    void syncPlans(Unit unit){
+        if(unit.id != planUnit){
+            resetPlanSync(unit.id);
+        }
+
+        var plans = unit.plans;
+        currentPlans.clear();
+        planRemoved.clear();
+        planAddedIds.clear();
+        planAdded.clear();
+
+        int configBytes = 0;
+        for(int i = 0; i < plans.size; i++){
+            BuildPlan plan = plans.get(i);
+            if(plan.syncId == 0) plan.syncId = nextPlanId++;
+            currentPlans.add(plan.syncId);
+
+            //added plans are capped per packet to prevent buffer overflows; the rest are sent once these are acknowledged
+            if(!ackedPlans.contains(plan.syncId) && planAdded.size < maxPlansPerSync && configBytes <= maxPlanConfigBytes){
+                if(plan.config instanceof byte[] b) configBytes += b.length;
+                if(plan.config instanceof String str) configBytes += str.length();
+
+                planAdded.add(plan);
+                planAddedIds.add(plan.syncId);
+            }
+        }
+
+        for(var it = ackedPlans.iterator(); it.hasNext;){
+            int id = it.next();
+            if(!currentPlans.contains(id)) planRemoved.add(id);
+        }
+
+        //removed plans are capped per packet as well; the rest stay known to the server, and are sent once these are acknowledged
+        int unsentRemoved = Math.max(planRemoved.size - maxRemovedPerSync, 0);
+        planRemoved.size -= unsentRemoved;
+
+        int head = plans.isEmpty() ? -1 : plans.first().syncId;
+        int hash = head;
+        for(int i = 0; i < planRemoved.size; i++) hash = hash * 31 + planRemoved.items[i];
+        for(int i = 0; i < planAddedIds.size; i++) hash = hash * 31 + planAddedIds.items[i];
+
+        boolean changed = planRemoved.size > 0 || planAdded.size > 0;
+
+        //nothing new to send; unacknowledged changes are only repeated occasionally
+        if(hash == lastPlanHash && (!changed || Time.time - lastPlanSend < planResendTime)){
+            return;
+        }
+
+        lastPlanHash = hash;
+        lastPlanSend = Time.time;
+
+        int syncID = ++lastPlanSync;
+
+        //what the server will know about once this packet is acknowledged
+        IntSeq known = new IntSeq(ackedPlans.size + planAddedIds.size);
+        for(var it = ackedPlans.iterator(); it.hasNext;){
+            int id = it.next();
+            if(currentPlans.contains(id)) known.add(id);
+        }
+        for(int i = 0; i < unsentRemoved; i++){
+            known.add(planRemoved.items[planRemoved.size + i]);
+        }
+        known.addAll(planAddedIds);
+
+        if(pendingPlanSyncs.size >= maxPendingPlanSyncs){
+            pendingPlanSyncs.clear();
+        }
+        pendingPlanSyncs.put(syncID, known);
+
+        Call.clientPlanSync(unit.id, syncID, head, planRemoved.toArray(), planAddedIds.toArray(), planAdded.toArray());
+    }
+
     String getUsid(String ip){
         //consistently use the latter part of an IP, if possible
         if(ip.contains("/")){
@@ -37,6 +37,8 @@ public class NetServer implements ApplicationListener{
     private static final int maxSnapshotSize = 800;
     private static final int timerBlockSync = 0, timerHealthSync = 1;
     private static final float blockSyncTime = 60 * 6, healthSyncTime = 30;
+    /** Number of block snapshots after which every synced building has been resent, even if it did not change. */
+    private static final int blockRefreshCycles = 10;
     private static final FloatBuffer fbuffer = FloatBuffer.allocate(20);
     private static final Writes dataWrites = new Writes(null);
     private static final IntSeq hiddenIds = new IntSeq();
@@ -46,6 +48,8 @@ public class NetServer implements ApplicationListener{
     private static final float correctDist = tilesize * 14f;
 
     public Administration admins = new Administration();
+    /** Rate budgets for unreliable packets to saturated connections. Loaded from {@link Config#packetBudgets}. */
+    public PacketBudgets packetBudgets = new PacketBudgets();
     public CommandHandler clientCommands = new CommandHandler("/");
     public TeamAssigner assigner = (player, players) -> {
         if(state.rules.pvp){
@@ -95,6 +99,9 @@ public class NetServer implements ApplicationListener{
         }
     };
 
+    /** If non-negative, the time in milliseconds used instead of wall time to limit client movement and to space out snapshots. Set by replay playback. */
+    public long clockOverride = -1;
+
     private boolean closing = false, pvpAutoPaused = true;
     private Interval timer = new Interval(10);
     private IntSet buildHealthChanged = new IntSet();
@@ -115,6 +122,11 @@ public class NetServer implements ApplicationListener{
     private ReusableByteOutStream syncStream = new ReusableByteOutStream();
     /** Data stream for writing player sync data to. */
     private DataOutputStream dataStream = new DataOutputStream(syncStream);
+    /** Stream for writing the sync data of a single building to, so it can be compared with the data that was last sent. */
+    private ReusableByteOutStream blockStream = new ReusableByteOutStream();
+    private DataOutputStream blockDataStream = new DataOutputStream(blockStream);
+    /** Part of the synced buildings that is resent regardless of changes in the next block snapshot. */
+    private int blockRefreshCycle;
     /** Packet handlers for custom types of messages. */
     private ObjectMap<String, Seq<Cons2<Player, String>>> customPacketHandlers = new ObjectMap<>();
     /** Packet handlers for custom types of messages - binary version. */
@@ -306,6 +318,7 @@ public class NetServer implements ApplicationListener{
     @Override
     public void init(){
         mods.eachClass(mod -> mod.registerClientCommands(clientCommands));
+        packetBudgets.load(Config.packetBudgets.string());
     }
 
     private void registerCommands(){
@@ -644,7 +657,6 @@ public class NetServer implements ApplicationListener{
     float xVelocity, float yVelocity,
     Tile mining,
     boolean boosting, boolean shooting, boolean chatting, boolean building,
-    @Nullable Queue<BuildPlan> plans,
     float viewX, float viewY, float viewWidth, float viewHeight
     ){
         NetConnection con = player.con;
@@ -662,7 +674,7 @@ public class NetServer implements ApplicationListener{
 
         boolean verifyPosition = netServer.admins.isStrict() && headless;
 
-        if(con.lastReceivedClientTime == 0) con.lastReceivedClientTime = Time.millis() - 16;
+        if(con.lastReceivedClientTime == 0) con.lastReceivedClientTime = clock() - 16;
 
         con.viewX = viewX;
         con.viewY = viewY;
@@ -687,44 +699,15 @@ public class NetServer implements ApplicationListener{
         @Nullable var unit = player.unit();
 
         if(player.isBuilder()){
-            unit.clearBuilding();
             unit.updateBuilding(building);
-
-            if(plans != null){
-                for(BuildPlan req : plans){
-                    if(req == null) continue;
-                    Tile tile = world.tile(req.x, req.y);
-                    if(tile == null || (!req.breaking && req.block == null)) continue;
-                    //auto-skip done requests
-                    if(req.breaking && tile.block() == Blocks.air){
-                        continue;
-                    }else if(!req.breaking && tile.block() == req.block && tile.team() != Team.derelict && (!req.block.rotate || (tile.build != null && tile.build.rotation == req.rotation))){
-                        continue;
-                    }else if(con.rejectedRequests.contains(r -> r.breaking == req.breaking && r.x == req.x && r.y == req.y)){ //check if request was recently rejected, and skip it if so
-                        continue;
-                    }else if(!netServer.admins.allowAction(player, req.breaking ? ActionType.breakBlock : ActionType.placeBlock, tile, action -> { //make sure request is allowed by the server
-                        action.block = req.block;
-                        action.rotation = req.rotation;
-                        action.config = req.config;
-                    })){
-                        //force the player to remove this request if that's not the case
-                        Call.removeQueueBlock(player.con, req.x, req.y, req.breaking);
-                        con.rejectedRequests.add(req);
-                        continue;
-                    }
-                    player.unit().plans().addLast(req);
-                }
-            }
         }
 
-        con.rejectedRequests.clear();
-
         if(!player.dead()){
             unit.controlWeapons(shooting, shooting);
             unit.aim(pointerX, pointerY);
             unit.mineTile = mining;
 
-            long elapsed = Math.min(Time.timeSinceMillis(con.lastReceivedClientTime), 1500);
+            long elapsed = Math.min(clock() - con.lastReceivedClientTime, 1500);
             float maxSpeed = unit.speed();
 
             float maxMove = elapsed / 1000f * 60f * maxSpeed * 1.2f;
@@ -778,7 +761,86 @@ public class NetServer implements ApplicationListener{
         }
 
         con.lastReceivedClientSnapshot = snapshotID;
-        con.lastReceivedClientTime = Time.millis();
+        con.lastReceivedClientTime = clock();
+    }
+
+    /**
+     * Applies changes to the build plan queue of a player. Every packet contains all changes since the last acknowledged one,
+     * so lost or reordered packets need no special handling; older packets are ignored.
+     * @param head sync ID of the first plan in the queue of the client, or -1 if the queue is empty
+     * @param removed sync IDs of removed plans
+     * @param addedIds sync IDs of the added plans
+     */
+    @Remote(targets = Loc.client, unreliable = true)
+    public static void clientPlanSync(Player player, int unitID, int syncID, int head, int[] removed, int[] addedIds, @Nullable BuildPlan[] added){
+        NetConnection con = player.con;
+        if(con == null || !player.isBuilder() || player.unit().id != unitID) return;
+
+        var unit = player.unit();
+
+        //the plans belong to a new unit; the client resets its state when switching units too
+        if(con.planUnit != unitID){
+            con.planUnit = unitID;
+            con.lastPlanSync = -1;
+            con.plans.clear();
+            con.rejectedPlans.clear();
+            unit.clearBuilding();
+        }
+
+        if(syncID > con.lastPlanSync){
+            con.lastPlanSync = syncID;
+
+            for(int id : removed){
+                BuildPlan plan = con.plans.remove(id);
+                if(plan != null){
+                    unit.plans.remove(plan, true);
+                }
+                con.rejectedPlans.remove(id);
+            }
+
+            if(added != null){
+                for(int i = 0; i < Math.min(added.length, addedIds.length); i++){
+                    BuildPlan plan = added[i];
+                    int id = addedIds[i];
+
+                    //plans are only validated once; known and rejected plans are skipped
+                    if(plan == null || con.plans.containsKey(id) || con.rejectedPlans.contains(id)) continue;
+
+                    Tile tile = world.tile(plan.x, plan.y);
+                    if(tile == null || (!plan.breaking && plan.block == null)) continue;
+                    //auto-skip done plans
+                    if(plan.breaking && tile.block() == Blocks.air){
+                        continue;
+                    }else if(!plan.breaking && tile.block() == plan.block && tile.team() != Team.derelict && (!plan.block.rotate || (tile.build != null && tile.build.rotation == plan.rotation))){
+                        continue;
+                    }else if(!netServer.admins.allowAction(player, plan.breaking ? ActionType.breakBlock : ActionType.placeBlock, tile, action -> { //make sure the plan is allowed by the server
+                        action.block = plan.block;
+                        action.rotation = plan.rotation;
+                        action.config = plan.config;
+                    })){
+                        //force the player to remove this plan if that's not the case
+                        Call.removeQueueBlock(con, plan.x, plan.y, plan.breaking);
+                        con.rejectedPlans.add(id);
+                        continue;
+                    }
+
+                    plan.syncId = id;
+                    con.plans.put(id, plan);
+                    unit.plans.addLast(plan);
+                }
+            }
+        }
+
+        //builders only work on the first plan, so following the head of the client queue is enough to keep up with reordering
+        BuildPlan first = con.plans.get(head);
+        if(first != null){
+            int index = unit.plans.indexOf(first, true);
+            for(int i = 0; i < index; i++){
+                unit.plans.addLast(unit.plans.removeFirst());
+            }
+        }
+
+        Call.planSyncAck(con, con.lastPlanSync);
     }
 
     @Remote(targets = Loc.client, called = Loc.server)
@@ -870,6 +932,8 @@ public class NetServer implements ApplicationListener{
 
     @Override
     public void update(){
+        profiler.netServer.begin();
+
         if(!headless && !closing && net.server() && state.isMenu()){
             closing = true;
             ui.loadfrag.show("@server.closing");
@@ -896,8 +960,12 @@ public class NetServer implements ApplicationListener{
                 }
             }
 
+            profiler.netSync.begin();
             sync();
+            profiler.netSync.end();
         }
+
+        profiler.netServer.end();
     }
 
     //TODO I don't like where this is, move somewhere else?
@@ -926,18 +994,35 @@ public class NetServer implements ApplicationListener{
         }
     }
 
-    /** Sends a block snapshot to all players. */
+    /**
+     * Sends a block snapshot to all players. Only buildings whose sync data changed since it was last sent are included.
+     * Snapshots are unreliable, so changed buildings are sent again in the next snapshot as well, in case one of them is lost.
+     * In addition, a different part of all buildings is resent every time, so that every building is resent every {@link #blockRefreshCycles} snapshots.
+     */
     public void writeBlockSnapshots() throws IOException{
         syncStream.reset();
 
+        int cycle = blockRefreshCycle;
+        blockRefreshCycle = (blockRefreshCycle + 1) % blockRefreshCycles;
+
         short sent = 0;
         for(Building entity : Groups.build){
             if(!entity.block.sync) continue;
+
+            blockStream.reset();
+            entity.writeSync(Writes.get(blockDataStream));
+
+            long hash = hash(blockStream.getBytes(), blockStream.size());
+            boolean changed = hash != entity.syncHash, resend = entity.syncResend;
+            entity.syncHash = hash;
+            entity.syncResend = changed;
+
+            if(!changed && !resend && entity.id % blockRefreshCycles != cycle) continue;
             sent++;
 
             dataStream.writeInt(entity.pos());
             dataStream.writeShort(entity.block.id);
-            entity.writeSync(Writes.get(dataStream));
+            dataStream.write(blockStream.getBytes(), 0, blockStream.size());
 
             if(syncStream.size() > maxSnapshotSize){
                 dataStream.close();
@@ -953,6 +1038,15 @@ public class NetServer implements ApplicationListener{
         }
     }
 
+    private static long hash(byte[] bytes, int length){
+        //FNV-1a
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < length; i++){
+            hash = (hash ^ bytes[i]) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
     public void writeEntitySnapshot(Player player) throws IOException{
         byte tps = (byte)Math.min(Core.graphics.getFramesPerSecond(), 255);
         syncStream.reset();
@@ -1064,6 +1158,11 @@ public class NetServer implements ApplicationListener{
         return str;
     }
 
+    /** @return the time used to limit client movement and to space out snapshots, in milliseconds. */
+    long clock(){
+        return clockOverride >= 0 ? clockOverride : Time.millis();
+    }
+
     void sync(){
         try{
             int interval = Config.snapshotInterval.num();
@@ -1075,9 +1174,9 @@ public class NetServer implements ApplicationListener{
 
                 var connection = player.con;
 
-                if(Time.timeSinceMillis(connection.syncTime) < interval || !connection.hasConnected) return;
+                if(clock() - connection.syncTime < interval || !connection.hasConnected) return;
 
-                connection.syncTime = Time.millis();
+                connection.syncTime = clock();
 
                 try{
                     writeEntitySnapshot(player);
@@ -0,0 +1,276 @@
+package mindustry.core;
+
+import arc.struct.*;
+import arc.util.*;
+import mindustry.logic.LExecutor.*;
+import mindustry.world.*;
+
+import java.util.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Low-overhead profiler for the main update loop and background threads.
+ * Each {@link Section} keeps a rolling window of the latest samples, in nanoseconds.
+ * Building updates are aggregated per block type, and event dispatches per event type. Nothing is recorded unless {@link #enabled} is true.
+ */
+public class TickProfiler{
+    /** Number of samples kept per section. */
+    public static final int window = 600;
+
+    private final Seq<Section> sections = new Seq<>();
+    private final ObjectMap<String, Section> sectionMap = new ObjectMap<>();
+
+    public final Section
+    logic = section("logic"),
+    logicFog = section("logic.fog"),
+    logicUniverse = section("logic.universe"),
+    universeTurn = section("universe.turn"),
+    universeTurnSectors = section("universe.turn.sectors"),
+    logicTeamAi = section("logic.team-ai"),
+    logicObjectives = section("logic.objectives"),
+    logicGroups = section("logic.groups"),
+    netServer = section("net-server"),
+    netSync = section("net-server.sync"),
+    asyncBegin = section("async.begin"),
+    asyncEnd = section("async.end"),
+    pathfinder = section("pathfinder-thread"),
+    controlPathfinder = section("control-pathfinder-thread");
+
+    /** If false, no samples are recorded. */
+    public volatile boolean enabled = false;
+    /** If true, sections keep running totals even while the profiler is disabled. Used by metrics, which need totals but not samples. */
+    public volatile boolean totals = false;
+
+    private long[] blockTime = {};
+    private int[] blockCalls = {};
+    private long blockTicks, lastUpdateId = -1;
+
+    private final ObjectMap<Class<?>, EventStats> eventStats = new ObjectMap<>();
+
+    /** @return an existing section with this name, or a new one. Sections should be created once and stored. */
+    public synchronized Section section(String name){
+        Section section = sectionMap.get(name);
+        if(section == null){
+            sectionMap.put(name, section = new Section(name));
+            sections.add(section);
+        }
+        return section;
+    }
+
+    /** @return all registered sections, in registration order. */
+    public Seq<Section> sections(){
+        return sections;
+    }
+
+    /** @return the start time for a building update, or 0 if disabled. */
+    public long beginBuild(){
+        return enabled ? Time.nanos() : 0L;
+    }
+
+    /** Records a building update that began at the specified time. */
+    public void endBuild(Block block, long start){
+        if(start == 0L) return;
+
+        if(blockTime.length <= block.id){
+            blockTime = Arrays.copyOf(blockTime, content.blocks().size);
+            blockCalls = Arrays.copyOf(blockCalls, content.blocks().size);
+        }
+
+        blockTime[block.id] += Time.nanos() - start;
+        blockCalls[block.id] ++;
+
+        if(lastUpdateId != state.updateId){
+            lastUpdateId = state.updateId;
+            blockTicks ++;
+        }
+    }
+
+    /** @return the start time for an event dispatch, or 0 if disabled. */
+    public long beginEvent(){
+        return enabled ? Time.nanos() : 0L;
+    }
+
+    /** Records a dispatch of an event type that began at the specified time. Main thread only. */
+    public void endEvent(Class<?> type, long start){
+        if(start == 0L) return;
+
+        EventStats stats = eventStats(type);
+        stats.time += Time.nanos() - start;
+        stats.fired ++;
+    }
+
+    /** Records an event that was not constructed or dispatched because nothing listens to it. Main thread only. */
+    public void skipEvent(Class<?> type){
+        if(enabled) eventStats(type).skipped ++;
+    }
+
+    private EventStats eventStats(Class<?> type){
+        EventStats stats = eventStats.get(type);
+        if(stats == null){
+            eventStats.put(type, stats = new EventStats());
+        }
+        return stats;
+    }
+
+    /** Clears all recorded samples. */
+    public synchronized void reset(){
+        for(Section section : sections){
+            section.reset();
+        }
+        Arrays.fill(blockTime, 0L);
+        Arrays.fill(blockCalls, 0);
+        blockTicks = 0;
+        eventStats.clear();
+        RadarI.cache.resetStats();
+    }
+
+    /** @return a report of all sections and the most expensive blocks and events, one line per entry. Times are in microseconds. */
+    public String report(int top){
+        StringBuilder out = new StringBuilder();
+        out.append(Strings.format("@ samples: count / mean / p50 / p95 / p99 / max (us)\n", window));
+
+        for(Section section : sections){
+            Stats stats = section.stats();
+            if(stats.count == 0) continue;
+            out.append(Strings.format("  @: @ / @ / @ / @ / @ / @\n", section.name, stats.count, us(stats.mean), us(stats.p50), us(stats.p95), us(stats.p99), us(stats.max)));
+        }
+
+        if(blockTicks > 0){
+            out.append(Strings.format("Building updates over @ ticks: total / per tick / calls per tick (us)\n", blockTicks));
+
+            Seq<Block> blocks = content.blocks().select(b -> b.id < blockCalls.length && blockCalls[b.id] > 0);
+            blocks.sort((a, b) -> Long.compare(blockTime[b.id], blockTime[a.id]));
+
+            for(int i = 0; i < Math.min(top, blocks.size); i++){
+                int id = blocks.get(i).id;
+                out.append(Strings.format("  @: @ / @ / @\n", blocks.get(i).name, us(blockTime[id]), us(blockTime[id] / (double)blockTicks), blockCalls[id] / blockTicks));
+            }
+        }
+
+        if(eventStats.size > 0){
+            out.append("Events: total / per dispatch (us) / dispatched / skipped\n");
+
+            Seq<Class<?>> types = eventStats.keys().toSeq();
+            types.sort((a, b) -> Long.compare(eventStats.get(b).time, eventStats.get(a).time));
+
+            for(int i = 0; i < Math.min(top, types.size); i++){
+                EventStats stats = eventStats.get(types.get(i));
+                out.append(Strings.format("  @: @ / @ / @ / @\n", types.get(i).getSimpleName(), us(stats.time), us(stats.fired == 0 ? 0 : stats.time / (double)stats.fired), stats.fired, stats.skipped));
+            }
+        }
+
+        out.append(RadarI.cache.report());
+
+        return out.toString();
+    }
+
+    /** @return a CSV snapshot of all sections, block and event aggregates. Times are in nanoseconds. */
+    public String export(){
+        StringBuilder out = new StringBuilder("type,name,count,mean,p50,p95,p99,max,total\n");
+
+        for(Section section : sections){
+            Stats stats = section.stats();
+            out.append("section,").append(section.name).append(',').append(stats.count).append(',').append((long)stats.mean).append(',')
+                .append(stats.p50).append(',').append(stats.p95).append(',').append(stats.p99).append(',').append(stats.max).append(',').append(stats.total).append('\n');
+        }
+
+        for(int i = 0; i < blockTime.length; i++){
+            if(blockCalls[i] == 0) continue;
+            out.append("block,").append(content.block(i).name).append(',').append(blockCalls[i]).append(',').append(blockTime[i] / blockCalls[i])
+                .append(",,,,,").append(blockTime[i]).append('\n');
+        }
+
+        for(var entry : eventStats){
+            out.append("event,").append(entry.key.getSimpleName()).append(',').append(entry.value.fired).append(',').append(entry.value.fired == 0 ? 0 : entry.value.time / entry.value.fired)
+                .append(",,,,,").append(entry.value.time).append('\n');
+        }
+
+        return out.toString();
+    }
+
+    private static String us(double nanos){
+        return Strings.fixed((float)(nanos / 1000.0), 1);
+    }
+
+    /** A named timing section. Samples may be recorded from any thread. */
+    public class Section{
+        public final String name;
+
+        private final long[] samples = new long[window];
+        private int index, count;
+        private long start, totalTime, totalCount;
+
+        Section(String name){
+            this.name = name;
+        }
+
+        /** Starts timing. Only one timing per section can be active at once. */
+        public void begin(){
+            if(enabled || totals) start = Time.nanos();
+        }
+
+        /** Stops timing and records a sample, if timing was started. */
+        public void end(){
+            if(start != 0L){
+                record(Time.nanos() - start);
+                start = 0L;
+            }
+        }
+
+        /** Records a sample, in nanoseconds. */
+        public synchronized void record(long nanos){
+            if(!enabled && !totals) return;
+
+            totalTime += nanos;
+            totalCount ++;
+            if(!enabled) return;
+
+            samples[index] = nanos;
+            index = (index + 1) % window;
+            if(count < window) count ++;
+        }
+
+        /** Clears the window of samples. Running totals are kept. */
+        public synchronized void reset(){
+            index = count = 0;
+        }
+
+        /** @return the total time of all samples ever recorded, in nanoseconds. */
+        public synchronized long totalTime(){
+            return totalTime;
+        }
+
+        /** @return the number of samples ever recorded. */
+        public synchronized long totalCount(){
+            return totalCount;
+        }
+
+        /** @return statistics over the current window. */
+        public synchronized Stats stats(){
+            Stats stats = new Stats();
+            stats.count = count;
+            if(count == 0) return stats;
+
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            for(long l : sorted) stats.total += l;
+            stats.mean = stats.total / (double)count;
+            stats.p50 = sorted[(int)(count * 0.50f)];
+            stats.p95 = sorted[Math.min((int)(count * 0.95f), count - 1)];
+            stats.p99 = sorted[Math.min((int)(count * 0.99f), count - 1)];
+            stats.max = sorted[count - 1];
+            return stats;
+        }
+    }
+
+    static class EventStats{
+        long time, fired, skipped;
+    }
+
+    public static class Stats{
+        public int count;
+        public double mean;
+        public long p50, p95, p99, max, total;
+    }
+}
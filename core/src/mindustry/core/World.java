@@ -25,9 +25,27 @@ import mindustry.world.*;
 import mindustry.world.blocks.environment.*;
 import mindustry.world.blocks.legacy.*;
 
+import java.util.concurrent.*;
+
 import static mindustry.Vars.*;
 
 public class World{
+    /** Minimum number of tiles for row passes to run in parallel. */
+    private static final int parallelTiles = 128 * 128;
+    /** Runs load stages and row passes. */
+    private static final ForkJoinPool loadPool = new ForkJoinPool(OS.cores);
+    /** Stages that run after every world load, by name. Static, as they are added by singletons that may be created before the world. */
+    private static final OrderedMap<String, LoadStage> loadStages = new OrderedMap<>();
+
+    /** Tile changes of the current tick, for subsystems that process them in batches. Flushed at the end of every logic update. */
+    public static final TileChangeFeed changes = new TileChangeFeed();
+    /** Groups of idle buildings that sleep together. */
+    public static final SleepRegions sleepRegions = new SleepRegions();
+
+    static{
+        addLoadStage("darkness", () -> world.addDarkness(world.tiles));
+    }
+
     public final Context context = new Context();
 
     public Tiles tiles = new Tiles(0, 0);
@@ -206,12 +224,15 @@ public class World{
     }
 
     /**
-     * Call to signify the end of map loading. Updates tile proximities and sets up physics for the world.
+     * Call to signify the end of map loading. Updates tile proximities, runs load stages and sets up physics for the world.
      * A WorldLoadEvent will be fire.
      */
     public void endMapLoad(){
         Events.fire(new WorldLoadEndEvent());
 
+        long start = Time.nanos(), time = start;
+        StringBuilder timings = new StringBuilder();
+
         for(Tile tile : tiles){
             //remove legacy blocks; they need to stop existing
             if(tile.block() instanceof LegacyBlock l){
@@ -224,12 +245,90 @@ public class World{
             }
         }
 
-        addDarkness(tiles);
+        timings.append("proximity ").append(Time.nanosToMillis(Time.nanos() - time)).append("ms");
+
+        runLoadStages(timings);
 
         Groups.resize(-finalWorldBounds, -finalWorldBounds, tiles.width * tilesize + finalWorldBounds * 2, tiles.height * tilesize + finalWorldBounds * 2);
 
         generating = false;
+
+        time = Time.nanos();
         Events.fire(new WorldLoadEvent());
+        timings.append(", listeners ").append(Time.nanosToMillis(Time.nanos() - time)).append("ms");
+
+        Log.debug("Loaded world (@x@) in @ms: @", tiles.width, tiles.height, Time.nanosToMillis(Time.nanos() - start), timings);
+    }
+
+    /**
+     * Adds a stage that runs after every world load, once tile proximity is updated and before {@link WorldLoadEvent} is fired.
+     * Stages run on a thread pool as soon as all of their dependencies are done, so they may only read tiles and write their own state.
+     * Anything that needs the main thread, or affects other running threads, should be done in a WorldLoadEvent listener with the results of the stage.
+     * Dependencies must be added first.
+     */
+    public static void addLoadStage(String name, Runnable run, String... dependencies){
+        for(String dep : dependencies){
+            if(!loadStages.containsKey(dep)) throw new IllegalArgumentException("Unknown load stage dependency: " + dep);
+        }
+        loadStages.put(name, new LoadStage(name, dependencies, run));
+    }
+
+    /** Runs a function for every row in parallel, if there are enough tiles. Blocks until all rows are done. May be called from load stages. */
+    public static void eachRowParallel(Tiles tiles, Intc cons){
+        int height = tiles.height;
+
+        if(tiles.width * height < parallelTiles){
+            for(int y = 0; y < height; y++){
+                cons.get(y);
+            }
+            return;
+        }
+
+        int chunks = Math.min(height, OS.cores * 4);
+        ForkJoinTask<?>[] tasks = new ForkJoinTask[chunks];
+        for(int chunk = 0; chunk < chunks; chunk++){
+            int from = height * chunk / chunks, to = height * (chunk + 1) / chunks;
+            tasks[chunk] = loadPool.submit(() -> {
+                for(int y = from; y < to; y++){
+                    cons.get(y);
+                }
+            });
+        }
+
+        //rethrows any exception
+        for(var task : tasks){
+            task.join();
+        }
+    }
+
+    private void runLoadStages(StringBuilder timings){
+        CompletableFuture<?>[] futures = new CompletableFuture[loadStages.size];
+        int i = 0;
+
+        for(LoadStage stage : loadStages.values()){
+            CompletableFuture<?>[] deps = new CompletableFuture[stage.dependencies.length];
+            for(int d = 0; d < deps.length; d++){
+                deps[d] = loadStages.get(stage.dependencies[d]).future;
+            }
+
+            stage.future = CompletableFuture.allOf(deps).thenRunAsync(() -> {
+                long start = Time.nanos();
+                stage.run.run();
+                stage.time = Time.nanos() - start;
+            }, loadPool);
+            futures[i++] = stage.future;
+        }
+
+        try{
+            CompletableFuture.allOf(futures).join();
+        }catch(CompletionException e){
+            throw e.getCause() instanceof RuntimeException r ? r : new RuntimeException(e.getCause());
+        }
+
+        for(LoadStage stage : loadStages.values()){
+            timings.append(", ").append(stage.name).append(' ').append(Time.nanosToMillis(stage.time)).append("ms");
+            stage.future = null;
+        }
     }
 
     public Rect getQuadBounds(Rect in){
@@ -389,57 +488,67 @@ public class World{
     }
 
     public void addDarkness(Tiles tiles){
-        byte[] dark = new byte[tiles.width * tiles.height];
-        byte[] writeBuffer = new byte[tiles.width * tiles.height];
+        int width = tiles.width;
+        byte[] dark = new byte[width * tiles.height];
+        byte[] writeBuffer = new byte[width * tiles.height];
 
         byte darkIterations = darkRadius;
 
-        for(int i = 0; i < dark.length; i++){
-            Tile tile = tiles.geti(i);
-            if(tile.isDarkened()){
-                dark[i] = darkIterations;
+        eachRowParallel(tiles, y -> {
+            for(int x = 0, i = y * width; x < width; x++, i++){
+                if(tiles.geti(i).isDarkened()){
+                    dark[i] = darkIterations;
+                }
             }
-        }
+        });
 
+        //each iteration only reads the result of the last one, so rows are independent
         for(int i = 0; i < darkIterations; i++){
-            for(Tile tile : tiles){
-                int idx = tile.y * tiles.width + tile.x;
-                boolean min = false;
-                for(Point2 point : Geometry.d4){
-                    int newX = tile.x + point.x, newY = tile.y + point.y;
-                    int nidx = newY * tiles.width + newX;
-                    if(tiles.in(newX, newY) && dark[nidx] < dark[idx]){
-                        min = true;
-                        break;
+            byte[] read = i % 2 == 0 ? dark : writeBuffer, write = i % 2 == 0 ? writeBuffer : dark;
+
+            eachRowParallel(tiles, y -> {
+                for(int x = 0; x < width; x++){
+                    int idx = y * width + x;
+                    boolean min = false;
+                    for(Point2 point : Geometry.d4){
+                        int newX = x + point.x, newY = y + point.y;
+                        int nidx = newY * width + newX;
+                        if(tiles.in(newX, newY) && read[nidx] < read[idx]){
+                            min = true;
+                            break;
+                        }
                     }
+                    write[idx] = (byte)Math.max(0, read[idx] - Mathf.num(min));
                 }
-                writeBuffer[idx] = (byte)Math.max(0, dark[idx] - Mathf.num(min));
-            }
-
-            System.arraycopy(writeBuffer, 0, dark, 0, writeBuffer.length);
+            });
         }
 
-        for(Tile tile : tiles){
-            int idx = tile.y * tiles.width + tile.x;
+        byte[] result = darkIterations % 2 == 0 ? dark : writeBuffer;
 
-            if(tile.isDarkened()){
-                tile.data = dark[idx];
-            }
+        eachRowParallel(tiles, y -> {
+            for(int x = 0; x < width; x++){
+                int idx = y * width + x;
+                Tile tile = tiles.geti(idx);
 
-            if(dark[idx] == darkRadius){
-                boolean full = true;
-                for(Point2 p : Geometry.d4){
-                    int px = p.x + tile.x, py = p.y + tile.y;
-                    int nidx = py * tiles.width + px;
-                    if(tiles.in(px, py) && !(tile.isDarkened() && dark[nidx] == 4)){
-                        full = false;
-                        break;
-                    }
+                if(tile.isDarkened()){
+                    tile.data = result[idx];
                 }
 
-                if(full) tile.data = darkRadius + 1;
+                if(result[idx] == darkRadius){
+                    boolean full = true;
+                    for(Point2 p : Geometry.d4){
+                        int px = p.x + x, py = p.y + y;
+                        int nidx = py * width + px;
+                        if(tiles.in(px, py) && !(tile.isDarkened() && result[nidx] == 4)){
+                            full = false;
+                            break;
+                        }
+                    }
+
+                    if(full) tile.data = darkRadius + 1;
+                }
             }
-        }
+        });
     }
 
     public byte getWallDarkness(Tile tile){
@@ -636,4 +745,19 @@ public class World{
             }
         }
     }
+
+    private static class LoadStage{
+        final String name;
+        final String[] dependencies;
+        final Runnable run;
+
+        @Nullable CompletableFuture<Void> future;
+        long time;
+
+        LoadStage(String name, String[] dependencies, Runnable run){
+            this.name = name;
+            this.dependencies = dependencies;
+            this.run = run;
+        }
+    }
 }
@@ -0,0 +1,151 @@
+package mindustry.entities;
+
+import arc.math.*;
+import arc.math.geom.*;
+import arc.struct.*;
+import mindustry.game.Teams.*;
+import mindustry.gen.*;
+
+import java.util.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Resolves bullet-unit collisions for a whole bullet group at once.
+ * Swept bullet hitboxes are packed into flat arrays and units are binned into a uniform grid once per tick,
+ * which replaces one quadtree query per enemy team and bullet. Only overlapping pairs go through the regular collision callbacks,
+ * and a bullet stops colliding once a hit removes it, so a bullet that does not pierce hits at most one unit.
+ */
+class BulletBatch{
+    /** Size of a grid cell, in world units. */
+    static final float cellSize = tilesize * 8f;
+
+    private final Rect rect = new Rect();
+
+    //packed bullets
+    private int size;
+    private Bullet[] bullets = new Bullet[256];
+    private float[] bounds = new float[256 * 4];
+    private int[] teams = new int[256];
+
+    //unit grid
+    private int gridW, gridH, unitCount, entryCount;
+    private int[] heads = {};
+    private int[] entryUnit = new int[256], entryNext = new int[256];
+    private Unit[] units = new Unit[64];
+    private float[] unitBounds = new float[64 * 4];
+    private int[] unitTeams = new int[64], marks = new int[64];
+
+    /** Adds a bullet to this tick's batch. */
+    void add(Bullet bullet){
+        if(size == bullets.length){
+            bullets = Arrays.copyOf(bullets, size * 2);
+            bounds = Arrays.copyOf(bounds, size * 2 * 4);
+            teams = Arrays.copyOf(teams, size * 2);
+        }
+
+        //hitbox at the last position, merged with the current one
+        bullet.hitbox(rect);
+        float dx = bullet.lastX() - bullet.getX(), dy = bullet.lastY() - bullet.getY();
+        int o = size * 4;
+        bounds[o] = rect.x + Math.min(dx, 0f);
+        bounds[o + 1] = rect.y + Math.min(dy, 0f);
+        bounds[o + 2] = rect.x + rect.width + Math.max(dx, 0f);
+        bounds[o + 3] = rect.y + rect.height + Math.max(dy, 0f);
+        teams[size] = bullet.team.id;
+        bullets[size ++] = bullet;
+    }
+
+    /** Collides all added bullets with units of other teams and clears the batch. */
+    void collide(EntityCollisions collisions){
+        if(size == 0) return;
+
+        buildGrid();
+
+        for(int i = 0; i < size; i++){
+            Bullet bullet = bullets[i];
+            if(!bullet.isAdded()) continue;
+
+            int o = i * 4, team = teams[i], mark = i + 1;
+            float x1 = bounds[o], y1 = bounds[o + 1], x2 = bounds[o + 2], y2 = bounds[o + 3];
+            int cx1 = cell(x1, gridW), cy1 = cell(y1, gridH), cx2 = cell(x2, gridW), cy2 = cell(y2, gridH);
+
+            outer:
+            for(int cy = cy1; cy <= cy2; cy++){
+                for(int cx = cx1; cx <= cx2; cx++){
+                    for(int e = heads[cx + cy * gridW]; e != -1; e = entryNext[e]){
+                        int u = entryUnit[e], uo = u * 4;
+                        if(unitTeams[u] == team || marks[u] == mark) continue;
+                        marks[u] = mark;
+
+                        if(x1 < unitBounds[uo + 2] && x2 > unitBounds[uo] && y1 < unitBounds[uo + 3] && y2 > unitBounds[uo + 1]){
+                            collisions.checkCollide(bullet, units[u]);
+                            //stop when this bullet hits something
+                            if(!bullet.isAdded()) break outer;
+                        }
+                    }
+                }
+            }
+        }
+
+        Arrays.fill(bullets, 0, size, null);
+        Arrays.fill(units, 0, unitCount, null);
+        size = 0;
+    }
+
+    private void buildGrid(){
+        gridW = Math.max(Mathf.ceil(world.unitWidth() / cellSize), 1);
+        gridH = Math.max(Mathf.ceil(world.unitHeight() / cellSize), 1);
+        if(heads.length < gridW * gridH){
+            heads = new int[gridW * gridH];
+        }
+        Arrays.fill(heads, 0, gridW * gridH, -1);
+        unitCount = entryCount = 0;
+
+        Seq<TeamData> present = state.teams.present;
+        for(int t = 0; t < present.size; t++){
+            Seq<Unit> teamUnits = present.items[t].units;
+            for(int i = 0; i < teamUnits.size; i++){
+                insert(teamUnits.items[i]);
+            }
+        }
+    }
+
+    private void insert(Unit unit){
+        if(unitCount == units.length){
+            units = Arrays.copyOf(units, unitCount * 2);
+            unitBounds = Arrays.copyOf(unitBounds, unitCount * 2 * 4);
+            unitTeams = Arrays.copyOf(unitTeams, unitCount * 2);
+            marks = new int[unitCount * 2];
+        }
+
+        int u = unitCount ++, o = u * 4;
+        unit.hitbox(rect);
+        units[u] = unit;
+        unitTeams[u] = unit.team.id;
+        marks[u] = 0;
+        unitBounds[o] = rect.x;
+        unitBounds[o + 1] = rect.y;
+        unitBounds[o + 2] = rect.x + rect.width;
+        unitBounds[o + 3] = rect.y + rect.height;
+
+        int cx1 = cell(rect.x, gridW), cy1 = cell(rect.y, gridH), cx2 = cell(rect.x + rect.width, gridW), cy2 = cell(rect.y + rect.height, gridH);
+        for(int cy = cy1; cy <= cy2; cy++){
+            for(int cx = cx1; cx <= cx2; cx++){
+                if(entryCount == entryUnit.length){
+                    entryUnit = Arrays.copyOf(entryUnit, entryCount * 2);
+                    entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+                }
+
+                int cell = cx + cy * gridW;
+                entryUnit[entryCount] = u;
+                entryNext[entryCount] = heads[cell];
+                heads[cell] = entryCount ++;
+            }
+        }
+    }
+
+    private static int cell(float pos, int cells){
+        return Mathf.clamp((int)(pos / cellSize), 0, cells - 1);
+    }
+}
@@ -505,11 +505,11 @@ public class Damage{
             unit.damage(amount);
 
             if(source != null){
-                Events.fire(bulletDamageEvent.set(unit, source));
+                EventDispatch.fire(bulletDamageEvent.set(unit, source));
                 unit.controller().hit(source);
 
                 if(!dead && unit.dead){
-                    Events.fire(new UnitBulletDestroyEvent(unit, source));
+                    EventDispatch.unitBulletDestroyed(unit, source);
                 }
             }
             //TODO better velocity displacement
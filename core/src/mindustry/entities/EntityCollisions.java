@@ -11,9 +11,18 @@ import mindustry.world.*;
 import static mindustry.Vars.*;
 
 public class EntityCollisions{
-    //move in 1-unit chunks (can this be made more efficient?)
+    //move in 1-unit chunks when stepping
     private static final float seg = 1f;
 
+    /** Standard solidity predicates. Movement with these is resolved against {@link #solidity} in a single sweep per axis. */
+    public static final SolidPred
+    solidPred = EntityCollisions::solid,
+    legsSolidPred = EntityCollisions::legsSolid,
+    waterSolidPred = EntityCollisions::waterSolid;
+
+    /** Solidity of every tile for the standard predicates. */
+    public final SolidityMap solidity = new SolidityMap();
+
     //tile collisions
     private Vec2 vector = new Vec2(), l1 = new Vec2();
     private Rect r1 = new Rect(), r2 = new Rect(), tmp = new Rect();
@@ -22,6 +31,10 @@ public class EntityCollisions{
     private Seq<Hitboxc> arrOut = new Seq<>(Hitboxc.class);
     private Cons<Hitboxc> hitCons = this::updateCollision;
     private Cons<QuadTree> treeCons = tree -> tree.intersect(r2, arrOut);
+    private BulletBatch bullets = new BulletBatch();
+
+    /** Whether bullet-unit collisions are resolved together. If false, every bullet queries the unit trees on its own; used as a reference in tests. */
+    public boolean batchBullets = true;
 
     public void moveCheck(Hitboxc entity, float deltax, float deltay, SolidPred solidCheck){
         if(!solidCheck.solid(entity.tileX(), entity.tileY())){
@@ -30,12 +43,35 @@ public class EntityCollisions{
     }
 
     public void move(Hitboxc entity, float deltax, float deltay){
-        move(entity, deltax, deltay, EntityCollisions::solid);
+        move(entity, deltax, deltay, solidPred);
     }
 
     public void move(Hitboxc entity, float deltax, float deltay, SolidPred solidCheck){
         if(Math.abs(deltax) < 0.0001f & Math.abs(deltay) < 0.0001f) return;
 
+        int layer = solidCheck == solidPred ? SolidityMap.ground : solidCheck == legsSolidPred ? SolidityMap.legs : solidCheck == waterSolidPred ? SolidityMap.naval : 0;
+
+        if(layer != 0 && solidity.valid()){
+            entity.hitboxTile(r1);
+
+            //entities that are stuck in a tile are pushed out by stepping
+            if(!overlapsSolid(r1, layer, solidCheck)){
+                float movex = sweep(r1, deltax, true, layer, solidCheck);
+                r1.x += movex;
+                float movey = sweep(r1, deltay, false, layer, solidCheck);
+
+                entity.trns(movex, movey);
+                return;
+            }
+        }
+
+        moveStepped(entity, deltax, deltay, solidCheck);
+    }
+
+    /** Moves an entity in small steps, pushing it out of any solid tiles it overlaps after each one. */
+    public void moveStepped(Hitboxc entity, float deltax, float deltay, SolidPred solidCheck){
+        if(Math.abs(deltax) < 0.0001f & Math.abs(deltay) < 0.0001f) return;
+
         boolean movedx = false;
         entity.hitboxTile(r1);
         int r = Math.max(Math.round(r1.width / tilesize), 1);
@@ -65,6 +101,52 @@ public class EntityCollisions{
         }
     }
 
+    /**
+     * @param delta movement along the axis
+     * @return how far a rectangle can move along an axis, up to delta, before it touches a solid tile. The rectangle must not overlap any solid tiles.
+     */
+    private float sweep(Rect rect, float delta, boolean x, int layer, SolidPred solidCheck){
+        if(delta == 0f) return 0f;
+
+        //tiles are centered on their position, so tile t spans [t * tilesize - half, t * tilesize + half]
+        float half = tilesize / 2f;
+        //range of tiles overlapped perpendicular to the movement
+        float min = x ? rect.y : rect.x, max = x ? rect.y + rect.height : rect.x + rect.width;
+        int from = Mathf.floor((min - half) / tilesize) + 1, to = Mathf.ceil((max + half) / tilesize) - 1;
+
+        if(delta > 0){
+            float edge = x ? rect.x + rect.width : rect.y + rect.height;
+            for(int t = Mathf.ceil((edge + half) / tilesize); t * tilesize - half < edge + delta; t++){
+                if(solidLine(t, from, to, x, layer, solidCheck)) return t * tilesize - half - edge;
+            }
+        }else{
+            float edge = x ? rect.x : rect.y;
+            for(int t = Mathf.floor((edge - half) / tilesize); t * tilesize + half > edge + delta; t--){
+                if(solidLine(t, from, to, x, layer, solidCheck)) return t * tilesize + half - edge;
+            }
+        }
+
+        return delta;
+    }
+
+    private boolean solidLine(int t, int from, int to, boolean x, int layer, SolidPred solidCheck){
+        for(int i = from; i <= to; i++){
+            if(x ? solidity.solid(t, i, layer, solidCheck) : solidity.solid(i, t, layer, solidCheck)) return true;
+        }
+        return false;
+    }
+
+    private boolean overlapsSolid(Rect rect, int layer, SolidPred solidCheck){
+        float half = tilesize / 2f;
+        int x1 = Mathf.floor((rect.x - half) / tilesize) + 1, x2 = Mathf.ceil((rect.x + rect.width + half) / tilesize) - 1;
+        int y1 = Mathf.floor((rect.y - half) / tilesize) + 1, y2 = Mathf.ceil((rect.y + rect.height + half) / tilesize) - 1;
+
+        for(int x = x1; x <= x2; x++){
+            if(solidLine(x, y1, y2, true, layer, solidCheck)) return true;
+        }
+        return false;
+    }
+
     public void moveDelta(Hitboxc entity, float deltax, float deltay, int r, boolean x, SolidPred solidCheck){
         entity.hitboxTile(r1);
         entity.hitboxTile(r2);
@@ -141,7 +223,7 @@ public class EntityCollisions{
         return tile == null || tile.solid();
     }
 
-    private void checkCollide(Hitboxc a, Hitboxc b){
+    void checkCollide(Hitboxc a, Hitboxc b){
         a.hitbox(this.r1);
         b.hitbox(this.r2);
 
@@ -215,9 +297,18 @@ public class EntityCollisions{
     @SuppressWarnings("unchecked")
     public <T extends Hitboxc> void collide(EntityGroup<T> groupa){
         groupa.each((Cons<T>)hitCons);
+        bullets.collide(this);
     }
 
     private void updateCollision(Hitboxc solid){
+        if(batchBullets && solid instanceof Bullet bullet){
+            //bullets that cannot collide with units are skipped entirely; the rest are resolved together
+            if(bullet.type.collides){
+                bullets.add(bullet);
+            }
+            return;
+        }
+
         solid.hitbox(r1);
         r1.x += (solid.lastX() - solid.getX());
         r1.y += (solid.lastY() - solid.getY());
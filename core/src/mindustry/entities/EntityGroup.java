@@ -37,6 +37,16 @@ public class EntityGroup<T extends Entityc> implements Iterable<T>{
         lastId = Math.max(lastId, id + 1);
     }
 
+    /** @return the ID that the next entity will use. */
+    public static int peekNextId(){
+        return lastId;
+    }
+
+    /** Sets the ID that the next entity will use. Only for reproducing a recorded game; the ID must be higher than that of every existing entity. */
+    public static void setNextId(int id){
+        lastId = id;
+    }
+
     public EntityGroup(Class<T> type, boolean spatial, boolean mapping){
         this(type, spatial, mapping, null);
     }
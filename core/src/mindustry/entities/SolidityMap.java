@@ -0,0 +1,99 @@
+package mindustry.entities;
+
+import arc.*;
+import arc.struct.*;
+import mindustry.core.*;
+import mindustry.entities.EntityCollisions.*;
+import mindustry.game.EventType.*;
+import mindustry.gen.*;
+import mindustry.world.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Solidity of every tile for the standard movement layers, packed into one byte per tile and kept current with tile change events.
+ * Buildings that change their solidity on their own, such as doors, are flagged instead, and checked with the original predicate.
+ * Main thread only.
+ */
+public class SolidityMap{
+    /** Layer bits. Each layer corresponds to one of the standard predicates in {@link EntityCollisions}. */
+    public static final int ground = 1, legs = 2, naval = 4;
+    /** Set if the building on this tile overrides {@link Building#checkSolid()}. The ground and naval bits of these tiles are not used. */
+    static final int dynamic = 8;
+
+    private final ObjectMap<Class<?>, Boolean> dynamicTypes = new ObjectMap<>();
+
+    private byte[] bits = {};
+    private int width, height;
+
+    public SolidityMap(){
+        World.addLoadStage("solidity", this::rebuild, "darkness");
+        Events.on(TileChangeEvent.class, e -> updateTile(e.tile));
+    }
+
+    /** Recalculates the solidity of every tile. */
+    public void rebuild(){
+        width = world.width();
+        height = world.height();
+        if(bits.length < width * height){
+            bits = new byte[width * height];
+        }
+
+        for(Tile tile : world.tiles){
+            bits[tile.array()] = calculate(tile);
+        }
+    }
+
+    /** Recalculates the solidity of a tile. Needs to be called for changes that do not fire a {@link TileChangeEvent}. */
+    public void updateTile(Tile tile){
+        if(valid() && tile.x < width && tile.y < height){
+            bits[tile.array()] = calculate(tile);
+        }
+    }
+
+    /** @return whether this map matches the size of the current world. If not, it cannot be used. */
+    public boolean valid(){
+        return width == world.width() && height == world.height() && width * height > 0;
+    }
+
+    /**
+     * @param layer one of the layer bits
+     * @param pred the predicate of this layer, used for tiles with dynamic solidity
+     * @return whether a tile is solid in a layer. Tiles outside the world are always solid.
+     */
+    public boolean solid(int x, int y, int layer, SolidPred pred){
+        if(x < 0 || y < 0 || x >= width || y >= height) return true;
+
+        int value = bits[x + y * width];
+        return (value & dynamic) != 0 && layer != legs ? pred.solid(x, y) : (value & layer) != 0;
+    }
+
+    private byte calculate(Tile tile){
+        int value = 0;
+
+        if(tile.build != null && isDynamic(tile.build)){
+            value |= dynamic;
+        }else{
+            boolean solid = tile.solid();
+            if(solid) value |= ground;
+            if(solid || !tile.floor().isLiquid) value |= naval;
+        }
+
+        if(tile.legSolid()) value |= legs;
+
+        return (byte)value;
+    }
+
+    private boolean isDynamic(Building build){
+        Boolean result = dynamicTypes.get(build.getClass());
+        if(result == null){
+            try{
+                result = build.getClass().getMethod("checkSolid").getDeclaringClass() != Building.class;
+            }catch(NoSuchMethodException e){
+                result = true;
+            }
+            dynamicTypes.put(build.getClass(), result);
+        }
+        return result;
+    }
+}
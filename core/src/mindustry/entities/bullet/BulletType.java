@@ -139,6 +139,10 @@ public class BulletType extends Content implements Cloneable{
     public float rangeChange = 0f;
     /** Range initialized in init(). */
     public float range = 0f;
+    /** Whether this bullet type has no per-tick behavior, such as homing, weaving or trails. Initialized in init(); simple bullets skip {@link #update(Bullet)}. */
+    public boolean simple = false;
+    /** Whether this type overrides {@link #update(Bullet)} or one of the methods it calls. Set in init() if a subclass overrides any of them; may also be set manually. */
+    public boolean customUpdate = false;
     /** % of block health healed **/
     public float healPercent = 0f;
     /** flat amount of block health healed */
@@ -420,11 +424,11 @@ public class BulletType extends Content implements Cloneable{
             unit.impulse(Tmp.v3);
             unit.apply(status, statusDuration);
 
-            Events.fire(bulletDamageEvent.set(unit, b));
+            EventDispatch.fire(bulletDamageEvent.set(unit, b));
         }
 
         if(!wasDead && entity instanceof Unit unit && unit.dead){
-            Events.fire(new UnitBulletDestroyEvent(unit, b));
+            EventDispatch.unitBulletDestroyed(unit, b);
         }
 
         handlePierce(b, health, entity.x(), entity.y());
@@ -686,6 +690,18 @@ public class BulletType extends Content implements Cloneable{
         }
     }
 
+    /** @return whether a subclass overrides any of the per-tick update methods. */
+    private boolean overridesUpdate(){
+        for(String name : new String[]{"update", "updateTrail", "updateHoming", "updateWeaving", "updateTrailEffects", "updateBulletInterval"}){
+            try{
+                if(getClass().getMethod(name, Bullet.class).getDeclaringClass() != BulletType.class) return true;
+            }catch(NoSuchMethodException e){
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void init(){
         if(pierceCap >= 1){
@@ -719,6 +735,9 @@ public class BulletType extends Content implements Cloneable{
 
         drawSize = Math.max(drawSize, trailLength * speed * 2f);
         range = calculateRange();
+        //mod bullet types do not know about this flag, so overridden update methods are detected instead
+        customUpdate |= overridesUpdate();
+        simple = homingPower <= 0.0001f && weaveMag == 0 && trailLength <= 0 && trailChance <= 0 && trailInterval <= 0f && intervalBullet == null && !customUpdate;
     }
 
     @Override
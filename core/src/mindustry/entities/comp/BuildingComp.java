@@ -30,6 +30,7 @@ import mindustry.logic.*;
 import mindustry.type.*;
 import mindustry.ui.*;
 import mindustry.world.*;
+import mindustry.world.SleepRegions.*;
 import mindustry.world.blocks.ConstructBlock.*;
 import mindustry.world.blocks.*;
 import mindustry.world.blocks.environment.*;
@@ -101,6 +102,15 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
 
     private transient @Nullable SoundLoop sound;
 
+    /** Hash of the sync data that was last sent in a block snapshot. Server only. */
+    transient long syncHash;
+    /** Whether the sync data changed in the last block snapshot, so it is sent again in the next one. Server only. */
+    transient boolean syncResend;
+    /** Region of idle buildings this building belongs to. Only used by blocks with {@link Block#regionSleep}. */
+    transient @Nullable Region sleepRegion;
+    /** Whether this building counts as idle in its sleep region. */
+    transient boolean regionIdle;
+
     private transient boolean sleeping;
     private transient float sleepTime;
     private transient boolean initialized;
@@ -612,6 +622,21 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
             remove();
             sleeping = true;
             sleepingEntities++;
+
+            if(sleepRegion != null) sleepRegion.idle(self());
+        }
+    }
+
+    /**
+     * Call when this entity cannot do anything until something around it changes, e.g. when its output is full.
+     * For blocks with {@link Block#regionSleep}, this puts the entity and all connected idle entities to sleep after a while. Otherwise, it does nothing.
+     */
+    public void blocked(){
+        if(!block.regionSleep || !enabled || isPayload()) return;
+
+        sleepTime += Time.delta;
+        if(sleepTime >= timeToSleep){
+            World.sleepRegions.blocked(self());
         }
     }
 
@@ -623,6 +648,28 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
             sleeping = false;
             sleepingEntities--;
         }
+
+        if(sleepRegion != null) sleepRegion.active(self());
+    }
+
+    /** Puts this entity to sleep immediately. Used by sleep regions; call {@link #sleep()} instead. */
+    public void forceSleep(){
+        sleepTime = timeToSleep;
+        if(!sleeping){
+            remove();
+            sleeping = true;
+            sleepingEntities++;
+        }
+    }
+
+    /** @return whether this entity is asleep, and not updating. */
+    public boolean isSleeping(){
+        return sleeping;
+    }
+
+    /** Wakes up the sleep region of this entity, if it is asleep. */
+    public void wakeRegion(WakeReason reason){
+        if(sleepRegion != null) sleepRegion.wake(reason);
     }
 
     /** Returns the version of this Building IO code.*/
@@ -742,6 +789,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     public int removeStack(Item item, int amount){
         if(items == null) return 0;
         amount = Math.min(amount, items.get(item));
+        wakeRegion(WakeReason.item);
         noSleep();
         items.remove(item, amount);
         return amount;
@@ -749,6 +797,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
 
     /** Handle a stack input. */
     public void handleStack(Item item, int amount, @Nullable Teamc source){
+        wakeRegion(WakeReason.item);
         noSleep();
         items.add(item, amount);
     }
@@ -810,6 +859,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     }
 
     public void handleItem(Building source, Item item){
+        wakeRegion(WakeReason.item);
         items.add(item, 1);
     }
 
@@ -822,6 +872,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     }
 
     public void handleLiquid(Building source, Liquid liquid, float amount){
+        wakeRegion(WakeReason.liquid);
         liquids.add(liquid, amount);
     }
 
@@ -1084,6 +1135,8 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
         if(power != null){
             powerGraphRemoved();
         }
+
+        if(sleepRegion != null) sleepRegion.dissolve();
     }
 
     /** Called after this building is created in the world. May be called multiple times, or when adjacent buildings change. */
@@ -1095,6 +1148,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
 
     /** Called when anything adjacent to this building is placed/removed, including itself. */
     public void onProximityUpdate(){
+        if(sleepRegion != null) sleepRegion.dissolve();
         noSleep();
     }
 
@@ -1320,6 +1374,8 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
         if(value instanceof Block) type = Block.class;
         if(value instanceof Liquid) type = Liquid.class;
         if(value instanceof UnitType) type = UnitType.class;
+
+        wakeRegion(WakeReason.config);
         
         if(builder != null && builder.isPlayer()){
             updateLastAccess(builder.getPlayer());
@@ -1646,10 +1702,10 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
         }
 
         damage(other.team, damage);
-        Events.fire(bulletDamageEvent.set(self(), other));
+        EventDispatch.fire(bulletDamageEvent.set(self(), other));
 
         if(health <= 0 && !wasDead){
-            Events.fire(new BuildingBulletDestroyEvent(self(), other));
+            EventDispatch.buildingBulletDestroyed(self(), other);
         }
 
         return true;
@@ -1663,7 +1719,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     /** Handles splash damage with a bullet source. */
     public void damage(Bullet bullet, Team source, float damage){
         damage(source, damage);
-        Events.fire(bulletDamageEvent.set(self(), bullet));
+        EventDispatch.fire(bulletDamageEvent.set(self(), bullet));
     }
 
     /** Changes this building's team in a safe manner. */
@@ -1673,6 +1729,8 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
         Team last = this.team;
         boolean was = isValid();
 
+        if(sleepRegion != null) sleepRegion.dissolve();
+
         if(was) indexer.removeIndex(tile);
 
         this.team = next;
@@ -1905,6 +1963,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
 
         float dm = state.rules.blockHealth(team);
         lastDamageTime = Time.time;
+        wakeRegion(WakeReason.damage);
 
         if(Mathf.zero(dm)){
             damage = health + 1;
@@ -2088,7 +2147,7 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
     @Override
     public void killed(){
         dead = true;
-        Events.fire(new BlockDestroyEvent(tile));
+        EventDispatch.blockDestroyed(tile);
         block.destroySound.at(tile);
         onDestroyed();
         if(tile != emptyTile){
@@ -2136,7 +2195,9 @@ abstract class BuildingComp implements Posc, Teamc, Healthc, Buildingc, Timerc,
 
         //TODO just handle per-block instead
         if(enabled || !block.noUpdateDisabled){
+            long start = profiler.beginBuild();
             updateTile();
+            profiler.endBuild(block, start);
         }
     }
 
@@ -131,7 +131,9 @@ abstract class BulletComp implements Timedc, Damagec, Hitboxc, Teamc, Posc, Draw
             mover.move(self());
         }
 
-        type.update(self());
+        if(!type.simple){
+            type.update(self());
+        }
 
         if(type.collidesTiles && type.collides && type.collidesGround){
             tileRaycast(World.toTile(lastX), World.toTile(lastY), tileX(), tileY());
@@ -31,7 +31,7 @@ abstract class CrawlComp implements Posc, Rotc, Hitboxc, Unitc{
     @Replace
     @Override
     public SolidPred solidity(){
-        return EntityCollisions::legsSolid;
+        return EntityCollisions.legsSolidPred;
     }
 
     @Override
@@ -12,7 +12,7 @@ abstract class ElevationMoveComp implements Velc, Posc, Flyingc, Hitboxc{
     @Replace
     @Override
     public SolidPred solidity(){
-        return isFlying() ? null : EntityCollisions::solid;
+        return isFlying() ? null : EntityCollisions.solidPred;
     }
 
 }
@@ -36,7 +36,7 @@ abstract class LegsComp implements Posc, Rotc, Hitboxc, Flyingc, Unitc{
     @Replace
     @Override
     public SolidPred solidity(){
-        return type.allowLegStep ? EntityCollisions::legsSolid : EntityCollisions::solid;
+        return type.allowLegStep ? EntityCollisions.legsSolidPred : EntityCollisions.solidPred;
     }
 
     @Override
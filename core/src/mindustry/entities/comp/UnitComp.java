@@ -699,7 +699,7 @@ abstract class UnitComp implements Healthc, Physicsc, Hitboxc, Statusc, Teamc, I
         Effect.shake(shake, shake, this);
         type.deathSound.at(this);
 
-        Events.fire(new UnitDestroyEvent(self()));
+        EventDispatch.unitDestroyed(self());
 
         if(explosiveness > 7f && (isLocal() || wasPlayer)){
             Events.fire(Trigger.suicideBomb);
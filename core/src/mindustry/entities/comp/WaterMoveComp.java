@@ -76,7 +76,7 @@ abstract class WaterMoveComp implements Posc, Velc, Hitboxc, Flyingc, Unitc{
     @Replace
     @Override
     public SolidPred solidity(){
-        return isFlying() ? null : EntityCollisions::waterSolid;
+        return isFlying() ? null : EntityCollisions.waterSolidPred;
     }
 
     @Replace
@@ -33,6 +33,8 @@ public class BuildPlan implements Position, QuadTreeObject{
 
     /** Visual scale. Used only for rendering.*/
     public float animScale = 0f;
+    /** ID used for syncing the plan queue of players; assigned by the client when the plan is first sent. 0 if unassigned. Not copied. */
+    public int syncId;
 
     /** This creates a build plan. */
     public BuildPlan(int x, int y, int rotation, Block block){
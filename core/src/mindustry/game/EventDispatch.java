@@ -0,0 +1,110 @@
+package mindustry.game;
+
+import arc.*;
+import arc.func.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.game.EventType.*;
+import mindustry.gen.*;
+import mindustry.mod.Mods.*;
+import mindustry.world.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Fast paths for events that are fired very often, such as unit deaths.
+ * These events are not allocated: one instance per type is reused, like the instances of {@link BuildDamageEvent}, and is only filled in if anything may listen to it.
+ * An event fired while another event of the same type is being dispatched gets its own instance, so listeners that destroy or create units themselves see the right values.
+ * {@link Events} cannot be asked for its listeners, so listeners of such events register through {@link #on(Class, Cons)}, which counts them.
+ * Listeners registered directly with {@link Events} are not counted; as mods may do this, events are always fired while mods with code are loaded.
+ * Dispatch counts and timings are recorded per event type in {@link mindustry.core.TickProfiler} while it is enabled.
+ * Main thread only.
+ */
+public class EventDispatch{
+    private static final ObjectIntMap<Class<?>> listeners = new ObjectIntMap<>();
+
+    private static final UnitDestroyEvent unitDestroy = new UnitDestroyEvent();
+    private static final UnitCreateEvent unitCreate = new UnitCreateEvent();
+    private static final UnitBulletDestroyEvent unitBulletDestroy = new UnitBulletDestroyEvent();
+    private static final BlockDestroyEvent blockDestroy = new BlockDestroyEvent();
+    private static final BuildingBulletDestroyEvent buildingBulletDestroy = new BuildingBulletDestroyEvent();
+
+    /** Registers a listener with {@link Events}, and counts it for {@link #has(Class)}. */
+    public static <T> void on(Class<T> type, Cons<T> listener){
+        listeners.increment(type);
+        Events.on(type, listener);
+    }
+
+    /** @return whether any listener may be registered for this event type. If not, the event does not need to be constructed. */
+    public static boolean has(Class<?> type){
+        if(listeners.get(type, 0) > 0 || hasModCode()) return true;
+
+        profiler.skipEvent(type);
+        return false;
+    }
+
+    /** Fires an event if anything listens to it, recording its dispatch time. */
+    public static <T> void fire(T event){
+        if(!has(event.getClass())) return;
+
+        long start = profiler.beginEvent();
+        Events.fire(event);
+        profiler.endEvent(event.getClass(), start);
+    }
+
+    /** Fires a {@link UnitDestroyEvent}. */
+    public static void unitDestroyed(Unit unit){
+        if(!has(UnitDestroyEvent.class)) return;
+
+        UnitDestroyEvent event = unitDestroy.unit == null ? unitDestroy : new UnitDestroyEvent();
+        fire(event.set(unit));
+        event.set(null);
+    }
+
+    /** Fires a {@link UnitCreateEvent}. */
+    public static void unitCreated(Unit unit, @Nullable Building spawner, @Nullable Unit spawnerUnit){
+        if(!has(UnitCreateEvent.class)) return;
+
+        UnitCreateEvent event = unitCreate.unit == null ? unitCreate : new UnitCreateEvent();
+        fire(event.set(unit, spawner, spawnerUnit));
+        event.set(null, null, null);
+    }
+
+    /** Fires a {@link UnitBulletDestroyEvent}. */
+    public static void unitBulletDestroyed(Unit unit, Bullet bullet){
+        if(!has(UnitBulletDestroyEvent.class)) return;
+
+        UnitBulletDestroyEvent event = unitBulletDestroy.unit == null ? unitBulletDestroy : new UnitBulletDestroyEvent();
+        fire(event.set(unit, bullet));
+        event.set(null, null);
+    }
+
+    /** Fires a {@link BlockDestroyEvent}. */
+    public static void blockDestroyed(Tile tile){
+        if(!has(BlockDestroyEvent.class)) return;
+
+        BlockDestroyEvent event = blockDestroy.tile == null ? blockDestroy : new BlockDestroyEvent();
+        fire(event.set(tile));
+        event.set(null);
+    }
+
+    /** Fires a {@link BuildingBulletDestroyEvent}. */
+    public static void buildingBulletDestroyed(Building build, Bullet bullet){
+        if(!has(BuildingBulletDestroyEvent.class)) return;
+
+        BuildingBulletDestroyEvent event = buildingBulletDestroy.build == null ? buildingBulletDestroy : new BuildingBulletDestroyEvent();
+        fire(event.set(build, bullet));
+        event.set(null, null);
+    }
+
+    /** @return whether a loaded mod can register listeners that are not counted. */
+    private static boolean hasModCode(){
+        if(mods == null) return false;
+        if(mods.hasScripts()) return true;
+
+        for(LoadedMod mod : mods.list()){
+            if(mod.enabled() && mod.isJava()) return true;
+        }
+        return false;
+    }
+}
@@ -37,6 +37,7 @@ public class EventType{
         openWiki,
         teamCoreDamage,
         socketConfigChanged,
+        metricsConfigChanged,
         update,
         unitCommandChange,
         unitCommandPosition,
@@ -506,12 +507,24 @@ public class EventType{
 
     /** Called right before a block is destroyed.
      * The tile entity of the tile in this event cannot be null when this happens.*/
+    /**
+     * Called when a block is destroyed.
+     * This event is re-used while it is dispatched by {@link EventDispatch}! Do not keep references to it after the listener returns.
+     * */
     public static class BlockDestroyEvent{
-        public final Tile tile;
+        public Tile tile;
 
         public BlockDestroyEvent(Tile tile){
             this.tile = tile;
         }
+
+        public BlockDestroyEvent(){
+        }
+
+        public BlockDestroyEvent set(Tile tile){
+            this.tile = tile;
+            return this;
+        }
     }
 
     /** Called when a neoplasia (or other pressure-based block, from mods) reactor explodes due to pressure.*/
@@ -523,7 +536,10 @@ public class EventType{
         }
     }
 
-    /** Called when a building is directly killed by a bullet. May not fire in all circumstances. */
+    /**
+     * Called when a building is directly killed by a bullet. May not fire in all circumstances.
+     * This event is re-used while it is dispatched by {@link EventDispatch}! Do not keep references to it after the listener returns.
+     * */
     public static class BuildingBulletDestroyEvent{
         public Building build;
         public Bullet bullet;
@@ -535,17 +551,38 @@ public class EventType{
 
         public BuildingBulletDestroyEvent(){
         }
+
+        public BuildingBulletDestroyEvent set(Building build, Bullet bullet){
+            this.build = build;
+            this.bullet = bullet;
+            return this;
+        }
     }
 
+    /**
+     * Called when a unit is destroyed.
+     * This event is re-used while it is dispatched by {@link EventDispatch}! Do not keep references to it after the listener returns.
+     * */
     public static class UnitDestroyEvent{
-        public final Unit unit;
+        public Unit unit;
 
         public UnitDestroyEvent(Unit unit){
             this.unit = unit;
         }
+
+        public UnitDestroyEvent(){
+        }
+
+        public UnitDestroyEvent set(Unit unit){
+            this.unit = unit;
+            return this;
+        }
     }
 
-    /** Called when a unit is directly killed by a bullet. May not fire in all circumstances. */
+    /**
+     * Called when a unit is directly killed by a bullet. May not fire in all circumstances.
+     * This event is re-used while it is dispatched by {@link EventDispatch}! Do not keep references to it after the listener returns.
+     * */
     public static class UnitBulletDestroyEvent{
         public Unit unit;
         public Bullet bullet;
@@ -557,6 +594,12 @@ public class EventType{
 
         public UnitBulletDestroyEvent(){
         }
+
+        public UnitBulletDestroyEvent set(Unit unit, Bullet bullet){
+            this.unit = unit;
+            this.bullet = bullet;
+            return this;
+        }
     }
 
     /**
@@ -582,11 +625,14 @@ public class EventType{
         }
     }
 
-    /** Called when a unit is created in a reconstructor, factory or other unit. */
+    /**
+     * Called when a unit is created in a reconstructor, factory or other unit.
+     * This event is re-used while it is dispatched by {@link EventDispatch}! Do not keep references to it after the listener returns.
+     * */
     public static class UnitCreateEvent{
-        public final Unit unit;
-        public final @Nullable Building spawner;
-        public final @Nullable Unit spawnerUnit;
+        public Unit unit;
+        public @Nullable Building spawner;
+        public @Nullable Unit spawnerUnit;
 
         public UnitCreateEvent(Unit unit, Building spawner, Unit spawnerUnit){
             this.unit = unit;
@@ -597,6 +643,16 @@ public class EventType{
         public UnitCreateEvent(Unit unit, Building spawner){
             this(unit, spawner, null);
         }
+
+        public UnitCreateEvent(){
+        }
+
+        public UnitCreateEvent set(Unit unit, @Nullable Building spawner, @Nullable Unit spawnerUnit){
+            this.unit = unit;
+            this.spawner = spawner;
+            this.spawnerUnit = spawnerUnit;
+            return this;
+        }
     }
 
     /** Called when a unit is spawned by wave. */
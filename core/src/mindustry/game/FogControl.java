@@ -87,7 +87,7 @@ public final class FogControl implements CustomChunk{
         });
 
         //unit dead -> fog updates
-        Events.on(UnitDestroyEvent.class, e -> {
+        EventDispatch.on(UnitDestroyEvent.class, e -> {
             if(state.rules.fog && fog[e.unit.team.id] != null){
                 fog[e.unit.team.id].dynamicUpdated = true;
             }
@@ -1,6 +1,7 @@
 package mindustry.game;
 
 import arc.*;
+import arc.func.*;
 import arc.math.*;
 import arc.struct.*;
 import arc.util.*;
@@ -12,10 +13,15 @@ import mindustry.maps.*;
 import mindustry.type.*;
 import mindustry.world.blocks.storage.*;
 
+import java.util.*;
+import java.util.concurrent.*;
+
 import static mindustry.Vars.*;
 
 /** Updates and handles state of the campaign universe. Has no relevance to other gamemodes. */
 public class Universe{
+    private static final int turnThreads = Math.max(OS.cores - 1, 1), parallelThreshold = 4;
+
     private int seconds;
     private int netSeconds;
     private float secondCounter;
@@ -25,6 +31,12 @@ public class Universe{
     private @Nullable Schematic lastLoadout;
     private ItemSeq lastLaunchResources = new ItemSeq();
 
+    //background sectors of the planet that is currently being simulated, and their results
+    private final Seq<Sector> turnSectors = new Seq<>(Sector.class);
+    private TurnResult[] turnResults = {};
+    //simulates background sectors; less than parallelThreshold sectors are simulated on the main thread
+    private final ForkJoinPool turnPool = new ForkJoinPool(turnThreads);
+
     public Universe(){
         load();
 
@@ -144,10 +156,12 @@ public class Universe{
 
     /** Runs possible events. Resets event counter. */
     public void runTurn(){
+        profiler.universeTurn.begin();
         turn++;
 
         int newSecondsPassed = (int)(turnDuration / 60);
         Planet current = state.getPlanet();
+        long simulationTime = 0L;
 
         //update relevant sectors
         for(Planet planet : content.planets()){
@@ -157,134 +171,231 @@ public class Universe{
                 continue;
             }
 
-            //first pass: clear import stats
+            //sectors that are simulated in the background; each one is only modified by its own task
+            turnSectors.clear();
             for(Sector sector : planet.sectors){
                 if(sector.hasBase() && !sector.isBeingPlayed()){
-                    sector.info.lastImported.clear();
+                    turnSectors.add(sector);
                 }
             }
 
-            //second pass: update export & import statistics
-            for(Sector sector : planet.sectors){
-                if(sector.hasBase() && !sector.isBeingPlayed()){
+            if(turnResults.length < turnSectors.size){
+                int last = turnResults.length;
+                turnResults = Arrays.copyOf(turnResults, turnSectors.size);
+                for(int i = last; i < turnResults.length; i++){
+                    turnResults[i] = new TurnResult();
+                }
+            }
 
-                    //export to another sector
-                    if(sector.info.destination != null){
-                        Sector to = sector.info.destination;
-                        if(to.hasBase() && to.planet == planet){
-                            ItemSeq items = new ItemSeq();
-                            //calculated exported items to this sector
-                            sector.info.export.each((item, stat) -> items.add(item, (int)(stat.mean * newSecondsPassed * sector.getProductionScale())));
-                            to.addItems(items);
-                            to.info.lastImported.add(items);
-                        }
+            long start = Time.nanos();
+
+            //first pass: calculate exports of every sector
+            simulate(i -> {
+                Sector sector = turnSectors.items[i];
+                TurnResult result = turnResults[i];
+                result.reset();
+
+                //export to another sector
+                if(sector.info.destination != null){
+                    Sector to = sector.info.destination;
+                    if(to.hasBase() && to.planet == planet){
+                        ItemSeq items = new ItemSeq();
+                        //calculated exported items to this sector
+                        sector.info.export.each((item, stat) -> items.add(item, (int)(stat.mean * newSecondsPassed * sector.getProductionScale())));
+                        result.exports = items;
                     }
                 }
+            });
+
+            simulationTime += Time.nanos() - start;
+
+            //second pass: update import statistics; exports are applied in sector order, so storage caps are applied deterministically
+            for(Sector sector : turnSectors){
+                sector.info.lastImported.clear();
+            }
+
+            for(int i = 0; i < turnSectors.size; i++){
+                TurnResult result = turnResults[i];
+                if(result.exports != null){
+                    Sector to = turnSectors.items[i].info.destination;
+                    //background sectors are saved in the third pass
+                    to.addItems(result.exports, false);
+                    to.info.lastImported.add(result.exports);
+                }
             }
 
-            //third pass: everything else
+            start = Time.nanos();
+
+            //third pass: simulate waves and production; spawns are counted here, as the wave spawner cannot be used on several threads
+            int groundSpawns = Math.max(spawner.countFlyerSpawns(), 1), airSpawns = Math.max(spawner.countGroundSpawns(), 1);
+            simulate(i -> simulateSector(turnSectors.items[i], turnResults[i], newSecondsPassed, groundSpawns, airSpawns));
+
+            simulationTime += Time.nanos() - start;
+
+            //fourth pass: apply results that fire events or affect other sectors, in sector order
+            int next = 0;
             for(Sector sector : planet.sectors){
-                if(sector.hasBase()){
+                TurnResult result = null;
 
-                    //if it is being attacked, capture time is 0; otherwise, increment the timer
+                if(next < turnSectors.size && turnSectors.items[next] == sector){
+                    result = turnResults[next++];
+                }else if(!sector.hasBase()){
+                    continue;
+                }
+
+                if(result == null){
+                    //the sector being played only updates its capture timer
                     if(sector.isAttacked()){
                         sector.info.minutesCaptured = 0;
                     }else{
                         sector.info.minutesCaptured += turnDuration / 60 / 60;
                     }
+                }else{
+                    if(result.lost){
+                        //fire event for losing the sector
+                        Events.fire(new SectorLoseEvent(sector));
+
+                        //sector is dead.
+                        sector.info.items.clear();
+                        sector.info.damage = 1f;
+                        sector.info.hasCore = false;
+                        sector.info.production.clear();
+
+                        updateProduction(sector, newSecondsPassed);
+                    }else if(result.captured){
+                        //autocapture the sector
+                        sector.info.waves = false;
+                        boolean was = sector.info.wasCaptured;
+                        sector.info.wasCaptured = true;
+
+                        //fire the event
+                        Events.fire(new SectorCaptureEvent(sector, !was));
+                    }
 
-                    //increment seconds passed for this sector by the time that just passed with this turn
-                    if(!sector.isBeingPlayed()){
+                    sector.saveInfo();
+                }
 
-                        //increment time if attacked
-                        if(sector.isAttacked()){
-                            sector.info.secondsPassed += turnDuration/60f;
+                //queue random invasions
+                if(!sector.isAttacked() && sector.planet.campaignRules.sectorInvasion && sector.info.minutesCaptured > invasionGracePeriod && sector.info.hasSpawns){
+                    int count = sector.near().count(s -> s.hasEnemyBase() && !s.hasBase());
+
+                    //invasion chance depends on # of nearby bases
+                    if(count > 0 && Mathf.chance(baseInvasionChance * (0.8f + (count - 1) * 0.3f))){
+                        int waveMax = Math.max(sector.info.winWave, sector.isBeingPlayed() ? state.wave : sector.info.wave + sector.info.wavesPassed) + Mathf.random(2, 4) * 5;
+
+                        //assign invasion-related things
+                        if(sector.isBeingPlayed()){
+                            state.rules.winWave = waveMax;
+                            state.rules.waves = true;
+                            state.rules.attackMode = false;
+                            //update rules in multiplayer
+                            if(net.server()){
+                                Call.setRules(state.rules);
+                            }
+                        }else{
+                            sector.info.winWave = waveMax;
+                            sector.info.waves = true;
+                            sector.info.attack = false;
+                            sector.saveInfo();
                         }
 
-                        int wavesPassed = (int)(sector.info.secondsPassed*60f / sector.info.waveSpacing);
-                        boolean attacked = sector.info.waves && sector.planet.allowWaveSimulation;
-
-                        if(attacked){
-                            sector.info.wavesPassed = wavesPassed;
-                        }
+                        Events.fire(new SectorInvasionEvent(sector));
+                    }
+                }
+            }
 
-                        float damage = attacked ? SectorDamage.getDamage(sector.info) : 0f;
-
-                        //damage never goes down until the player visits the sector, so use max
-                        sector.info.damage = Math.max(sector.info.damage, damage);
-
-                        //check if the sector has been attacked too many times...
-                        if(attacked && damage >= 0.999f){
-                            //fire event for losing the sector
-                            Events.fire(new SectorLoseEvent(sector));
-
-                            //sector is dead.
-                            sector.info.items.clear();
-                            sector.info.damage = 1f;
-                            sector.info.hasCore = false;
-                            sector.info.production.clear();
-                        }else if(attacked && wavesPassed > 0 && sector.info.winWave > 1 && sector.info.wave + wavesPassed >= sector.info.winWave && !sector.hasEnemyBase()){
-                            //autocapture the sector
-                            sector.info.waves = false;
-                            boolean was = sector.info.wasCaptured;
-                            sector.info.wasCaptured = true;
-
-                            //fire the event
-                            Events.fire(new SectorCaptureEvent(sector, !was));
-                        }
+            turnSectors.clear();
+        }
 
-                        float scl = sector.getProductionScale();
+        profiler.universeTurnSectors.record(simulationTime);
 
-                        //add production, making sure that it's capped
-                        sector.info.production.each((item, stat) -> sector.info.items.add(item, Math.min((int)(stat.mean * newSecondsPassed * scl), sector.info.storageCapacity - sector.info.items.get(item))));
+        Events.fire(new TurnEvent());
 
-                        sector.info.export.each((item, stat) -> {
-                            if(sector.info.items.get(item) <= 0 && sector.info.production.get(item, ExportStat::new).mean < 0 && stat.mean > 0){
-                                //cap export by import when production is negative.
-                                stat.mean = Math.min(sector.info.lastImported.get(item) / (float)newSecondsPassed, stat.mean);
-                            }
-                        });
+        save();
 
-                        //prevent negative values with unloaders
-                        sector.info.items.checkNegative();
+        profiler.universeTurn.end();
+    }
 
-                        sector.saveInfo();
-                    }
+    /** Runs a function for the index of every background sector of this turn, in parallel if there are enough of them. Rethrows any exception. */
+    private void simulate(Intc cons){
+        int size = turnSectors.size;
 
-                    //queue random invasions
-                    if(!sector.isAttacked() && sector.planet.campaignRules.sectorInvasion && sector.info.minutesCaptured > invasionGracePeriod && sector.info.hasSpawns){
-                        int count = sector.near().count(s -> s.hasEnemyBase() && !s.hasBase());
-
-                        //invasion chance depends on # of nearby bases
-                        if(count > 0 && Mathf.chance(baseInvasionChance * (0.8f + (count - 1) * 0.3f))){
-                            int waveMax = Math.max(sector.info.winWave, sector.isBeingPlayed() ? state.wave : sector.info.wave + sector.info.wavesPassed) + Mathf.random(2, 4) * 5;
-
-                            //assign invasion-related things
-                            if(sector.isBeingPlayed()){
-                                state.rules.winWave = waveMax;
-                                state.rules.waves = true;
-                                state.rules.attackMode = false;
-                                //update rules in multiplayer
-                                if(net.server()){
-                                    Call.setRules(state.rules);
-                                }
-                            }else{
-                                sector.info.winWave = waveMax;
-                                sector.info.waves = true;
-                                sector.info.attack = false;
-                                sector.saveInfo();
-                            }
+        if(size < parallelThreshold){
+            for(int i = 0; i < size; i++){
+                cons.get(i);
+            }
+            return;
+        }
 
-                            Events.fire(new SectorInvasionEvent(sector));
-                        }
-                    }
+        int chunks = Math.min(turnThreads, size);
+        ForkJoinTask<?>[] tasks = new ForkJoinTask[chunks];
+        for(int chunk = 0; chunk < chunks; chunk++){
+            int fchunk = chunk;
+            tasks[chunk] = turnPool.submit(() -> {
+                for(int i = fchunk; i < size; i += chunks){
+                    cons.get(i);
                 }
-            }
+            });
         }
 
-        Events.fire(new TurnEvent());
+        //rethrows any exception
+        for(var task : tasks){
+            task.join();
+        }
+    }
 
-        save();
+    /**
+     * Advances a sector that is not being played by one turn. Losing and capturing the sector are only recorded in the result, as they fire events.
+     * Only modifies the info of this sector, so it can be called from any thread.
+     */
+    private void simulateSector(Sector sector, TurnResult result, int newSecondsPassed, int groundSpawns, int airSpawns){
+        //if it is being attacked, capture time is 0; otherwise, increment the timer
+        if(sector.isAttacked()){
+            sector.info.minutesCaptured = 0;
+
+            //increment time if attacked
+            sector.info.secondsPassed += turnDuration/60f;
+        }else{
+            sector.info.minutesCaptured += turnDuration / 60 / 60;
+        }
+
+        int wavesPassed = (int)(sector.info.secondsPassed*60f / sector.info.waveSpacing);
+        boolean attacked = sector.info.waves && sector.planet.allowWaveSimulation;
+
+        if(attacked){
+            sector.info.wavesPassed = wavesPassed;
+        }
+
+        float damage = attacked ? SectorDamage.getDamage(sector.info, sector.info.wavesPassed, false, groundSpawns, airSpawns) : 0f;
+
+        //damage never goes down until the player visits the sector, so use max
+        sector.info.damage = Math.max(sector.info.damage, damage);
+
+        //check if the sector has been attacked too many times...
+        result.lost = attacked && damage >= 0.999f;
+        result.captured = !result.lost && attacked && wavesPassed > 0 && sector.info.winWave > 1 && sector.info.wave + wavesPassed >= sector.info.winWave && !sector.hasEnemyBase();
+
+        //lost sectors have their production cleared first
+        if(!result.lost){
+            updateProduction(sector, newSecondsPassed);
+        }
+    }
+
+    private void updateProduction(Sector sector, int newSecondsPassed){
+        float scl = sector.getProductionScale();
+
+        //add production, making sure that it's capped
+        sector.info.production.each((item, stat) -> sector.info.items.add(item, Math.min((int)(stat.mean * newSecondsPassed * scl), sector.info.storageCapacity - sector.info.items.get(item))));
+
+        sector.info.export.each((item, stat) -> {
+            if(sector.info.items.get(item) <= 0 && sector.info.production.get(item, ExportStat::new).mean < 0 && stat.mean > 0){
+                //cap export by import when production is negative.
+                stat.mean = Math.min(sector.info.lastImported.get(item) / (float)newSecondsPassed, stat.mean);
+            }
+        });
+
+        //prevent negative values with unloaders
+        sector.info.items.checkNegative();
     }
 
     public void updateNetSeconds(int value){
@@ -314,4 +425,15 @@ public class Universe{
         turn = Core.settings.getInt("turn");
     }
 
+    /** Results of simulating a background sector for one turn. */
+    private static class TurnResult{
+        /** Items exported to the destination of the sector, if any. */
+        @Nullable ItemSeq exports;
+        boolean lost, captured;
+
+        void reset(){
+            exports = null;
+            lost = captured = false;
+        }
+    }
 }
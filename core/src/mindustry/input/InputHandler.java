@@ -141,7 +141,7 @@ public abstract class InputHandler implements InputProcessor, GestureListener{
         config = new BlockConfigFragment();
         planConfig = new PlanConfigFragment();
 
-        Events.on(UnitDestroyEvent.class, e -> {
+        EventDispatch.on(UnitDestroyEvent.class, e -> {
             if(e.unit != null && e.unit.isPlayer() && e.unit.getPlayer().isLocal() && e.unit.type.weapons.contains(w -> w.bullet.killShooter)){
                 player.shooting = false;
             }
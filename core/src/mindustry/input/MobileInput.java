@@ -77,7 +77,7 @@ public class MobileInput extends InputHandler implements GestureListener{
     public @Nullable Building buildingTapped;
 
     {
-        Events.on(UnitDestroyEvent.class, e -> {
+        EventDispatch.on(UnitDestroyEvent.class, e -> {
             if(e.unit != null && e.unit.isPlayer() && e.unit.getPlayer().isLocal() && e.unit.type.weapons.contains(w -> w.bullet.killShooter)){
                 manualShooting = false;
             }
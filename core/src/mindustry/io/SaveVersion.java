@@ -2,6 +2,7 @@ package mindustry.io;
 
 import arc.*;
 import arc.func.*;
+import arc.math.*;
 import arc.math.geom.*;
 import arc.struct.*;
 import arc.util.*;
@@ -21,12 +22,19 @@ import mindustry.world.meta.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
 
 import static mindustry.Vars.*;
 
 public abstract class SaveVersion extends SaveFileReader{
     protected static OrderedMap<String, CustomChunk> customChunks = new OrderedMap<>();
 
+    /** Number of tile rows in one band of the map region, starting with version 9. Bands are compressed separately, and inflated and decoded in parallel. */
+    public static final int mapBandRows = 32;
+    /** Compresses and decodes map bands. Not {@link mindustry.Vars#mainExecutor}, as saves may be written by tasks running on it, which would wait for themselves. */
+    static final ForkJoinPool bandPool = new ForkJoinPool(Math.max(OS.cores, 1));
+
     public final int version;
 
     //HACK stores the last read build of the save file, valid after read meta call
@@ -202,18 +210,98 @@ public abstract class SaveVersion extends SaveFileReader{
     }
 
     public void writeMap(DataOutput stream) throws IOException{
+        if(version < 9){
+            writeFlatMap(stream);
+            return;
+        }
+
+        int width = world.width(), height = world.height(), bands = Mathf.ceil(height / (float)mapBandRows);
+
+        stream.writeShort(width);
+        stream.writeShort(height);
+        stream.writeShort(mapBandRows);
+
+        byte[][] floors = new byte[bands][], blocks = new byte[bands][];
+        int[] floorSizes = new int[bands], blockSizes = new int[bands];
+        ReusableByteOutStream out = new ReusableByteOutStream();
+        DataOutputStream data = new DataOutputStream(out);
+
+        //buildings can only be written on this thread, so the raw bands are created first
+        for(int band = 0; band < bands; band++){
+            int start = band * mapBandRows * width, end = Math.min((band + 1) * mapBandRows, height) * width;
+
+            out.reset();
+            writeFloors(data, start, end);
+            floors[band] = Arrays.copyOf(out.getBytes(), floorSizes[band] = out.size());
+
+            out.reset();
+            writeBlocks(data, start, end);
+            blocks[band] = Arrays.copyOf(out.getBytes(), blockSizes[band] = out.size());
+        }
+
+        //every band is compressed on its own, so they can be inflated separately when loading
+        awaitAll(bands, band -> {
+            floors[band] = MapLayout.deflate(floors[band]);
+            blocks[band] = MapLayout.deflate(blocks[band]);
+        }, "Failed to compress map bands.");
+
+        //index: raw and compressed byte length of every band
+        for(int band = 0; band < bands; band++){
+            stream.writeInt(floorSizes[band]);
+            stream.writeInt(floors[band].length);
+            stream.writeInt(blockSizes[band]);
+            stream.writeInt(blocks[band].length);
+        }
+
+        for(int band = 0; band < bands; band++){
+            stream.write(floors[band]);
+            stream.write(blocks[band]);
+        }
+    }
+
+    /** Runs a task for every band on the band pool and waits for all of them. */
+    static void awaitAll(int bands, BandTask task, String error) throws IOException{
+        Seq<Future<?>> tasks = new Seq<>(bands);
+
+        for(int band = 0; band < bands; band++){
+            int fband = band;
+            tasks.add(bandPool.submit(() -> {
+                task.run(fband);
+                return null;
+            }));
+        }
+
+        try{
+            for(var future : tasks){
+                future.get();
+            }
+        }catch(ExecutionException e){
+            throw new IOException(error, e.getCause());
+        }catch(InterruptedException e){
+            throw new IOException(e);
+        }
+    }
+
+    /** Writes the map as a single sequence of tiles. Used before save version 9. */
+    public void writeFlatMap(DataOutput stream) throws IOException{
         //write world size
         stream.writeShort(world.width());
         stream.writeShort(world.height());
 
+        writeFloors(stream, 0, world.width() * world.height());
+        writeBlocks(stream, 0, world.width() * world.height());
+    }
+
+    /** Writes floors and overlays of tiles in the specified range of tile indices. Runs of equal tiles never cross the end of the range. */
+    public void writeFloors(DataOutput stream, int start, int end) throws IOException{
         //floor + overlay
-        for(int i = 0; i < world.width() * world.height(); i++){
+        for(int i = start; i < end; i++){
             Tile tile = world.rawTile(i % world.width(), i / world.width());
             stream.writeShort(tile.floorID());
             stream.writeShort(tile.overlayID());
             int consecutives = 0;
 
-            for(int j = i + 1; j < world.width() * world.height() && consecutives < 255; j++){
+            for(int j = i + 1; j < end && consecutives < 255; j++){
                 Tile nextTile = world.rawTile(j % world.width(), j / world.width());
 
                 if(nextTile.floorID() != tile.floorID() || nextTile.overlayID() != tile.overlayID()){
@@ -226,9 +314,12 @@ public abstract class SaveVersion extends SaveFileReader{
             stream.writeByte(consecutives);
             i += consecutives;
         }
+    }
 
+    /** Writes blocks and building data of tiles in the specified range of tile indices. Runs of equal tiles never cross the end of the range. */
+    public void writeBlocks(DataOutput stream, int start, int end) throws IOException{
         //blocks
-        for(int i = 0; i < world.width() * world.height(); i++){
+        for(int i = start; i < end; i++){
             Tile tile = world.rawTile(i % world.width(), i / world.width());
             stream.writeShort(tile.blockID());
 
@@ -256,7 +347,7 @@ public abstract class SaveVersion extends SaveFileReader{
                 //write consecutive non-entity blocks
                 int consecutives = 0;
 
-                for(int j = i + 1; j < world.width() * world.height() && consecutives < 255; j++){
+                for(int j = i + 1; j < end && consecutives < 255; j++){
                     Tile nextTile = world.rawTile(j % world.width(), j / world.width());
 
                     if(nextTile.blockID() != tile.blockID()){
@@ -273,6 +364,104 @@ public abstract class SaveVersion extends SaveFileReader{
     }
 
     public void readMap(DataInput stream, WorldContext context) throws IOException{
+        if(version < 9){
+            readFlatMap(stream, context);
+            return;
+        }
+
+        int width = stream.readUnsignedShort();
+        int height = stream.readUnsignedShort();
+        int bandRows = stream.readUnsignedShort();
+        int bands = Mathf.ceil(height / (float)bandRows);
+
+        int[] floorSizes = new int[bands], floorLengths = new int[bands], blockSizes = new int[bands], blockLengths = new int[bands];
+        for(int band = 0; band < bands; band++){
+            floorSizes[band] = stream.readInt();
+            floorLengths[band] = stream.readInt();
+            blockSizes[band] = stream.readInt();
+            blockLengths[band] = stream.readInt();
+        }
+
+        byte[][] floorBytes = new byte[bands][], blockBytes = new byte[bands][];
+        for(int band = 0; band < bands; band++){
+            stream.readFully(floorBytes[band] = new byte[floorLengths[band]]);
+            stream.readFully(blockBytes[band] = new byte[blockLengths[band]]);
+        }
+
+        //inflate and decode the layout of every band in parallel; this only touches the arrays, never the world
+        MapLayout layout = new MapLayout(width * height, bands);
+
+        awaitAll(bands, band -> {
+            int start = band * bandRows * width, end = Math.min((band + 1) * bandRows, height) * width;
+
+            floorBytes[band] = MapLayout.inflate(floorBytes[band], floorSizes[band]);
+            blockBytes[band] = MapLayout.inflate(blockBytes[band], blockSizes[band]);
+            layout.decodeFloors(floorBytes[band], start, end);
+            layout.decodeBlocks(band, blockBytes[band], start, end);
+        }, "Failed to decode map bands.");
+
+        //everything that creates tiles or buildings has to happen on this thread
+        boolean generating = context.isGenerating();
+
+        if(!generating) context.begin();
+        try{
+            context.resize(width, height);
+
+            for(int i = 0; i < width * height; i++){
+                short floorid = layout.floors[i];
+                if(content.block(floorid) == Blocks.air) floorid = Blocks.stone.id;
+
+                context.create(i % width, i / width, floorid, layout.overlays[i], (short)0);
+            }
+
+            BandInput input = new BandInput();
+            DataInputStream data = new DataInputStream(input);
+
+            for(int band = 0; band < bands; band++){
+                IntSeq builds = layout.builds[band];
+                int nextBuild = 0;
+                int start = band * bandRows * width, end = Math.min((band + 1) * bandRows, height) * width;
+
+                for(int i = start; i < end; i++){
+                    Block block = content.block(layout.blocks[i]);
+                    Tile tile = context.tile(i);
+                    if(block == null) block = Blocks.air;
+                    byte flags = layout.flags[i];
+
+                    //set block only if this is the center; otherwise, it's handled elsewhere
+                    if((flags & MapLayout.center) != 0){
+                        tile.setBlock(block);
+                    }
+
+                    if((flags & MapLayout.entity) != 0){
+                        if((flags & MapLayout.center) != 0){ //only read entity for center blocks
+                            input.seek(blockBytes[band], builds.get(nextBuild++));
+
+                            if(block.hasBuilding()){
+                                try{
+                                    readChunk(data, true, in -> {
+                                        byte revision = in.readByte();
+                                        tile.build.readAll(Reads.get(in), revision);
+                                    });
+                                }catch(Throwable e){
+                                    throw new IOException("Failed to read tile entity of block: " + block, e);
+                                }
+                            }
+
+                            context.onReadBuilding();
+                        }
+                    }else if((flags & MapLayout.data) != 0){
+                        tile.data = layout.data[i];
+                    }
+                }
+            }
+        }finally{
+            if(!generating) context.end();
+        }
+    }
+
+    /** Reads a map written as a single sequence of tiles. Used before save version 9. */
+    public void readFlatMap(DataInput stream, WorldContext context) throws IOException{
         int width = stream.readUnsignedShort();
         int height = stream.readUnsignedShort();
 
@@ -524,4 +713,136 @@ public abstract class SaveVersion extends SaveFileReader{
             }
         }
     }
+
+    /** Tile layout of a banded map region, decoded without touching the world. */
+    static class MapLayout{
+        static final byte entity = 1, data = 2, center = 4;
+
+        final short[] floors, overlays, blocks;
+        final byte[] flags, data;
+        /** Byte offsets of building chunks in the block data of each band, in tile order. */
+        final IntSeq[] builds;
+
+        MapLayout(int tiles, int bands){
+            floors = new short[tiles];
+            overlays = new short[tiles];
+            blocks = new short[tiles];
+            flags = new byte[tiles];
+            data = new byte[tiles];
+            builds = new IntSeq[bands];
+        }
+
+        static byte[] deflate(byte[] bytes){
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 64);
+            byte[] buffer = new byte[4096];
+
+            deflater.setInput(bytes);
+            deflater.finish();
+            while(!deflater.finished()){
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            deflater.end();
+            return out.toByteArray();
+        }
+
+        static byte[] inflate(byte[] bytes, int size) throws IOException{
+            Inflater inflater = new Inflater();
+            byte[] result = new byte[size];
+
+            try{
+                inflater.setInput(bytes);
+                int read = 0;
+                while(read < size && !inflater.finished()){
+                    int count = inflater.inflate(result, read, size - read);
+                    if(count == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                    read += count;
+                }
+                if(read != size) throw new IOException("Map band is truncated: expected " + size + " bytes, got " + read + ".");
+            }catch(DataFormatException e){
+                throw new IOException("Map band is corrupt.", e);
+            }finally{
+                inflater.end();
+            }
+            return result;
+        }
+
+        void decodeFloors(byte[] bytes, int start, int end) throws IOException{
+            DataInputStream stream = new DataInputStream(new ByteArrayInputStream(bytes));
+
+            for(int i = start; i < end; i++){
+                short floorid = stream.readShort();
+                short oreid = stream.readShort();
+                int consecutives = stream.readUnsignedByte();
+
+                for(int j = i; j <= i + consecutives; j++){
+                    floors[j] = floorid;
+                    overlays[j] = oreid;
+                }
+
+                i += consecutives;
+            }
+        }
+
+        void decodeBlocks(int band, byte[] bytes, int start, int end) throws IOException{
+            BandInput input = new BandInput();
+            input.seek(bytes, 0);
+            DataInputStream stream = new DataInputStream(input);
+            IntSeq offsets = builds[band] = new IntSeq();
+
+            for(int i = start; i < end; i++){
+                short id = stream.readShort();
+                byte packedCheck = stream.readByte();
+                blocks[i] = id;
+
+                if((packedCheck & 1) != 0){
+                    if(stream.readBoolean()){
+                        flags[i] = entity | center;
+                        //remember where the building starts, then skip it
+                        offsets.add(input.position());
+                        int length = stream.readUnsignedShort();
+                        if(stream.skipBytes(length) != length){
+                            throw new IOException("Building data extends past the end of its band.");
+                        }
+                    }else{
+                        flags[i] = entity;
+                    }
+                }else if((packedCheck & 2) != 0){
+                    flags[i] = data | center;
+                    data[i] = stream.readByte();
+                }else{
+                    int consecutives = stream.readUnsignedByte();
+
+                    for(int j = i; j <= i + consecutives; j++){
+                        blocks[j] = id;
+                        flags[j] = center;
+                    }
+
+                    i += consecutives;
+                }
+            }
+        }
+    }
+
+    interface BandTask{
+        void run(int band) throws IOException;
+    }
+
+    /** Byte array input that can be repositioned without allocating. */
+    static class BandInput extends ByteArrayInputStream{
+        BandInput(){
+            super(new byte[0]);
+        }
+
+        void seek(byte[] bytes, int position){
+            buf = bytes;
+            pos = position;
+            count = bytes.length;
+            mark = 0;
+        }
+
+        int position(){
+            return pos;
+        }
+    }
 }
@@ -0,0 +1,11 @@
+package mindustry.io.versions;
+
+import mindustry.io.*;
+
+/** Splits the map region into row bands with an index, so they can be decoded in parallel. */
+public class Save9 extends SaveVersion{
+
+    public Save9(){
+        super(9);
+    }
+}
@@ -11,7 +11,12 @@ import mindustry.logic.LExecutor.*;
 public class LAssembler{
     public static ObjectMap<String, Func<String[], LStatement>> customParsers = new ObjectMap<>();
 
+    /** Maximum number of programs kept in the program cache. Once exceeded, the cache is cleared. */
+    public static int maxCachedPrograms = 256;
+
     private static final int invalidNum = Integer.MIN_VALUE;
+    /** Parsed programs by source code. Processors with the same code share the parsed statements. */
+    private static final ObjectMap<String, Program> programs = new ObjectMap<>(), privilegedPrograms = new ObjectMap<>();
 
     private boolean privileged;
     /** Maps names to variable. */
@@ -29,16 +34,54 @@ public class LAssembler{
     }
 
     public static LAssembler assemble(String data, boolean privileged){
+        return assemble(program(data, privileged));
+    }
+
+    /** Builds the instructions of a parsed program, with variables that belong to the new assembler. */
+    public static LAssembler assemble(Program program){
         LAssembler asm = new LAssembler();
+        asm.privileged = program.privileged;
 
-        Seq<LStatement> st = read(data, privileged);
+        LStatement[] statements = program.statements;
+        Seq<LInstruction> instructions = new Seq<>(statements.length);
+        for(LStatement statement : statements){
+            LInstruction inst = statement.build(asm);
+            if(inst != null) instructions.add(inst);
+        }
 
-        asm.privileged = privileged;
-        
-        asm.instructions = st.map(l -> l.build(asm)).retainAll(l -> l != null).toArray(LInstruction.class);
+        asm.instructions = instructions.toArray(LInstruction.class);
         return asm;
     }
 
+    /**
+     * @return the parsed program for this code, from the cache if it has been parsed before.
+     * The statements of cached programs are shared, and must not be modified. Use {@link #read(String, boolean)} to get statements for editing.
+     */
+    public static synchronized Program program(String data, boolean privileged){
+        if(data == null) data = "";
+
+        ObjectMap<String, Program> cache = privileged ? privilegedPrograms : programs;
+        Program program = cache.get(data);
+
+        if(program == null){
+            //invalid code throws here, and is never cached
+            program = new Program(data, privileged, read(data, privileged).toArray(LStatement.class));
+
+            if(cache.size >= maxCachedPrograms){
+                cache.clear();
+            }
+            cache.put(data, program);
+        }
+
+        return program;
+    }
+
+    /** Removes all cached programs. */
+    public static synchronized void clearCache(){
+        programs.clear();
+        privilegedPrograms.clear();
+    }
+
     public static String write(Seq<LStatement> statements){
         StringBuilder out = new StringBuilder();
         for(LStatement s : statements){
@@ -134,4 +177,17 @@ public class LAssembler{
         return vars.get(name);
     }
 
+    /** A parsed program. Immutable and shared between all processors with the same code. */
+    public static class Program{
+        /** Source code. Processors using this program store this instance, so that duplicate code is only kept once. */
+        public final String code;
+        public final boolean privileged;
+        final LStatement[] statements;
+
+        Program(String code, boolean privileged, LStatement[] statements){
+            this.code = code;
+            this.privileged = privileged;
+            this.statements = statements;
+        }
+    }
 }
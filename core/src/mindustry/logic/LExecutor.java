@@ -202,7 +202,16 @@ public class LExecutor{
                             }
                         }
                         case building -> {
-                            Building b = Geometry.findClosest(unit.x, unit.y, enemy.bool() ? indexer.getEnemy(unit.team, flag) : indexer.getFlagged(unit.team, flag));
+                            Building b;
+                            if(enemy.bool()){
+                                //enemy lists are merged from every team, so they are shared between processors each tick
+                                b = Geometry.findClosest(unit.x, unit.y, RadarI.cache.enemyFlagged(unit.team, flag));
+                                if(b != null && !b.isValid()){
+                                    b = Geometry.findClosest(unit.x, unit.y, indexer.getEnemy(unit.team, flag));
+                                }
+                            }else{
+                                b = Geometry.findClosest(unit.x, unit.y, indexer.getFlagged(unit.team, flag));
+                            }
                             res = b == null ? null : b.tile;
                             build = true;
                         }
@@ -550,13 +559,18 @@ public class LExecutor{
         public ReadI(){
         }
 
+        /** @return whether the executor is allowed to read and write this memory block. */
+        public static boolean canAccess(LExecutor exec, MemoryBuild mem){
+            return exec.privileged || (mem.team == exec.team && !mem.block.privileged);
+        }
+
         @Override
         public void run(LExecutor exec){
             int address = position.numi();
             Building from = target.building();
 
-            if(from instanceof MemoryBuild mem && (exec.privileged || (from.team == exec.team && !mem.block.privileged))){
-                output.setnum(address < 0 || address >= mem.memory.length ? 0 : mem.memory[address]);
+            if(from instanceof MemoryBuild mem && canAccess(exec, mem)){
+                output.setnum(mem.get(address));
             }
         }
     }
@@ -578,8 +592,51 @@ public class LExecutor{
             int address = position.numi();
             Building from = target.building();
 
-            if(from instanceof MemoryBuild mem && (exec.privileged || (from.team == exec.team && !mem.block.privileged)) && address >= 0 && address < mem.memory.length){
-                mem.memory[address] = value.num();
+            if(from instanceof MemoryBuild mem && ReadI.canAccess(exec, mem)){
+                mem.set(address, value.num());
+            }
+        }
+    }
+
+    public static class MemoryCopyI implements LInstruction{
+        public LVar from, fromAddress, to, toAddress, count;
+
+        public MemoryCopyI(LVar from, LVar fromAddress, LVar to, LVar toAddress, LVar count){
+            this.from = from;
+            this.fromAddress = fromAddress;
+            this.to = to;
+            this.toAddress = toAddress;
+            this.count = count;
+        }
+
+        public MemoryCopyI(){
+        }
+
+        @Override
+        public void run(LExecutor exec){
+            if(from.building() instanceof MemoryBuild src && to.building() instanceof MemoryBuild dest && ReadI.canAccess(exec, src) && ReadI.canAccess(exec, dest)){
+                src.copy(fromAddress.numi(), dest, toAddress.numi(), count.numi());
+            }
+        }
+    }
+
+    public static class MemoryFillI implements LInstruction{
+        public LVar target, address, count, value;
+
+        public MemoryFillI(LVar target, LVar address, LVar count, LVar value){
+            this.target = target;
+            this.address = address;
+            this.count = count;
+            this.value = value;
+        }
+
+        public MemoryFillI(){
+        }
+
+        @Override
+        public void run(LExecutor exec){
+            if(target.building() instanceof MemoryBuild mem && ReadI.canAccess(exec, mem)){
+                mem.fill(address.numi(), count.numi(), value.num());
             }
         }
     }
@@ -638,8 +695,8 @@ public class LExecutor{
         public Object lastSourceBuild;
         public Interval timer = new Interval();
 
-        static float bestValue = 0f;
-        static Unit best = null;
+        /** Radar query cache shared by all processors. */
+        public static final RadarCache cache = new RadarCache();
 
         public RadarI(RadarTarget target1, RadarTarget target2, RadarTarget target3, RadarSort sort, LVar radar, LVar sortOrder, LVar output){
             this.target1 = target1;
@@ -670,28 +727,7 @@ public class LExecutor{
                 //timers update on a fixed 30 tick interval
                 //units update on a special timer per controller instance
                 if((base instanceof Building && (timer.get(30f) || lastSourceBuild != base)) || (ai != null && ai.checkTargetTimer(this))){
-                    //if any of the targets involve enemies
-                    boolean enemies = target1 == RadarTarget.enemy || target2 == RadarTarget.enemy || target3 == RadarTarget.enemy;
-                    boolean allies = target1 == RadarTarget.ally || target2 == RadarTarget.ally || target3 == RadarTarget.ally;
-
-                    best = null;
-                    bestValue = 0;
-
-                    if(enemies){
-                        Seq<TeamData> data = state.teams.present;
-                        for(int i = 0; i < data.size; i++){
-                            if(data.items[i].team != r.team()){
-                                find(r, range, sortDir, data.items[i].team);
-                            }
-                        }
-                    }else if(!allies){
-                        Seq<TeamData> data = state.teams.present;
-                        for(int i = 0; i < data.size; i++){
-                            find(r, range, sortDir, data.items[i].team);
-                        }
-                    }else{
-                        find(r, range, sortDir, r.team());
-                    }
+                    Unit best = cache.find(r, range, target1, target2, target3, sort, sortDir);
 
                     if(ai != null){
                         ai.execCache.put(this, best);
@@ -712,25 +748,6 @@ public class LExecutor{
                 output.setobj(null);
             }
         }
-
-        void find(Ranged b, float range, int sortDir, Team team){
-            Units.nearby(team, b.x(), b.y(), range, u -> {
-                if(!u.within(b, range) || !u.targetable(team) || b == u) return;
-
-                boolean valid =
-                    target1.func.get(b.team(), u) &&
-                    target2.func.get(b.team(), u) &&
-                    target3.func.get(b.team(), u);
-
-                if(!valid) return;
-
-                float val = sort.func.get(b, u) * sortDir;
-                if(val > bestValue || best == null){
-                    bestValue = val;
-                    best = u;
-                }
-            });
-        }
     }
 
     public static class SetI implements LInstruction{
@@ -120,6 +120,82 @@ public class LStatements{
         }
     }
 
+    @RegisterStatement("memcopy")
+    public static class MemoryCopyStatement extends LStatement{
+        public String count = "1", from = "cell1", fromAddress = "0", to = "cell2", toAddress = "0";
+
+        @Override
+        public void build(Table table){
+            table.add(" copy ");
+
+            field(table, count, str -> count = str);
+
+            table.add(" from ");
+
+            fields(table, from, str -> from = str);
+
+            table.add(" at ");
+
+            field(table, fromAddress, str -> fromAddress = str);
+
+            row(table);
+
+            table.add(" to ");
+
+            fields(table, to, str -> to = str);
+
+            table.add(" at ");
+
+            field(table, toAddress, str -> toAddress = str);
+        }
+
+        @Override
+        public LInstruction build(LAssembler builder){
+            return new MemoryCopyI(builder.var(from), builder.var(fromAddress), builder.var(to), builder.var(toAddress), builder.var(count));
+        }
+
+        @Override
+        public LCategory category(){
+            return LCategory.io;
+        }
+    }
+
+    @RegisterStatement("memfill")
+    public static class MemoryFillStatement extends LStatement{
+        public String value = "0", target = "cell1", address = "0", count = "1";
+
+        @Override
+        public void build(Table table){
+            table.add(" fill ");
+
+            fields(table, target, str -> target = str);
+
+            table.add(" with ");
+
+            field(table, value, str -> value = str);
+
+            row(table);
+
+            table.add(" at ");
+
+            field(table, address, str -> address = str);
+
+            table.add(" count ");
+
+            field(table, count, str -> count = str);
+        }
+
+        @Override
+        public LInstruction build(LAssembler builder){
+            return new MemoryFillI(builder.var(target), builder.var(address), builder.var(count), builder.var(value));
+        }
+
+        @Override
+        public LCategory category(){
+            return LCategory.io;
+        }
+    }
+
     @RegisterStatement("draw")
     public static class DrawStatement extends LStatement{
         static final String[] aligns = {"center", "top", "bottom", "left", "right", "topLeft", "topRight", "bottomLeft", "bottomRight"};
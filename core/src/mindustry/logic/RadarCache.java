@@ -0,0 +1,252 @@
+package mindustry.logic;
+
+import arc.math.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.game.*;
+import mindustry.game.Teams.*;
+import mindustry.gen.*;
+import mindustry.world.meta.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Per-tick cache of radar queries, shared by all processors.
+ * Unit lookups are cached per team and source cell, so processors near each other share a single quadtree query.
+ * Complete results are cached per query: team, cell and range of the source, target filters and sort, so sources in the same cell asking the same question share the answer.
+ * A shared answer is the one found for the first source that asked. It is only used if the unit is still valid, is not the asking source and is in its range;
+ * otherwise, the query is run again for the asking source.
+ * Everything is invalidated when {@link mindustry.core.GameState#updateId} changes. Hit counters are shown in the {@link mindustry.core.TickProfiler} report.
+ */
+public class RadarCache{
+    /** Size of a source cell, in world units. */
+    public static final float cellSize = tilesize * 8f;
+
+    /** Total radar queries. */
+    public long queries;
+    /** Queries that were answered from a cached result. */
+    public long resultHits;
+    /** Unit lookups that reused cached candidates of a nearby processor. */
+    public long candidateHits;
+    /** Unit lookups that had to query the team quadtree. */
+    public long candidateMisses;
+    /** Enemy building lookups of unit locate instructions that were answered from the cache. */
+    public long locateHits;
+    /** Enemy building lookups of unit locate instructions that had to query the block indexer. */
+    public long locateMisses;
+
+    private long lastUpdateId = -1;
+    private final ObjectMap<Query, Result> results = new ObjectMap<>();
+    private final LongMap<Seq<Unit>> candidates = new LongMap<>();
+    private final IntMap<Seq<Building>> enemyBuildings = new IntMap<>();
+    private final Seq<Query> queryPool = new Seq<>();
+    private final Seq<Result> resultPool = new Seq<>();
+    private final Seq<Seq<Unit>> candidatePool = new Seq<>();
+    private final Seq<Seq<Building>> buildingPool = new Seq<>();
+    private final Query key = new Query();
+
+    private @Nullable Unit best;
+    private float bestValue;
+
+    /**
+     * Finds the best unit in range of the source that matches all target filters.
+     * Equivalent to scanning all unit quadtrees around the source, but shared between processors within the same tick.
+     */
+    public @Nullable Unit find(Ranged source, float range, RadarTarget target1, RadarTarget target2, RadarTarget target3, RadarSort sort, int sortDir){
+        checkTick();
+        queries ++;
+
+        key.set(source, range, target1, target2, target3, sort, sortDir);
+        Result cached = results.get(key);
+        if(cached != null && (cached.unit == null || (cached.unit.isValid() && cached.unit != source && cached.unit.within(source, range)))){
+            resultHits ++;
+            return cached.unit;
+        }
+
+        best = null;
+        bestValue = 0f;
+
+        //if any of the targets involve enemies
+        boolean enemies = target1 == RadarTarget.enemy || target2 == RadarTarget.enemy || target3 == RadarTarget.enemy;
+        boolean allies = target1 == RadarTarget.ally || target2 == RadarTarget.ally || target3 == RadarTarget.ally;
+
+        if(enemies){
+            Seq<TeamData> data = state.teams.present;
+            for(int i = 0; i < data.size; i++){
+                if(data.items[i].team != source.team()){
+                    find(source, range, data.items[i].team);
+                }
+            }
+        }else if(!allies){
+            Seq<TeamData> data = state.teams.present;
+            for(int i = 0; i < data.size; i++){
+                find(source, range, data.items[i].team);
+            }
+        }else{
+            find(source, range, source.team());
+        }
+
+        //a stale result is replaced
+        if(cached == null){
+            cached = resultPool.isEmpty() ? new Result() : resultPool.pop();
+            results.put((queryPool.isEmpty() ? new Query() : queryPool.pop()).set(key), cached);
+        }
+        cached.unit = best;
+
+        Unit out = best;
+        best = null;
+        return out;
+    }
+
+    /**
+     * @return all enemy buildings of a team with the specified flag, as returned by {@link mindustry.ai.BlockIndexer#getEnemy(Team, BlockFlag)}.
+     * The result is shared; do not modify it. Buildings removed during this tick may still be present.
+     */
+    public Seq<Building> enemyFlagged(Team team, BlockFlag flag){
+        checkTick();
+
+        int key = team.id * BlockFlag.all.length + flag.ordinal();
+        Seq<Building> result = enemyBuildings.get(key);
+        if(result != null){
+            locateHits ++;
+            return result;
+        }
+
+        locateMisses ++;
+        result = buildingPool.isEmpty() ? new Seq<>(Building.class) : buildingPool.pop();
+        result.addAll(indexer.getEnemy(team, flag));
+        enemyBuildings.put(key, result);
+        return result;
+    }
+
+    private void checkTick(){
+        if(lastUpdateId != state.updateId){
+            clear();
+            lastUpdateId = state.updateId;
+        }
+    }
+
+    private void find(Ranged source, float range, Team team){
+        Seq<Unit> units = candidates(source.x(), source.y(), range, team);
+        Team sourceTeam = source.team();
+
+        //single pass top-1 selection; no sorting required
+        for(int i = 0; i < units.size; i++){
+            Unit u = units.items[i];
+            if(!u.isValid() || !u.within(source, range) || !u.targetable(team) || source == u) continue;
+
+            if(!(key.target1.func.get(sourceTeam, u) && key.target2.func.get(sourceTeam, u) && key.target3.func.get(sourceTeam, u))) continue;
+
+            float val = key.sort.func.get(source, u) * key.sortDir;
+            if(val > bestValue || best == null){
+                bestValue = val;
+                best = u;
+            }
+        }
+    }
+
+    /** @return all units of a team that may be within range of any position in the cell of the specified position. */
+    private Seq<Unit> candidates(float x, float y, float range, Team team){
+        int cx = Mathf.floor(x / cellSize), cy = Mathf.floor(y / cellSize), rangeCells = Mathf.ceil(range / cellSize);
+        long packed = ((long)team.id << 48) | ((long)(rangeCells & 0xffff) << 32) | ((long)(cx & 0xffff) << 16) | (cy & 0xffff);
+
+        Seq<Unit> result = candidates.get(packed);
+        if(result != null){
+            candidateHits ++;
+            return result;
+        }
+
+        candidateMisses ++;
+        result = candidatePool.isEmpty() ? new Seq<>(Unit.class) : candidatePool.pop();
+        float pad = rangeCells * cellSize;
+        team.data().tree().intersect(cx * cellSize - pad, cy * cellSize - pad, cellSize + pad * 2f, cellSize + pad * 2f, result::add);
+        candidates.put(packed, result);
+        return result;
+    }
+
+    /** Frees all cached results. Called automatically every tick. */
+    public void clear(){
+        for(var entry : results){
+            entry.value.unit = null;
+            queryPool.add(entry.key);
+            resultPool.add(entry.value);
+        }
+        for(var seq : candidates.values()){
+            seq.clear();
+            candidatePool.add(seq);
+        }
+        for(var seq : enemyBuildings.values()){
+            seq.clear();
+            buildingPool.add(seq);
+        }
+        results.clear();
+        candidates.clear();
+        enemyBuildings.clear();
+    }
+
+    /** Resets all hit counters. */
+    public void resetStats(){
+        queries = resultHits = candidateHits = candidateMisses = locateHits = locateMisses = 0;
+    }
+
+    /** @return a summary of the hit counters, or an empty string if the cache was not used. */
+    public String report(){
+        if(queries == 0 && locateHits + locateMisses == 0) return "";
+        return Strings.format("Radar cache: @ queries, @ results cached, candidates @ hits / @ misses, locate @ hits / @ misses\n",
+            queries, resultHits, candidateHits, candidateMisses, locateHits, locateMisses);
+    }
+
+    static class Query{
+        Team team;
+        /** Cell of the source. */
+        int x, y;
+        float range;
+        RadarTarget target1, target2, target3;
+        RadarSort sort;
+        int sortDir;
+
+        Query set(Ranged source, float range, RadarTarget target1, RadarTarget target2, RadarTarget target3, RadarSort sort, int sortDir){
+            return set(source.team(), Mathf.floor(source.x() / cellSize), Mathf.floor(source.y() / cellSize), range, target1, target2, target3, sort, sortDir);
+        }
+
+        Query set(Team team, int x, int y, float range, RadarTarget target1, RadarTarget target2, RadarTarget target3, RadarSort sort, int sortDir){
+            this.team = team;
+            this.x = x;
+            this.y = y;
+            this.range = range;
+            this.target1 = target1;
+            this.target2 = target2;
+            this.target3 = target3;
+            this.sort = sort;
+            this.sortDir = sortDir;
+            return this;
+        }
+
+        Query set(Query other){
+            return set(other.team, other.x, other.y, other.range, other.target1, other.target2, other.target3, other.sort, other.sortDir);
+        }
+
+        @Override
+        public boolean equals(Object o){
+            return o instanceof Query q && q.team == team && q.x == x && q.y == y && q.range == range && q.target1 == target1 &&
+                q.target2 == target2 && q.target3 == target3 && q.sort == sort && q.sortDir == sortDir;
+        }
+
+        @Override
+        public int hashCode(){
+            int result = team.id;
+            result = 31 * result + x;
+            result = 31 * result + y;
+            result = 31 * result + Float.floatToIntBits(range);
+            result = 31 * result + target1.ordinal();
+            result = 31 * result + target2.ordinal();
+            result = 31 * result + target3.ordinal();
+            result = 31 * result + sort.ordinal();
+            return 31 * result + sortDir;
+        }
+    }
+
+    static class Result{
+        @Nullable Unit unit;
+    }
+}
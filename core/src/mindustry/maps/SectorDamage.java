@@ -44,6 +44,11 @@ public class SectorDamage{
     /** @return calculated capture progress of the enemy if retWave is false, otherwise return the maximum waves survived as int.
      * if it survives all the waves, returns maxRetWave. */
     public static float getDamage(SectorInfo info, int wavesPassed, boolean retWave){
+        return getDamage(info, wavesPassed, retWave, Math.max(spawner.countFlyerSpawns(), 1), Math.max(spawner.countGroundSpawns(), 1));
+    }
+
+    /** Same as {@link #getDamage(SectorInfo, int, boolean)}, with spawn counts that were calculated beforehand. Does not modify any state, so it can be called from any thread. */
+    public static float getDamage(SectorInfo info, int wavesPassed, boolean retWave, int groundSpawns, int airSpawns){
         float health = info.sumHealth;
         int wave = info.wave;
         float waveSpace = info.waveSpacing;
@@ -59,12 +64,14 @@ public class SectorDamage{
                 waveBegin = waveEnd - maxWavesSimulated;
             }
 
-            int groundSpawns = Math.max(spawner.countFlyerSpawns(), 1), airSpawns = Math.max(spawner.countGroundSpawns(), 1);
+            Seq<SpawnGroup> spawns = state.rules.spawns;
 
             for(int i = waveBegin; i <= waveEnd; i++){
                 float enemyDps = 0f, enemyHealth = 0f;
 
-                for(SpawnGroup group : state.rules.spawns){
+                //not iterated with an iterator, as this may run on several threads at once
+                for(int g = 0; g < spawns.size; g++){
+                    SpawnGroup group = spawns.get(g);
                     //calculate the amount of spawn points used
                     //if there's a spawn position override, there is only one potential place they spawn
                     //assume that all overridden positions are valid, should always be true in properly designed campaign maps
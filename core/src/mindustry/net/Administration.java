@@ -505,6 +505,16 @@ public class Administration{
         socketInput = new Config("socketInput", "Allows a local application to control this server through a local TCP socket.", false, "socket", () -> Events.fire(Trigger.socketConfigChanged)),
         socketInputPort = new Config("socketInputPort", "The port for socket input.", 6859, () -> Events.fire(Trigger.socketConfigChanged)),
         socketInputAddress = new Config("socketInputAddress", "The bind address for socket input.", "localhost", () -> Events.fire(Trigger.socketConfigChanged)),
+        metrics = new Config("metrics", "Serves server metrics in the Prometheus text format over HTTP.", false, () -> Events.fire(Trigger.metricsConfigChanged)),
+        metricsPort = new Config("metricsPort", "The port for metrics.", 6860, () -> Events.fire(Trigger.metricsConfigChanged)),
+        metricsAddress = new Config("metricsAddress", "The bind address for metrics.", "localhost", () -> Events.fire(Trigger.metricsConfigChanged)),
+        packetBudgets = new Config("packetBudgets", "Packets per second of each unreliable packet type that are sent to a connection with a full outbound queue; the rest is dropped. Comma-separated list of name:amount.", "effect:60,syncVariable:30", () -> {
+            if(netServer != null) netServer.packetBudgets.load(Config.packetBudgets.string());
+        }),
+        fixedStep = new Config("fixedStep", "Whether the game runs at a fixed tick rate with a constant delta, independent of frame pacing. Requires a restart.", false),
+        fixedStepRate = new Config("fixedStepRate", "Game ticks per second in fixed step mode.", 60),
+        fixedStepCatchUp = new Config("fixedStepCatchUp", "Maximum ticks run in one frame in fixed step mode, when the server falls behind. The rest is skipped.", 4),
+        fixedStepNetRate = new Config("fixedStepNetRate", "Network updates per second in fixed step mode.", 60),
         allowCustomClients = new Config("allowCustomClients", "Whether custom clients are allowed to connect.", !headless, "allow-custom"),
         whitelist = new Config("whitelist", "Whether the whitelist is used.", false),
         motd = new Config("motd", "The message displayed to people on connection.", "off"),
@@ -340,6 +340,16 @@ public class ArcNetProvider implements NetProvider{
             return connection.isConnected();
         }
 
+        @Override
+        public int getReturnTripTime(){
+            return connection.getReturnTripTime();
+        }
+
+        @Override
+        public void updateReturnTripTime(){
+            if(connection.isConnected()) connection.updateReturnTripTime();
+        }
+
         @Override
         public void sendStream(Streamable stream){
             connection.addListener(new InputStreamSender(stream.stream, 1024){
@@ -365,14 +375,25 @@ public class ArcNetProvider implements NetProvider{
             });
         }
 
+        @Override
+        public boolean isSaturated(){
+            return connection.getTcpWriteBufferSize() >= PacketBudgets.saturatedBytes;
+        }
+
         @Override
         public void send(Object object, boolean reliable){
             try{
                 if(connection.isConnected()){
-                    if(reliable){
-                        connection.sendTCP(object);
-                    }else{
-                        connection.sendUDP(object);
+                    int id = object instanceof Packet packet ? Net.getPacketId(packet) : -1;
+
+                    if(!reliable && id != -1 && net.server() && !netServer.packetBudgets.allow(this, id)){
+                        return;
+                    }
+
+                    //serialization happens on this thread, so the raw size is that of this packet
+                    int written = reliable ? connection.sendTCP(object) : connection.sendUDP(object);
+                    if(id != -1){
+                        packetStats.record(id, written, PacketSerializer.lastRawSize.get()[0]);
                     }
                 }
             }catch(Exception e){
@@ -400,6 +421,9 @@ public class ArcNetProvider implements NetProvider{
         ThreadLocal<Reads> reads = Threads.local(() -> new Reads(new ByteBufferInput(decompressBuffer.get())));
         ThreadLocal<Writes> writes = Threads.local(() -> new Writes(new ByteBufferOutput(decompressBuffer.get())));
 
+        /** Size of the last packet written by each thread before compression, including the header. */
+        static final ThreadLocal<int[]> lastRawSize = Threads.local(() -> new int[1]);
+
         //for debugging network write counts
         static WindowedMean upload = new WindowedMean(5), download = new WindowedMean(5);
         static long lastUpload, lastDownload, uploadAccum, downloadAccum;
@@ -464,6 +488,7 @@ public class ArcNetProvider implements NetProvider{
                 writeFramework(byteBuffer, msg);
             }else{
                 if(!(o instanceof Packet pack)) throw new RuntimeException("All sent objects must extend Packet! Class: " + o.getClass());
+                int start = byteBuffer.position();
                 byte id = Net.getPacketId(pack);
                 byteBuffer.put(id);
 
@@ -489,6 +514,10 @@ public class ArcNetProvider implements NetProvider{
                     //skip to indicate the written, compressed data
                     byteBuffer.position(byteBuffer.position() + written);
                 }
+
+                int raw = length + PacketStats.headerSize;
+                lastRawSize.get()[0] = raw;
+                Net.sentStats.record(id, byteBuffer.position() - start, raw);
             }
 
             if(debug){
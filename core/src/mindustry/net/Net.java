@@ -26,6 +26,9 @@ public class Net{
     private static Seq<Class<? extends Packet>> packetClasses = new Seq<>();
     private static ObjectIntMap<Class<?>> packetToId = new ObjectIntMap<>();
 
+    /** Statistics of all packets sent by this client or server, by type. */
+    public static final PacketStats sentStats = new PacketStats();
+
     private boolean server;
     private boolean active;
     private boolean clientLoaded;
@@ -39,6 +42,9 @@ public class Net{
 
     private final NetProvider provider;
 
+    /** Called with every packet received by the server after it is read, right before it is handled. Used for recording replays. */
+    public @Nullable Cons2<NetConnection, Packet> serverReceiveListener;
+
     static{
         registerPacket(StreamBegin::new);
         registerPacket(StreamChunk::new);
@@ -63,6 +69,11 @@ public class Net{
         return (byte)id;
     }
 
+    /** @return the class of the packet type with this ID, or null if there is none. */
+    public static @Nullable Class<? extends Packet> getPacketClass(int id){
+        return id >= 0 && id < packetClasses.size ? packetClasses.get(id) : null;
+    }
+
     public static <T extends Packet> T newPacket(byte id){
         return ((Prov<T>)packetProvs.get(id & 0xff)).get();
     }
@@ -179,6 +190,17 @@ public class Net{
         Time.runTask(60f, platform::updateRPC);
     }
 
+    /**
+     * Acts as a server without accepting any connections, so that packets from simulated connections are handled like on a hosted server.
+     * Used for playing back replays. Does nothing if the server or client is already active. Turning it off closes the simulated server.
+     */
+    public void simulateServer(boolean simulate){
+        if(simulate && active) return;
+
+        active = simulate;
+        server = simulate;
+    }
+
     /**
      * Closes the server.
      */
@@ -305,6 +327,10 @@ public class Net{
     public void handleServerReceived(NetConnection connection, Packet object){
         object.handled();
 
+        if(serverReceiveListener != null){
+            serverReceiveListener.get(connection, object);
+        }
+
         try{
             //handle object normally
             if(serverListeners.get(object.getClass()) != null){
@@ -26,12 +26,23 @@ public abstract class NetConnection{
     public int snapshotsSent;
     /** Timestamp of last received snapshot. */
     public long lastReceivedClientTime;
-    /** Build requests that have been recently rejected. This is cleared every snapshot. */
-    public Seq<BuildPlan> rejectedRequests = new Seq<>();
+    /** Build plans received from the client, by sync ID. */
+    public IntMap<BuildPlan> plans = new IntMap<>();
+    /** Sync IDs of build plans that have been rejected. These are skipped until the client removes them. */
+    public IntSet rejectedPlans = new IntSet();
+    /** ID of the last applied plan sync packet. */
+    public int lastPlanSync = -1;
+    /** ID of the unit that the synced plans belong to. */
+    public int planUnit = -1;
     /** Handles chat spam rate limits. */
     public Ratekeeper chatRate = new Ratekeeper();
     /** Handles packet spam rate limits. */
     public Ratekeeper packetRate = new Ratekeeper();
+    /** Statistics of packets sent to this connection, by type. */
+    public final PacketStats packetStats = new PacketStats();
+    /** Unreliable packets sent in the current second by type, and when that second started. Used by {@link PacketBudgets}. */
+    @Nullable int[] budgetUsed;
+    long budgetWindow;
 
     public boolean hasConnected, hasBegunConnecting, hasDisconnected;
     public float viewWidth, viewHeight, viewX, viewY;
@@ -95,6 +106,20 @@ public abstract class NetConnection{
         return true;
     }
 
+    /** @return whether the outbound queue of this connection is so full that low-priority packets should be dropped. */
+    public boolean isSaturated(){
+        return false;
+    }
+
+    /** @return the last measured round trip time to this connection in milliseconds, or -1 if it is unknown. */
+    public int getReturnTripTime(){
+        return -1;
+    }
+
+    /** Requests a new measurement of the round trip time, if supported. */
+    public void updateReturnTripTime(){
+    }
+
     public void sendStream(Streamable stream){
         try{
             int cid;
@@ -0,0 +1,98 @@
+package mindustry.net;
+
+import arc.util.*;
+
+import java.util.*;
+
+/**
+ * Per-type rate budgets for unreliable packets sent by the server, such as effects or logic variable syncs.
+ * While a connection's outbound queue is saturated, unreliable packets of a type above its budget for the current second are dropped.
+ * Most budgeted packets carry state that is sent again later, so dropping them coalesces updates into the next one that fits the budget.
+ * Reliable packets are never dropped. Main thread only.
+ */
+public class PacketBudgets{
+    /** Number of bytes waiting in a connection's TCP write buffer before it counts as saturated. */
+    public static int saturatedBytes = 16384;
+
+    /** Maximum packets per second for each packet ID while saturated. Negative values mean no budget. */
+    private final int[] budgets = new int[256];
+
+    public PacketBudgets(){
+        Arrays.fill(budgets, -1);
+    }
+
+    /**
+     * Replaces all budgets with the ones in a configuration string, in the format {@code name:packetsPerSecond,...}.
+     * Names are either packet class names, or the names of remote methods, which include all of their overloads; for example, {@code effect:60,syncVariable:30}.
+     */
+    public void load(String config){
+        Arrays.fill(budgets, -1);
+
+        for(String entry : config.split(",")){
+            entry = entry.trim();
+            if(entry.isEmpty()) continue;
+
+            int split = entry.indexOf(':');
+            if(split == -1 || !Strings.canParsePositiveInt(entry.substring(split + 1).trim())){
+                Log.warn("Invalid packet budget: '@'. Expected name:packetsPerSecond.", entry);
+                continue;
+            }
+
+            String name = entry.substring(0, split).trim();
+            int budget = Strings.parseInt(entry.substring(split + 1).trim());
+            boolean found = false;
+
+            for(int id = 0; id < budgets.length; id++){
+                Class<?> type = Net.getPacketClass(id);
+                if(type != null && matches(type.getSimpleName(), name)){
+                    budgets[id] = budget;
+                    found = true;
+                }
+            }
+
+            if(!found){
+                Log.warn("Unknown packet type in packet budget: '@'.", name);
+            }
+        }
+    }
+
+    /** Sets the budget of a single packet type. Negative values remove the budget. */
+    public void set(int id, int packetsPerSecond){
+        budgets[id & 0xff] = packetsPerSecond;
+    }
+
+    /** @return the budget of a packet type in packets per second, or -1 if it has none. */
+    public int get(int id){
+        return budgets[id & 0xff];
+    }
+
+    /**
+     * Counts an unreliable packet sent to a connection against its budget.
+     * @return whether the packet should be sent. If not, it is counted as dropped in the connection's and the global statistics.
+     */
+    public boolean allow(NetConnection con, int id){
+        id &= 0xff;
+        if(budgets[id] < 0) return true;
+
+        long now = Time.millis();
+        if(con.budgetUsed == null){
+            con.budgetUsed = new int[256];
+        }
+        if(now - con.budgetWindow >= 1000){
+            con.budgetWindow = now;
+            Arrays.fill(con.budgetUsed, 0);
+        }
+
+        if(++con.budgetUsed[id] <= budgets[id] || !con.isSaturated()){
+            return true;
+        }
+
+        con.packetStats.drop(id);
+        Net.sentStats.drop(id);
+        return false;
+    }
+
+    private static boolean matches(String className, String name){
+        return className.equalsIgnoreCase(name) || (className.regionMatches(true, 0, name, 0, name.length()) && className.startsWith("CallPacket", name.length()));
+    }
+}
@@ -0,0 +1,110 @@
+package mindustry.net;
+
+import arc.struct.*;
+import arc.util.*;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Counters of sent packets by packet ID: number of packets, bytes on the wire, bytes before compression, and packets dropped by {@link PacketBudgets}.
+ * Byte counts include the packet header. Framework messages and raw buffers are not counted. Thread safe.
+ */
+public class PacketStats{
+    /** Size of the header written before the data of every packet: ID, length and compression flag. */
+    public static final int headerSize = 4;
+
+    public final AtomicLongArray
+    packets = new AtomicLongArray(256),
+    bytes = new AtomicLongArray(256),
+    rawBytes = new AtomicLongArray(256),
+    dropped = new AtomicLongArray(256);
+
+    public void record(int id, int bytes, int rawBytes){
+        packets.incrementAndGet(id & 0xff);
+        this.bytes.addAndGet(id & 0xff, bytes);
+        this.rawBytes.addAndGet(id & 0xff, rawBytes);
+    }
+
+    public void drop(int id){
+        dropped.incrementAndGet(id & 0xff);
+    }
+
+    public void reset(){
+        for(int i = 0; i < 256; i++){
+            packets.set(i, 0);
+            bytes.set(i, 0);
+            rawBytes.set(i, 0);
+            dropped.set(i, 0);
+        }
+    }
+
+    /** @return the total number of bytes sent. */
+    public long totalBytes(){
+        return sum(bytes);
+    }
+
+    /** @return the total number of packets sent. */
+    public long totalPackets(){
+        return sum(packets);
+    }
+
+    /** @return bytes on the wire divided by bytes before compression for a packet type, or 1 if nothing was sent. */
+    public float ratio(int id){
+        long raw = rawBytes.get(id & 0xff);
+        return raw == 0 ? 1f : (float)((double)bytes.get(id & 0xff) / raw);
+    }
+
+    /** @return IDs of packet types that were sent or dropped, by bytes sent, descending. */
+    public IntSeq top(){
+        IntSeq result = new IntSeq();
+        for(int i = 0; i < 256; i++){
+            if(packets.get(i) > 0 || dropped.get(i) > 0){
+                result.add(i);
+            }
+        }
+
+        //selection sort is fine for at most 256 elements
+        for(int i = 0; i < result.size; i++){
+            int best = i;
+            for(int j = i + 1; j < result.size; j++){
+                if(bytes.get(result.items[j]) > bytes.get(result.items[best])) best = j;
+            }
+            result.swap(i, best);
+        }
+        return result;
+    }
+
+    /** @return a table of the packet types that used the most bandwidth, one line per type. */
+    public String report(int max){
+        IntSeq top = top();
+        long total = Math.max(totalBytes(), 1);
+        StringBuilder out = new StringBuilder();
+
+        out.append(Strings.format("@ packets, @ total\n", totalPackets(), formatBytes(totalBytes())));
+        for(int i = 0; i < Math.min(max, top.size); i++){
+            int id = top.items[i];
+            Class<?> type = Net.getPacketClass(id);
+            out.append(Strings.format("@: @ packets, @ (@%), ratio @@\n",
+                type == null ? "#" + id : type.getSimpleName(),
+                packets.get(id),
+                formatBytes(bytes.get(id)),
+                Strings.fixed(bytes.get(id) * 100f / total, 1),
+                Strings.fixed(ratio(id), 2),
+                dropped.get(id) > 0 ? ", dropped " + dropped.get(id) : ""
+            ));
+        }
+        return out.toString();
+    }
+
+    private static long sum(AtomicLongArray array){
+        long sum = 0;
+        for(int i = 0; i < array.length(); i++){
+            sum += array.get(i);
+        }
+        return sum;
+    }
+
+    private static String formatBytes(long bytes){
+        return bytes >= 1024 * 1024 ? Strings.fixed(bytes / 1024f / 1024f, 2) + " MB" : bytes >= 1024 ? Strings.fixed(bytes / 1024f, 1) + " KB" : bytes + " B";
+    }
+}
@@ -5,6 +5,7 @@ import arc.struct.*;
 import arc.util.*;
 import mindustry.*;
 import mindustry.content.*;
+import mindustry.game.*;
 import mindustry.game.EventType.*;
 import mindustry.game.SectorInfo.*;
 import mindustry.gen.*;
@@ -130,7 +131,7 @@ public class GameService{
             }
         });
 
-        Events.on(UnitDestroyEvent.class, e -> {
+        EventDispatch.on(UnitDestroyEvent.class, e -> {
             if(campaign()){
                 if(e.unit.team != Vars.player.team()){
                     SStat.unitsDestroyed.add();
@@ -182,7 +183,7 @@ public class GameService{
             }
         }));
 
-        Events.on(BuildingBulletDestroyEvent.class, e -> {
+        EventDispatch.on(BuildingBulletDestroyEvent.class, e -> {
             if(campaign() && e.build.block == Blocks.scatter && e.build.team == state.rules.waveTeam && e.bullet.owner instanceof Unit u && u.type == UnitTypes.flare && u.team == player.team()){
                 destroyScatterFlare.complete();
             }
@@ -296,7 +297,7 @@ public class GameService{
             }
         });
 
-        Events.on(UnitCreateEvent.class, e -> {
+        EventDispatch.on(UnitCreateEvent.class, e -> {
             if(campaign()){
                 if(unitsBuilt.add(e.unit.type.name)){
                     SStat.unitTypesBuilt.max(content.units().count(u -> unitsBuilt.contains(u.name) && !u.isHidden()));
@@ -323,7 +324,7 @@ public class GameService{
             SStat.schematicsCreated.add();
         });
 
-        Events.on(BlockDestroyEvent.class, e -> {
+        EventDispatch.on(BlockDestroyEvent.class, e -> {
             if(campaign() && e.tile.team() != player.team()){
                 SStat.blocksDestroyed.add();
             }
@@ -384,7 +385,7 @@ public class GameService{
 
         trigger(Trigger.blastFreeze, blastFrozenUnit);
 
-        Events.on(UnitBulletDestroyEvent.class, e -> {
+        EventDispatch.on(UnitBulletDestroyEvent.class, e -> {
             if(state.isCampaign() && player != null && player.team() == e.bullet.team){
 
                 if(e.bullet.owner instanceof WallBuild){
@@ -409,7 +410,7 @@ public class GameService{
             }
         });
 
-        Events.on(UnitCreateEvent.class, e -> {
+        EventDispatch.on(UnitCreateEvent.class, e -> {
             if(campaign() && e.unit.team() == player.team()){
                 SStat.unitsBuilt.add();
             }
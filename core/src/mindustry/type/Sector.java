@@ -201,6 +201,11 @@ public class Sector{
     }
 
     public void addItems(ItemSeq items){
+        addItems(items, true);
+    }
+
+    /** @param save whether to save sector info afterwards. Only pass false if it is saved later anyway. */
+    public void addItems(ItemSeq items, boolean save){
 
         if(isBeingPlayed()){
             if(state.rules.defaultTeam.core() != null){
@@ -211,7 +216,7 @@ public class Sector{
         }else if(hasBase()){
             items.each((item, amount) -> info.items.add(item, Math.min(info.storageCapacity - info.items.get(item), amount)));
             info.items.checkNegative();
-            saveInfo();
+            if(save) saveInfo();
         }
     }
 
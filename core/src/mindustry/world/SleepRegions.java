@@ -0,0 +1,173 @@
+package mindustry.world;
+
+import arc.*;
+import arc.struct.*;
+import mindustry.game.EventType.*;
+import mindustry.gen.*;
+
+/**
+ * Puts connected groups of idle buildings to sleep together. Only buildings of blocks with {@link Block#regionSleep} take part.
+ * A building is idle once it has been blocked (see {@link Building#blocked()}) or asleep on its own for a while.
+ * Once every member of a region is idle, all members that are only adjacent to other members stop updating.
+ * Members next to other buildings keep updating, as they are the only ones that can notice changes from the outside.
+ * Any activity of a member, or an item arrival, power change, configuration or damage, wakes up the whole region.
+ * Regions are formed lazily, and dissolved when the proximity of a member changes. Main thread only.
+ */
+public class SleepRegions{
+    private static final Seq<Building> queue = new Seq<>(false, 16, Building.class);
+
+    /** Number of times sleeping regions were woken up, by reason. */
+    public final long[] wakes = new long[WakeReason.all.length];
+    /** Number of regions and buildings that are currently asleep because of their region. */
+    public int sleepingRegions, sleepingBuildings;
+
+    public SleepRegions(){
+        Events.on(ResetEvent.class, e -> reset());
+        Events.on(WorldLoadEvent.class, e -> reset());
+    }
+
+    /** Marks a building as idle, forming its region if necessary. Called by {@link Building#blocked()}. */
+    public void blocked(Building build){
+        if(build.sleepRegion == null){
+            form(build);
+        }
+        build.sleepRegion.idle(build);
+    }
+
+    /** @return the number of times regions were woken up for a reason. */
+    public long wakes(WakeReason reason){
+        return wakes[reason.ordinal()];
+    }
+
+    private void reset(){
+        //buildings of the last world are discarded with their regions
+        sleepingRegions = sleepingBuildings = 0;
+    }
+
+    private void form(Building start){
+        Region region = new Region();
+
+        queue.clear();
+        queue.add(start);
+        region.add(start);
+
+        while(queue.size > 0){
+            Building build = queue.pop();
+
+            for(int i = 0; i < build.proximity.size; i++){
+                Building other = build.proximity.items[i];
+                if(other.sleepRegion != region && other.team == start.team && other.block.regionSleep && !other.isPayload()){
+                    if(other.sleepRegion != null){
+                        other.sleepRegion.dissolve();
+                    }
+                    region.add(other);
+                    queue.add(other);
+                }
+            }
+        }
+
+        //members next to anything else have to keep watching it
+        for(int i = 0; i < region.members.size; i++){
+            Building build = region.members.items[i];
+            boolean inner = true;
+            for(int p = 0; p < build.proximity.size; p++){
+                if(build.proximity.items[p].sleepRegion != region){
+                    inner = false;
+                    break;
+                }
+            }
+            if(inner){
+                region.inner.add(build);
+            }
+        }
+    }
+
+    public enum WakeReason{
+        /** A member started doing something. */
+        activity,
+        item,
+        liquid,
+        power,
+        config,
+        damage,
+        /** A member or one of its neighbors was placed, removed or rotated. */
+        proximity;
+
+        public static final WakeReason[] all = values();
+    }
+
+    public class Region{
+        final Seq<Building> members = new Seq<>(false, 16, Building.class);
+        /** Members that are only adjacent to other members. */
+        final Seq<Building> inner = new Seq<>(false, 16, Building.class);
+        /** Members that were put to sleep by this region. */
+        final Seq<Building> slept = new Seq<>(false, 16, Building.class);
+        int idle;
+        boolean asleep;
+
+        void add(Building build){
+            build.sleepRegion = this;
+            build.regionIdle = build.isSleeping();
+            if(build.regionIdle) idle ++;
+            members.add(build);
+        }
+
+        /** Marks a member as idle. Puts the region to sleep once every member is. */
+        public void idle(Building build){
+            if(build.regionIdle) return;
+
+            build.regionIdle = true;
+            if(++idle < members.size || asleep) return;
+
+            asleep = true;
+            for(int i = 0; i < inner.size; i++){
+                Building member = inner.items[i];
+                if(!member.isSleeping()){
+                    member.forceSleep();
+                    slept.add(member);
+                }
+            }
+
+            sleepingRegions ++;
+            sleepingBuildings += slept.size;
+        }
+
+        /** Marks a member as active. Wakes up the region if it is asleep. */
+        public void active(Building build){
+            if(build.regionIdle){
+                build.regionIdle = false;
+                idle --;
+            }
+            wake(WakeReason.activity);
+        }
+
+        /** Wakes up all members that were put to sleep by this region. */
+        public void wake(WakeReason reason){
+            if(!asleep) return;
+
+            asleep = false;
+            wakes[reason.ordinal()] ++;
+            sleepingRegions --;
+            sleepingBuildings -= slept.size;
+
+            for(int i = 0; i < slept.size; i++){
+                slept.items[i].noSleep();
+            }
+            slept.clear();
+        }
+
+        /** Wakes up and removes all members. They form new regions once they are idle again. */
+        public void dissolve(){
+            wake(WakeReason.proximity);
+
+            for(int i = 0; i < members.size; i++){
+                Building build = members.items[i];
+                build.sleepRegion = null;
+                build.regionIdle = false;
+            }
+            members.clear();
+            inner.clear();
+            idle = 0;
+        }
+    }
+}
@@ -296,6 +296,12 @@ public class Tile implements Position, QuadTreeObject, Displayable{
         if(!world.isGenerating() && pathfinder != null){
             pathfinder.updateTile(this);
         }
+        if(!world.isGenerating() && collisions != null){
+            collisions.solidity.updateTile(this);
+        }
+        if(!world.isGenerating() && basePlacements != null){
+            basePlacements.updateTile(this);
+        }
     }
 
     public boolean isEditorTile(){
@@ -404,6 +410,9 @@ public class Tile implements Position, QuadTreeObject, Displayable{
         if(!world.isGenerating() && build != null){
             build.onProximityUpdate();
         }
+        if(!world.isGenerating() && basePlacements != null){
+            basePlacements.updateTile(this);
+        }
     }
 
     /** Sets the overlay without a recache. */
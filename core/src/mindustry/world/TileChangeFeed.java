@@ -0,0 +1,121 @@
+package mindustry.world;
+
+import arc.*;
+import arc.func.*;
+import arc.struct.*;
+import mindustry.game.EventType.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Batched alternative to {@link TileChangeEvent}. Tiles that change during a tick are collected without duplicates,
+ * and handed to every subscriber at once at the end of the tick, so work that is the same for many changes only has to be done once.
+ * Changes are only collected while something is subscribed. The immediate event is still fired for every change. Main thread only.
+ */
+public class TileChangeFeed{
+    private final Seq<Cons<TileChangeFeed>> subscribers = new Seq<>();
+    private final Cons<Tile> adder = this::addSingle;
+
+    private long[] dirty = {};
+    private int width, height;
+    private boolean flushing;
+
+    /** Array indices of the tiles that changed, in order of their first change. Multiblocks add every tile they cover. */
+    public final IntSeq tiles = new IntSeq();
+    /** Bounds of all changed tiles, inclusive. Only valid if there are any changes. */
+    public int minX, minY, maxX, maxY;
+
+    public TileChangeFeed(){
+        Events.on(TileChangeEvent.class, e -> add(e.tile));
+        Events.on(WorldLoadEvent.class, e -> clear());
+    }
+
+    /** Adds a function that receives all changes at the end of every tick with changes. */
+    public void subscribe(Cons<TileChangeFeed> cons){
+        subscribers.add(cons);
+    }
+
+    /** Marks a tile and all tiles linked to it as changed. */
+    public void add(Tile tile){
+        if(subscribers.isEmpty()) return;
+
+        if(width != world.width() || height != world.height()){
+            width = world.width();
+            height = world.height();
+            dirty = new long[(width * height + 63) / 64];
+            tiles.clear();
+        }
+
+        tile.getLinkedTiles(adder);
+    }
+
+    /** @return whether a tile has changed since the last flush. */
+    public boolean changed(int x, int y){
+        int i = x + y * width;
+        return x >= 0 && y >= 0 && x < width && y < height && (dirty[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /** Hands all collected changes to subscribers. Changes made by subscribers are handed over in the next flush. */
+    public void flush(){
+        if(tiles.isEmpty() || flushing) return;
+
+        int count = tiles.size;
+        flushing = true;
+        try{
+            for(int i = 0; i < subscribers.size; i++){
+                subscribers.get(i).get(this);
+            }
+        }finally{
+            flushing = false;
+            remove(count);
+        }
+    }
+
+    /** Discards all collected changes. */
+    public void clear(){
+        remove(tiles.size);
+    }
+
+    private void addSingle(Tile tile){
+        int i = tile.array();
+        if(i >= width * height || (dirty[i >>> 6] & (1L << i)) != 0) return;
+
+        dirty[i >>> 6] |= 1L << i;
+        expand(tile.x, tile.y);
+        tiles.add(i);
+    }
+
+    private void remove(int count){
+        for(int i = 0; i < count; i++){
+            int pos = tiles.items[i];
+            dirty[pos >>> 6] &= ~(1L << pos);
+        }
+
+        if(count >= tiles.size){
+            tiles.clear();
+            return;
+        }
+
+        //keep changes that were made while flushing
+        tiles.removeRange(0, count - 1);
+        int first = tiles.items[0];
+        minX = maxX = first % width;
+        minY = maxY = first / width;
+        for(int i = 1; i < tiles.size; i++){
+            int pos = tiles.items[i];
+            expand(pos % width, pos / width);
+        }
+    }
+
+    private void expand(int x, int y){
+        if(tiles.isEmpty()){
+            minX = maxX = x;
+            minY = maxY = y;
+        }else{
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+    }
+}
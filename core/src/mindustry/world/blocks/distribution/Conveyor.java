@@ -262,10 +262,12 @@ public class Conveyor extends Block implements Autotiler{
 
             float nextMax = aligned ? 1f - Math.max(itemSpace - nextc.minitem, 0) : 1f;
             float moved = speed * edelta();
+            boolean changed = false;
 
             for(int i = len - 1; i >= 0; i--){
                 float nextpos = (i == len - 1 ? 100f : ys[i + 1]) - itemSpace;
                 float maxmove = Mathf.clamp(nextpos - ys[i], 0, moved);
+                float lastx = xs[i], lasty = ys[i];
 
                 ys[i] += maxmove;
 
@@ -273,7 +275,10 @@ public class Conveyor extends Block implements Autotiler{
                 if(ys[i] > 0.5 && i > 0) mid = i - 1;
                 xs[i] = Mathf.approach(xs[i], 0, moved*2);
 
+                if(xs[i] != lastx || ys[i] != lasty) changed = true;
+
                 if(ys[i] >= 1f && pass(ids[i])){
+                    changed = true;
                     //align X position if passing forwards
                     if(aligned){
                         nextc.xs[nextc.lastInserted] = xs[i];
@@ -292,7 +297,12 @@ public class Conveyor extends Block implements Autotiler{
                 clogHeat = 0f;
             }
 
-            noSleep();
+            //clogged conveyors only change once the next building accepts an item
+            if(changed){
+                noSleep();
+            }else{
+                blocked();
+            }
         }
 
         public boolean pass(Item item){
@@ -41,6 +41,8 @@ public class Conduit extends LiquidBlock implements Autotiler{
     /** If true, the liquid region is padded at corners, so it doesn't stick out. */
     public boolean padCorners = true;
     public boolean leaks = true;
+    /** If true, connected runs of this conduit are simulated as one {@link ConduitSegment}. Disable for conduits that change how liquid is accepted or moved. */
+    public boolean flatten = true;
     public @Nullable Block junctionReplacement, bridgeReplacement, rotBridgeReplacement;
 
     public Conduit(String name){
@@ -153,6 +155,10 @@ public class Conduit extends LiquidBlock implements Autotiler{
         public float smoothLiquid;
         public int blendbits, xscl = 1, yscl = 1, blending;
         public boolean capped, backCapped = false;
+        /** The segment this conduit is simulated in, or null if it updates on its own. */
+        public @Nullable ConduitSegment segment;
+        /** Whether this conduit flows into a loop, which cannot be flattened. Reset when proximity changes. */
+        public boolean looped;
 
         @Override
         public void draw(){
@@ -217,17 +223,54 @@ public class Conduit extends LiquidBlock implements Autotiler{
             Building next = front(), prev = back();
             capped = next == null || next.team != team || !next.block.hasLiquids;
             backCapped = blendbits == 0 && (prev == null || prev.team != team || !prev.block.hasLiquids);
+
+            resetSegment();
+        }
+
+        @Override
+        public void onProximityRemoved(){
+            super.onProximityRemoved();
+
+            resetSegment();
+        }
+
+        protected void resetSegment(){
+            if(segment != null){
+                segment.dissolve();
+            }
+            looped = false;
+        }
+
+        /** @return the conduit this one flows into, if both can be part of the same segment. */
+        public @Nullable ConduitBuild linked(){
+            return flatten && front() instanceof ConduitBuild next && next.block == block && next.team == team ? next : null;
         }
 
         @Override
         public boolean acceptLiquid(Building source, Liquid liquid){
             noSleep();
+            if(segment != null) segment.wake();
             return (liquids.current() == liquid || liquids.currentAmount() < 0.2f)
                 && (tile == null || source == this || (source.relativeTo(tile.x, tile.y) + 2) % 4 != rotation);
         }
 
         @Override
         public void updateTile(){
+            if(segment == null && flatten && !looped){
+                segment = ConduitSegment.form(this);
+                if(segment != null) segment.wake();
+            }
+
+            if(segment != null){
+                //the head updates the whole segment, other members do not need to update
+                if(segment.members.first() == this){
+                    segment.update();
+                }else{
+                    sleep();
+                }
+                return;
+            }
+
             smoothLiquid = Mathf.lerpDelta(smoothLiquid, liquids.currentAmount() / liquidCapacity, 0.05f);
 
             if(liquids.currentAmount() > 0.0001f && timer(timerFlow, 1)){
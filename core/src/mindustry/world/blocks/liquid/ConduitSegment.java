@@ -0,0 +1,148 @@
+package mindustry.world.blocks.liquid;
+
+import arc.math.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.gen.*;
+import mindustry.type.*;
+import mindustry.world.blocks.liquid.Conduit.*;
+import mindustry.world.modules.*;
+
+/**
+ * A connected run of conduits of the same type, simulated in a single pass by its head (the most downstream conduit).
+ * Members are stored downstream-first, so each conduit pushes into a conduit that has already moved its own liquid this tick.
+ * Transfers between members skip the generic liquid transfer path, as conduits of the same type always accept each other's liquid;
+ * everything else, including leaks and reactions, still uses {@link Building#moveLiquid}.
+ * Each member's {@link LiquidModule} remains the storage, so sensing and saves are unaffected.
+ * Segments are dissolved whenever the proximity of a member changes, and rebuilt lazily.
+ */
+public class ConduitSegment{
+    private static final IntSet closedSet = new IntSet();
+    private static final Seq<ConduitBuild> path = new Seq<>(ConduitBuild.class);
+
+    public final Conduit block;
+    /** All members, downstream-first. The head is always the first member. */
+    public final Seq<ConduitBuild> members = new Seq<>(true, 16, ConduitBuild.class);
+    /** Index of the member that each member flows into; -1 for the head. */
+    private final IntSeq targets = new IntSeq();
+
+    private ConduitSegment(Conduit block){
+        this.block = block;
+    }
+
+    /**
+     * Creates a segment that contains the specified conduit and everything that flows into the same head.
+     * @return the new segment, or null if the conduit flows into a loop. Conduits that do are marked, and update on their own.
+     */
+    public static @Nullable ConduitSegment form(ConduitBuild start){
+        closedSet.clear();
+        path.clear();
+
+        ConduitBuild head = start;
+        while(true){
+            if(!closedSet.add(head.pos())){
+                for(ConduitBuild build : path){
+                    build.looped = true;
+                }
+                path.clear();
+                return null;
+            }
+            path.add(head);
+
+            ConduitBuild next = head.linked();
+            if(next == null) break;
+            head = next;
+        }
+        path.clear();
+
+        ConduitSegment segment = new ConduitSegment((Conduit)start.block);
+        segment.add(head, -1);
+
+        //breadth-first search upstream; members are processed in the order they are added
+        for(int i = 0; i < segment.members.size; i++){
+            ConduitBuild current = segment.members.items[i];
+
+            for(int p = 0; p < current.proximity.size; p++){
+                if(current.proximity.items[p] instanceof ConduitBuild other && other.segment != segment && other.linked() == current){
+                    segment.add(other, i);
+                }
+            }
+        }
+
+        return segment;
+    }
+
+    private void add(ConduitBuild build, int target){
+        if(build.segment != null){
+            build.segment.dissolve();
+        }
+        build.segment = this;
+        build.looped = false;
+        members.add(build);
+        targets.add(target);
+    }
+
+    /** Updates all members. Called once per tick by the head. */
+    public void update(){
+        float capacity = block.liquidCapacity, pressure = block.liquidPressure;
+        boolean moved = false;
+
+        for(int i = 0; i < members.size; i++){
+            ConduitBuild build = members.items[i];
+            LiquidModule liquids = build.liquids;
+
+            build.smoothLiquid = Mathf.lerpDelta(build.smoothLiquid, liquids.currentAmount() / capacity, 0.05f);
+
+            if(liquids.currentAmount() <= 0.0001f || !build.timer(block.timerFlow, 1)) continue;
+
+            moved = true;
+            Liquid liquid = liquids.current();
+
+            if(i == 0){
+                build.moveLiquidForward(block.leaks, liquid);
+                continue;
+            }
+
+            ConduitBuild next = members.items[targets.items[i]];
+            LiquidModule nextLiquids = next.liquids;
+
+            if(nextLiquids.current() == liquid || nextLiquids.currentAmount() < 0.2f){
+                //equivalent to moveLiquid() between two conduits that accept each other
+                float amount = liquids.get(liquid), other = nextLiquids.get(liquid);
+                float ofract = other / capacity, fract = amount / capacity * pressure;
+                float flow = Math.min(Math.min(Mathf.clamp(fract - ofract) * capacity, amount), capacity - other);
+
+                if(flow > 0f && ofract <= fract){
+                    nextLiquids.add(liquid, flow);
+                    liquids.remove(liquid, flow);
+                }
+            }else{
+                //different liquids may react
+                build.moveLiquid(next, liquid);
+            }
+        }
+
+        ConduitBuild head = members.first();
+        if(moved){
+            head.noSleep();
+        }else{
+            head.sleep();
+        }
+    }
+
+    /** Wakes up the head, so that the segment is updated. */
+    public void wake(){
+        members.first().noSleep();
+    }
+
+    /** Removes all members from this segment. They update on their own until a new segment is formed. */
+    public void dissolve(){
+        for(int i = 0; i < members.size; i++){
+            ConduitBuild build = members.items[i];
+            build.segment = null;
+            build.noSleep();
+        }
+        members.clear();
+        targets.clear();
+    }
+}
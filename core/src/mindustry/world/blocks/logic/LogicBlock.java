@@ -26,6 +26,7 @@ import mindustry.world.blocks.ConstructBlock.*;
 import mindustry.world.meta.*;
 
 import java.io.*;
+import java.util.*;
 import java.util.zip.*;
 
 import static mindustry.Vars.*;
@@ -33,6 +34,12 @@ import static mindustry.Vars.*;
 public class LogicBlock extends Block{
     private static final int maxByteLen = 1024 * 100;
     public static final int maxNameLength = 32;
+    /** Maximum number of entries in each of the compressed config caches. Once exceeded, a cache is cleared. */
+    public static int maxCachedConfigs = 256;
+
+    /** Compressed configs by code and links, and decompressed configs by their data. Processors with the same code share these. */
+    private static final ObjectMap<CompressKey, byte[]> compressedConfigs = new ObjectMap<>();
+    private static final ObjectMap<BytesKey, LogicConfig> decompressedConfigs = new ObjectMap<>();
 
     public int maxInstructionScale = 5;
     public int instructionsPerTick = 1;
@@ -131,8 +138,30 @@ public class LogicBlock extends Block{
         return name;
     }
 
+    /** @return the compressed config for this code and links. The result is cached, and must not be modified. */
     public static byte[] compress(String code, Seq<LogicLink> links){
-        return compress(code.getBytes(charset), links);
+        StringBuilder linkKey = new StringBuilder();
+        for(LogicLink link : links){
+            if(link.active){
+                linkKey.append(link.name).append(',').append(link.x).append(',').append(link.y).append(';');
+            }
+        }
+
+        CompressKey key = new CompressKey(code, linkKey.toString());
+        synchronized(compressedConfigs){
+            byte[] result = compressedConfigs.get(key);
+            if(result != null) return result;
+        }
+
+        byte[] result = compress(code.getBytes(charset), links);
+
+        synchronized(compressedConfigs){
+            if(compressedConfigs.size >= maxCachedConfigs){
+                compressedConfigs.clear();
+            }
+            compressedConfigs.put(key, result);
+        }
+        return result;
     }
 
     public static byte[] compress(byte[] bytes, Seq<LogicLink> links){
@@ -166,6 +195,52 @@ public class LogicBlock extends Block{
         }
     }
 
+    /** @return the contents of a compressed config. The result is cached, and must not be modified. */
+    public static LogicConfig decompress(byte[] data) throws IOException{
+        BytesKey key = new BytesKey(data);
+        synchronized(decompressedConfigs){
+            LogicConfig result = decompressedConfigs.get(key);
+            if(result != null) return result;
+        }
+
+        LogicConfig result;
+
+        try(DataInputStream stream = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))){
+            int version = stream.read();
+
+            int bytelen = stream.readInt();
+            if(bytelen > maxByteLen) throw new IOException("Malformed logic data! Length: " + bytelen);
+            byte[] bytes = new byte[bytelen];
+            stream.readFully(bytes);
+
+            int total = stream.readInt();
+
+            if(version == 0){
+                //old version just had links, ignore those
+                for(int i = 0; i < total; i++){
+                    stream.readInt();
+                }
+                total = 0;
+            }
+
+            result = new LogicConfig(new String(bytes, charset), total);
+
+            for(int i = 0; i < total; i++){
+                result.names[i] = stream.readUTF();
+                result.xs[i] = stream.readShort();
+                result.ys[i] = stream.readShort();
+            }
+        }
+
+        synchronized(decompressedConfigs){
+            if(decompressedConfigs.size >= maxCachedConfigs){
+                decompressedConfigs.clear();
+            }
+            decompressedConfigs.put(key, result);
+        }
+        return result;
+    }
+
     @Override
     public void setStats(){
         super.setStats();
@@ -187,24 +262,14 @@ public class LogicBlock extends Block{
     public Object pointConfig(Object config, Cons<Point2> transformer){
         if(config instanceof byte[] data){
 
-            try(DataInputStream stream = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))){
-                //discard version for now
-                stream.read();
-
-                int bytelen = stream.readInt();
-
-                if(bytelen > maxByteLen) throw new RuntimeException("Logic data too long or malformed! Length: " + bytelen);
-
-                byte[] bytes = new byte[bytelen];
-                stream.readFully(bytes);
-
-                int total = stream.readInt();
+            try{
+                LogicConfig logic = decompress(data);
 
                 Seq<LogicLink> links = new Seq<>();
 
-                for(int i = 0; i < total; i++){
-                    String name = stream.readUTF();
-                    short x = stream.readShort(), y = stream.readShort();
+                for(int i = 0; i < logic.names.length; i++){
+                    String name = logic.names[i];
+                    short x = logic.xs[i], y = logic.ys[i];
 
                     Tmp.p2.set((int)(offset / (tilesize/2)), (int)(offset / (tilesize/2)));
                     transformer.get(Tmp.p1.set(x * 2, y * 2).sub(Tmp.p2));
@@ -214,7 +279,7 @@ public class LogicBlock extends Block{
                     links.add(new LogicLink(Tmp.p1.x, Tmp.p1.y, name, true));
                 }
 
-                return compress(bytes, links);
+                return compress(logic.code, links);
             }catch(IOException e){
                 Log.err(e);
             }
@@ -222,6 +287,60 @@ public class LogicBlock extends Block{
         return config;
     }
 
+    /** Contents of a compressed config. */
+    public static class LogicConfig{
+        public final String code;
+        /** Links, as stored in the config. */
+        public final String[] names;
+        public final short[] xs, ys;
+
+        LogicConfig(String code, int links){
+            this.code = code;
+            this.names = new String[links];
+            this.xs = new short[links];
+            this.ys = new short[links];
+        }
+    }
+
+    private static class CompressKey{
+        final String code, links;
+
+        CompressKey(String code, String links){
+            this.code = code;
+            this.links = links;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            return o instanceof CompressKey k && code.equals(k.code) && links.equals(k.links);
+        }
+
+        @Override
+        public int hashCode(){
+            return code.hashCode() * 31 + links.hashCode();
+        }
+    }
+
+    private static class BytesKey{
+        final byte[] bytes;
+        final int hash;
+
+        BytesKey(byte[] bytes){
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object o){
+            return o instanceof BytesKey k && hash == k.hash && Arrays.equals(bytes, k.bytes);
+        }
+
+        @Override
+        public int hashCode(){
+            return hash;
+        }
+    }
+
     public static class LogicLink{
         public boolean active = true, valid;
         public int x, y;
@@ -264,48 +383,33 @@ public class LogicBlock extends Block{
         }
 
         public void readCompressed(byte[] data, boolean relative){
-            try(DataInputStream stream = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))){
-                int version = stream.read();
-
-                int bytelen = stream.readInt();
-                if(bytelen > maxByteLen) throw new IOException("Malformed logic data! Length: " + bytelen);
-                byte[] bytes = new byte[bytelen];
-                stream.readFully(bytes);
+            try{
+                LogicConfig config = decompress(data);
 
                 links.clear();
 
-                int total = stream.readInt();
-
-                if(version == 0){
-                    //old version just had links, ignore those
+                for(int i = 0; i < config.names.length; i++){
+                    String name = config.names[i];
+                    int x = config.xs[i], y = config.ys[i];
 
-                    for(int i = 0; i < total; i++){
-                        stream.readInt();
+                    if(relative){
+                        x += tileX();
+                        y += tileY();
                     }
-                }else{
-                    for(int i = 0; i < total; i++){
-                        String name = stream.readUTF();
-                        short x = stream.readShort(), y = stream.readShort();
-
-                        if(relative){
-                            x += tileX();
-                            y += tileY();
-                        }
 
-                        Building build = world.build(x, y);
+                    Building build = world.build(x, y);
 
-                        if(build != null){
-                            String bestName = getLinkName(build.block);
-                            if(!name.startsWith(bestName)){
-                                name = findLinkName(build.block);
-                            }
+                    if(build != null){
+                        String bestName = getLinkName(build.block);
+                        if(!name.startsWith(bestName)){
+                            name = findLinkName(build.block);
                         }
-
-                        links.add(new LogicLink(x, y, name, false));
                     }
+
+                    links.add(new LogicLink(x, y, name, false));
                 }
 
-                updateCode(new String(bytes, charset));
+                updateCode(config.code);
             }catch(Exception ignored){
                 //invalid logic doesn't matter here
             }
@@ -351,8 +455,12 @@ public class LogicBlock extends Block{
                 code = str;
 
                 try{
+                    //parsing is cached, so processors with the same code only parse it once
+                    LAssembler.Program program = LAssembler.program(str, privileged);
+                    code = program.code;
+
                     //create assembler to store extra variables
-                    LAssembler asm = LAssembler.assemble(str, privileged);
+                    LAssembler asm = LAssembler.assemble(program);
 
                     //store connections
                     for(LogicLink link : links){
@@ -5,6 +5,8 @@ import mindustry.gen.*;
 import mindustry.world.*;
 import mindustry.world.meta.*;
 
+import java.util.*;
+
 import static mindustry.Vars.*;
 
 public class MemoryBlock extends Block{
@@ -39,6 +41,59 @@ public class MemoryBlock extends Block{
     public class MemoryBuild extends Building{
         public double[] memory = new double[memoryCapacity];
 
+        /** @return the number of addressable values. */
+        public int size(){
+            return memory.length;
+        }
+
+        /** @return the value at the address, or 0 if out of bounds. */
+        public double get(int address){
+            if(address < 0 || address >= memory.length) return 0;
+            return memory[address];
+        }
+
+        /** Sets the value at an address. Does nothing if out of bounds. */
+        public void set(int address, double value){
+            if(address < 0 || address >= memory.length) return;
+            memory[address] = value;
+        }
+
+        /**
+         * Copies a range of values to another memory block, which may be this one. Ranges may overlap.
+         * The range is clipped to the bounds of both blocks.
+         * @return the number of values copied
+         */
+        public int copy(int from, MemoryBuild dest, int to, int count){
+            //clip the start of both ranges
+            if(from < 0){
+                count += from;
+                to -= from;
+                from = 0;
+            }
+            if(to < 0){
+                count += to;
+                from -= to;
+                to = 0;
+            }
+            count = Math.min(count, Math.min(size() - from, dest.size() - to));
+            if(count <= 0) return 0;
+
+            System.arraycopy(memory, from, dest.memory, to, count);
+            return count;
+        }
+
+        /**
+         * Sets a range of values, clipped to the bounds of this block.
+         * @return the number of values set
+         */
+        public int fill(int from, int count, double value){
+            int start = Math.max(from, 0), end = (int)Math.min((long)from + count, size());
+            if(end <= start) return 0;
+
+            Arrays.fill(memory, start, end, value);
+            return end - start;
+        }
+
         //massive byte size means picking up causes sync issues
         @Override
         public boolean canPickup(){
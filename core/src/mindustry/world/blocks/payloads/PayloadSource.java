@@ -11,6 +11,7 @@ import arc.util.io.*;
 import mindustry.*;
 import mindustry.ctype.*;
 import mindustry.entities.units.*;
+import mindustry.game.*;
 import mindustry.game.EventType.*;
 import mindustry.gen.*;
 import mindustry.type.*;
@@ -140,7 +141,7 @@ public class PayloadSource extends PayloadBlock{
                         p.command().commandPosition(commandPos);
                     }
 
-                    Events.fire(new UnitCreateEvent(p, this));
+                    EventDispatch.unitCreated(p, this, null);
                 }else if(configBlock != null){
                     payload = new BuildPayload(configBlock, team);
                 }
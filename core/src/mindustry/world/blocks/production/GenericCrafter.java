@@ -246,7 +246,18 @@ public class GenericCrafter extends Block{
                 craft();
             }
 
+            int total = items == null ? 0 : items.total();
+
             dumpOutputs();
+
+            if(regionSleep){
+                //liquid outputs are dumped continuously, so those crafters are never idle
+                if(efficiency <= 0f && warmup <= 0f && outputLiquids == null && (items == null || items.total() == total)){
+                    blocked();
+                }else{
+                    noSleep();
+                }
+            }
         }
 
         @Override
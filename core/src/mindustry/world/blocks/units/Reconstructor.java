@@ -16,6 +16,7 @@ import mindustry.ai.*;
 import mindustry.content.*;
 import mindustry.entities.*;
 import mindustry.entities.units.*;
+import mindustry.game.*;
 import mindustry.game.EventType.*;
 import mindustry.gen.*;
 import mindustry.graphics.*;
@@ -319,7 +320,7 @@ public class Reconstructor extends UnitBlock{
                             Effect.shake(2f, 3f, this);
                             Fx.producesmoke.at(this);
                             consume();
-                            Events.fire(new UnitCreateEvent(payload.unit, this));
+                            EventDispatch.unitCreated(payload.unit, this, null);
                         }
                     }
                 }
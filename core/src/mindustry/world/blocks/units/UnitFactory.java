@@ -16,6 +16,7 @@ import mindustry.ai.*;
 import mindustry.ctype.*;
 import mindustry.entities.*;
 import mindustry.entities.units.*;
+import mindustry.game.*;
 import mindustry.game.EventType.*;
 import mindustry.gen.*;
 import mindustry.graphics.*;
@@ -407,7 +408,7 @@ public class UnitFactory extends UnitBlock{
                     payload = new UnitPayload(unit);
                     payVector.setZero();
                     consume();
-                    Events.fire(new UnitCreateEvent(payload.unit, this));
+                    EventDispatch.unitCreated(payload.unit, this, null);
                 }
 
                 progress = Mathf.clamp(progress, 0, plan.time);
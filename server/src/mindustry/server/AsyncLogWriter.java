@@ -0,0 +1,250 @@
+package mindustry.server;
+
+import arc.files.*;
+import arc.util.*;
+import arc.util.Log.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static arc.util.ColorCodes.*;
+import static arc.util.Log.*;
+
+/**
+ * Writes server log lines to the console, log files and the command socket on a dedicated thread, so that logging never blocks the game thread.
+ * Lines wait in a bounded buffer. If it is full, new lines are dropped and counted, and the count is logged once the writer catches up.
+ * The current log file is kept open and is rotated once it exceeds the maximum size, which is tracked while writing instead of checked per line.
+ * If the log file cannot be written, file logging is paused for a while, and the lines in between are only written to the console.
+ */
+public class AsyncLogWriter{
+    /** Maximum number of lines waiting to be written. */
+    public static final int capacity = 8192;
+    /** Maximum number of lines written before flushing. */
+    private static final int batchSize = 512;
+    /** Time file logging is paused for after an error, in milliseconds. */
+    private static final long retryDelay = 30_000;
+
+    private final ArrayBlockingQueue<Line> queue = new ArrayBlockingQueue<>(capacity);
+    private final AtomicLong dropped = new AtomicLong(), droppedTotal = new AtomicLong();
+    private final ArrayList<Line> batch = new ArrayList<>(batchSize);
+    private final PrintStream console = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false, StandardCharsets.UTF_8);
+    private final Fi folder;
+    private final Thread thread;
+
+    /** Maximum size of a log file, in bytes. */
+    public volatile int maxFileSize;
+    /** Output of the connected command socket, if any. Every line is also sent there. */
+    public volatile @Nullable PrintWriter socketOutput;
+
+    //writer thread only
+    private @Nullable OutputStream file;
+    private volatile @Nullable Fi currentFile;
+    private long fileSize;
+    private int fileIndex;
+    private long retryTime, skippedLines;
+
+    public AsyncLogWriter(Fi folder, int maxFileSize){
+        this.folder = folder;
+        this.maxFileSize = maxFileSize;
+
+        thread = Threads.daemon("Log Writer", this::run);
+        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "Log Writer Shutdown"));
+    }
+
+    /** Queues a log line. Never blocks. */
+    public void log(LogLevel level, String text, boolean toFile){
+        if(!queue.offer(new Line(level, text, toFile ? Line.console | Line.file : Line.console))){
+            dropped.incrementAndGet();
+            droppedTotal.incrementAndGet();
+        }
+    }
+
+    /** Queues a line that is only written to the log file, as is. Never blocks. */
+    public void logToFile(String text){
+        if(!queue.offer(new Line(LogLevel.none, text, Line.file | Line.raw))){
+            dropped.incrementAndGet();
+            droppedTotal.incrementAndGet();
+        }
+    }
+
+    /** @return the number of lines dropped since startup, because the buffer was full. */
+    public long dropped(){
+        return droppedTotal.get();
+    }
+
+    /** @return the number of lines waiting to be written. */
+    public int pending(){
+        return queue.size();
+    }
+
+    /** @return the log file that is currently being written to, or null if nothing has been written yet. */
+    public @Nullable Fi currentFile(){
+        return currentFile;
+    }
+
+    /** Stops the writer thread, then writes all remaining lines and closes the log file. */
+    public void stop(){
+        thread.interrupt();
+        try{
+            thread.join(2000);
+        }catch(InterruptedException ignored){
+        }
+    }
+
+    private void run(){
+        try{
+            while(!Thread.interrupted()){
+                batch.add(queue.take());
+                writeBatch();
+            }
+        }catch(InterruptedException ignored){
+        }
+
+        //write whatever is left
+        writeBatch();
+        closeFile();
+    }
+
+    private void writeBatch(){
+        do{
+            queue.drainTo(batch, batchSize - batch.size());
+            for(int i = 0; i < batch.size(); i++){
+                write(batch.get(i));
+            }
+            batch.clear();
+
+            long lost = dropped.getAndSet(0);
+            if(lost > 0){
+                write(new Line(LogLevel.warn, "Log buffer was full; dropped " + lost + " lines.", Line.console | Line.file));
+            }
+        }while(!queue.isEmpty());
+
+        console.flush();
+        try{
+            if(file != null) file.flush();
+        }catch(IOException e){
+            fileError(e);
+        }
+    }
+
+    private void write(Line line){
+        String date = ServerControl.dateTime.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(line.time), ZoneId.systemDefault()));
+        String text = line.text;
+
+        if((line.flags & Line.console) != 0){
+            //err has red text instead of reset.
+            String consoleText = line.level == LogLevel.err ? text.replace(reset, lightRed + bold) : text;
+            console.println(bold + lightBlack + "[" + date + "] " + reset + format(ServerControl.tags[line.level.ordinal()] + " " + consoleText + "&fr"));
+
+            PrintWriter socket = socketOutput;
+            if(socket != null){
+                try{
+                    socket.println(formatColors(text + "&fr", false));
+                }catch(Throwable e){
+                    err("Error occurred logging to socket: @", e.getClass().getSimpleName());
+                }
+            }
+        }
+
+        if((line.flags & Line.file) != 0){
+            writeFile((line.flags & Line.raw) != 0 ? text : "[" + date + "] " + formatColors(ServerControl.tags[line.level.ordinal()] + " " + text + "&fr", false));
+        }
+    }
+
+    private void writeFile(String text){
+        //strip any escape codes left over; most lines have none
+        if(text.indexOf('\u001b') != -1){
+            for(String value : values){
+                text = text.replace(value, "");
+            }
+        }
+
+        try{
+            if(file != null && fileSize > maxFileSize){
+                writeBytes(("[End of log file. Date: " + ServerControl.dateTime.format(LocalDateTime.now()) + "]\n").getBytes(StandardCharsets.UTF_8));
+                closeFile();
+                fileIndex ++;
+            }
+
+            if(file == null){
+                if(Time.millis() < retryTime){
+                    skippedLines ++;
+                    return;
+                }
+
+                openFile();
+
+                if(skippedLines > 0){
+                    writeBytes(("[" + skippedLines + " lines were not written to the log file after an error]\n").getBytes(StandardCharsets.UTF_8));
+                    skippedLines = 0;
+                }
+            }
+
+            writeBytes((text + "\n").getBytes(StandardCharsets.UTF_8));
+        }catch(IOException e){
+            fileError(e);
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException{
+        file.write(bytes);
+        fileSize += bytes.length;
+    }
+
+    private void openFile() throws IOException{
+        //only files are checked here, once per rotation
+        while(folder.child("log-" + fileIndex + ".txt").length() >= maxFileSize){
+            fileIndex ++;
+        }
+
+        Fi next = folder.child("log-" + fileIndex + ".txt");
+        next.parent().mkdirs();
+        fileSize = next.length();
+        file = new BufferedOutputStream(new FileOutputStream(next.file(), true), 1 << 16);
+        currentFile = next;
+    }
+
+    private void closeFile(){
+        if(file == null) return;
+
+        try{
+            file.close();
+        }catch(IOException e){
+            fileError(e);
+        }
+        file = null;
+    }
+
+    private void fileError(IOException e){
+        OutputStream stream = file;
+        file = null;
+        if(stream != null){
+            try{
+                stream.close();
+            }catch(IOException ignored){
+            }
+        }
+
+        retryTime = Time.millis() + retryDelay;
+        console.println("Failed to write to log file: " + e + ". File logging is paused for " + retryDelay / 1000 + " seconds.");
+    }
+
+    static class Line{
+        static final int console = 1, file = 2, raw = 4;
+
+        final LogLevel level;
+        final String text;
+        final int flags;
+        final long time = Time.millis();
+
+        Line(LogLevel level, String text, int flags){
+            this.level = level;
+            this.text = text;
+            this.flags = flags;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package mindustry.server;
+
+import arc.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.core.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Runs the game at a fixed number of ticks per second, independent of frame pacing.
+ * Every tick advances the game by the same delta, so the cost and the results of a tick do not depend on how late its frame was.
+ * Frame time is accumulated, and as many ticks are run as fit into it, up to a limit per frame. Time beyond that limit is discarded,
+ * so an overloaded server slows the game down instead of taking larger steps.
+ * Network listeners are updated at their own rate, so catching up on several ticks does not also send several snapshots.
+ * Only the network updates themselves are timed, in the {@code fixed-step.network} profiler section; frames that run neither do not count towards it.
+ * The constant delta itself is set up by {@link ServerControl}.
+ */
+public class FixedStepLoop implements ApplicationListener{
+    /** Listeners updated once per tick, in order. */
+    public final Seq<ApplicationListener> tick = new Seq<>();
+    /** Listeners updated at the network rate, after ticks, in order. */
+    public final Seq<ApplicationListener> network = new Seq<>();
+
+    /** Game ticks per second. */
+    public final int tickRate;
+    /** Network updates per second. */
+    public final int networkRate;
+    /** Maximum number of ticks run in one frame. */
+    public final int maxCatchUp;
+
+    /** Number of ticks run, and ticks that were skipped because the server could not keep up. */
+    public long ticks, skipped;
+
+    private final TickProfiler.Section networkSection = profiler.section("fixed-step.network");
+    private final long tickNanos, networkNanos;
+    private long lastFrame, lastNetwork, accumulator;
+
+    public FixedStepLoop(int tickRate, int networkRate, int maxCatchUp){
+        this.tickRate = Math.max(tickRate, 1);
+        this.networkRate = Math.max(networkRate, 1);
+        this.maxCatchUp = Math.max(maxCatchUp, 1);
+        this.tickNanos = 1_000_000_000L / this.tickRate;
+        this.networkNanos = 1_000_000_000L / this.networkRate;
+    }
+
+    /** @return the game time that passes every tick, in 1/60ths of a second. */
+    public float delta(){
+        return 60f / tickRate;
+    }
+
+    @Override
+    public void init(){
+        tick.each(ApplicationListener::init);
+        network.each(ApplicationListener::init);
+    }
+
+    @Override
+    public void update(){
+        long now = Time.nanos();
+        if(lastFrame == 0){
+            lastFrame = lastNetwork = now;
+            accumulator = tickNanos;
+        }
+        accumulator += now - lastFrame;
+        lastFrame = now;
+
+        for(int steps = 0; accumulator >= tickNanos && steps < maxCatchUp; steps++){
+            accumulator -= tickNanos;
+            ticks ++;
+            for(int i = 0; i < tick.size; i++){
+                tick.get(i).update();
+            }
+        }
+
+        //too far behind; drop the backlog instead of catching up on it forever
+        if(accumulator >= tickNanos){
+            skipped += accumulator / tickNanos;
+            accumulator %= tickNanos;
+        }
+
+        if(now - lastNetwork >= networkNanos){
+            //keep the average rate, unless a whole interval was missed
+            lastNetwork = now - lastNetwork >= networkNanos * 2 ? now : lastNetwork + networkNanos;
+
+            networkSection.begin();
+            for(int i = 0; i < network.size; i++){
+                network.get(i).update();
+            }
+            networkSection.end();
+        }
+    }
+
+    @Override
+    public void pause(){
+        tick.each(ApplicationListener::pause);
+        network.each(ApplicationListener::pause);
+    }
+
+    @Override
+    public void resume(){
+        tick.each(ApplicationListener::resume);
+        network.each(ApplicationListener::resume);
+    }
+
+    @Override
+    public void dispose(){
+        tick.each(ApplicationListener::dispose);
+        network.each(ApplicationListener::dispose);
+    }
+
+    @Override
+    public void exit(){
+        tick.each(ApplicationListener::exit);
+        network.each(ApplicationListener::exit);
+    }
+}
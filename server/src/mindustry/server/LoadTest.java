@@ -0,0 +1,515 @@
+package mindustry.server;
+
+import arc.*;
+import arc.math.*;
+import arc.net.*;
+import arc.struct.*;
+import arc.util.*;
+import arc.util.io.*;
+import arc.util.Timer;
+import arc.util.Timer.*;
+import mindustry.content.*;
+import mindustry.core.*;
+import mindustry.entities.units.*;
+import mindustry.gen.*;
+import mindustry.io.*;
+import mindustry.net.*;
+import mindustry.net.Packets.*;
+
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+import static arc.util.Log.*;
+import static mindustry.Vars.*;
+
+/**
+ * Headless load testing harness. Connects simulated players to a server and records how it copes with them.
+ * Bots speak the regular network protocol, but never load the world and render nothing; the networking of all bots runs on a single thread.
+ * When the server runs in the same process, the unit of each bot is looked up directly, and server tick timings are taken from the {@link TickProfiler}.
+ * Otherwise, the unit of each bot is read from the entity snapshots the server sends it.
+ */
+public class LoadTest{
+    /** Scripted bot behaviors. */
+    public enum Behavior{
+        idle, move, build, chat, shoot,
+        /** Each bot picks one of the other behaviors. */
+        mixed;
+
+        public static final Behavior[] all = values();
+    }
+
+    private static final long tickNanos = Time.millisToNanos(1000 / 60);
+    private static final int snapshotTicks = 4, planTicks = 60 * 4, chatTicks = 60 * 15, joinSpacing = 20;
+    private static final float moveRange = 30f * 8f, moveSpeed = 2.5f;
+
+    public final String host;
+    public final int port;
+    public final Behavior behavior;
+
+    private final CopyOnWriteArrayList<Bot> bots = new CopyOnWriteArrayList<>();
+    private final ObjectMap<String, PacketStats> packets = new ObjectMap<>();
+    private final long startTime = Time.millis();
+    private final Task unitTask;
+    private final boolean profiling;
+    private volatile boolean running = true;
+    private int nextBot;
+
+    public LoadTest(String host, int port, Behavior behavior){
+        this.host = host;
+        this.port = port;
+        this.behavior = behavior;
+
+        profiling = profiler.enabled;
+        profiler.enabled = true;
+        Threads.daemon("Load Test", this::run);
+        unitTask = Timer.schedule(() -> Core.app.post(this::updateUnits), 0f, 0.5f);
+    }
+
+    /** Connects more bots. Bots are connected one after another on a separate thread, as connecting blocks until the handshake is complete. */
+    public void add(int amount){
+        int first = nextBot;
+        nextBot += amount;
+
+        Threads.daemon("Load Test Connector", () -> {
+            for(int i = first; i < first + amount && running; i++){
+                Bot bot = new Bot(i);
+                bots.add(bot);
+                bot.connect();
+                Threads.sleep(joinSpacing);
+            }
+        });
+    }
+
+    /** Disconnects all bots. */
+    public void stop(){
+        running = false;
+        unitTask.cancel();
+        profiler.enabled = profiling;
+    }
+
+    public boolean running(){
+        return running;
+    }
+
+    private void run(){
+        long tick = 0;
+
+        while(running){
+            long start = Time.nanos();
+
+            for(Bot bot : bots){
+                try{
+                    bot.client.update(0);
+                    if(bot.joined && tick % snapshotTicks == bot.index % snapshotTicks){
+                        bot.update(tick);
+                    }
+                }catch(Exception e){
+                    bot.fail(e);
+                }
+            }
+
+            tick ++;
+
+            long sleep = tickNanos - Time.timeSinceNanos(start);
+            if(sleep > 0){
+                Threads.sleep(sleep / 1000000, (int)(sleep % 1000000));
+            }
+        }
+
+        for(Bot bot : bots){
+            bot.client.close();
+        }
+    }
+
+    /** Runs on the main thread; finds the unit of every bot, if the server is running in the same process. */
+    private void updateUnits(){
+        if(!net.server()) return;
+
+        for(Bot bot : bots){
+            if(!bot.joined) continue;
+
+            Player player = Groups.player.find(p -> p.con != null && bot.usid.equals(p.con.usid));
+            if(player == null || player.dead()){
+                bot.unitID = -1;
+            }else{
+                bot.unit(player.unit().id, player.unit().x, player.unit().y);
+            }
+        }
+    }
+
+    /** @return a human-readable summary of all metrics. */
+    public String report(){
+        float seconds = Math.max(Time.timeSinceMillis(startTime) / 1000f, 0.001f);
+        int connected = 0, joined = 0, failed = 0;
+        long bytesIn = 0, bytesOut = 0;
+        FloatSeq joinLatency = new FloatSeq(), spawnLatency = new FloatSeq();
+
+        for(Bot bot : bots){
+            if(bot.client.isConnected()) connected ++;
+            if(bot.joined) joined ++;
+            if(bot.failed) failed ++;
+            bytesIn += bot.bytesIn;
+            bytesOut += bot.bytesOut;
+            if(bot.joinTime > 0) joinLatency.add((bot.joinTime - bot.connectTime) / 1000000f);
+            if(bot.spawnTime > 0) spawnLatency.add((bot.spawnTime - bot.connectTime) / 1000000f);
+        }
+
+        StringBuilder out = new StringBuilder();
+        out.append(Strings.format("Load test against @:@ (@) for @s\n", host, port, behavior, (int)seconds));
+        out.append(Strings.format("  bots: @ total / @ connected / @ joined / @ failed\n", bots.size(), connected, joined, failed));
+        out.append(Strings.format("  join latency (ms): @\n", distribution(joinLatency)));
+        out.append(Strings.format("  spawn latency (ms): @\n", distribution(spawnLatency)));
+        out.append(Strings.format("  download: @ KB/s total, @ B/s per client\n", (int)(bytesIn / seconds / 1024f), (int)(bytesIn / seconds / Math.max(bots.size(), 1))));
+        out.append(Strings.format("  upload: @ KB/s total, @ B/s per client\n", (int)(bytesOut / seconds / 1024f), (int)(bytesOut / seconds / Math.max(bots.size(), 1))));
+
+        if(net.server()){
+            out.append("  server tick (ms, mean / p50 / p95 / p99 / max):\n");
+            for(var section : new TickProfiler.Section[]{profiler.logic, profiler.netServer, profiler.netSync}){
+                var stats = section.stats();
+                if(stats.count == 0) continue;
+                out.append(Strings.format("    @: @ / @ / @ / @ / @\n", section.name, ms(stats.mean), ms(stats.p50), ms(stats.p95), ms(stats.p99), ms(stats.max)));
+            }
+        }
+
+        out.append("  received packets (count / mean size / total KB):\n");
+        synchronized(packets){
+            Seq<PacketStats> sorted = packets.values().toSeq().sort(s -> -s.bytes);
+            for(PacketStats stats : sorted){
+                out.append(Strings.format("    @: @ / @ / @\n", stats.name, stats.count, stats.bytes / Math.max(stats.count, 1), stats.bytes / 1024));
+            }
+        }
+
+        return out.toString();
+    }
+
+    private static String distribution(FloatSeq values){
+        if(values.isEmpty()) return "none";
+        float[] sorted = values.toArray();
+        Arrays.sort(sorted);
+        return Strings.format("mean @ / p50 @ / p95 @ / max @", (int)(values.sum() / values.size), (int)sorted[sorted.length / 2],
+            (int)sorted[Math.min((int)(sorted.length * 0.95f), sorted.length - 1)], (int)sorted[sorted.length - 1]);
+    }
+
+    private static String ms(double nanos){
+        return Strings.fixed((float)(nanos / 1000000.0), 2);
+    }
+
+    private void recordPacket(Object packet, int bytes){
+        String name = packet.getClass().getSimpleName();
+        synchronized(packets){
+            PacketStats stats = packets.get(name);
+            if(stats == null) packets.put(name, stats = new PacketStats(name));
+            stats.count ++;
+            stats.bytes += bytes;
+        }
+    }
+
+    static class PacketStats{
+        final String name;
+        long count, bytes;
+
+        PacketStats(String name){
+            this.name = name;
+        }
+    }
+
+    class Bot implements NetListener{
+        final int index;
+        final Behavior behavior;
+        final Rand rand;
+        final Client client;
+        final String usid;
+
+        //metrics
+        volatile long connectTime, joinTime, spawnTime, bytesIn, bytesOut;
+        volatile boolean joined, failed;
+
+        //stream of the world data; only the ID of the player is read from it
+        int streamID = -1, streamTotal, streamReceived;
+        ByteArrayOutputStream streamData = new ByteArrayOutputStream();
+        volatile int playerID = -1;
+
+        //set on the main thread
+        volatile int unitID = -1;
+        volatile float homeX, homeY;
+
+        float x, y, targetX, targetY, aim;
+        int snapshotID, planSync, planUnit = -1, nextPlanId = 1;
+        IntSeq plans = new IntSeq();
+
+        Bot(int index){
+            this.index = index;
+            this.rand = new Rand(index);
+            this.behavior = LoadTest.this.behavior == Behavior.mixed ? Behavior.all[1 + index % (Behavior.all.length - 2)] : LoadTest.this.behavior;
+            this.usid = "bot-" + Long.toHexString(rand.nextLong());
+            this.client = new Client(8192, 16384, new BotSerializer(this));
+            client.addListener(this);
+        }
+
+        void connect(){
+            connectTime = Time.nanos();
+            try{
+                client.connect(5000, host, port, port);
+
+                ConnectPacket c = new ConnectPacket();
+                c.name = "bot" + index;
+                c.locale = "en";
+                c.mods = new Seq<>();
+                c.mobile = false;
+                c.versionType = Version.type;
+                c.color = rand.nextInt();
+                c.usid = usid;
+                byte[] uuid = new byte[8];
+                rand.nextBytes(uuid);
+                c.uuid = new String(Base64Coder.encode(uuid));
+                client.sendTCP(c);
+            }catch(Exception e){
+                fail(e);
+            }
+        }
+
+        void fail(Exception e){
+            if(!failed){
+                failed = true;
+                joined = false;
+                debug("Load test bot @ failed: @", index, e);
+            }
+        }
+
+        @Override
+        public void disconnected(Connection connection, DcReason reason){
+            joined = false;
+            if(running){
+                failed = true;
+                debug("Load test bot @ disconnected: @", index, reason);
+            }
+        }
+
+        @Override
+        public void received(Connection connection, Object object){
+            if(object instanceof StreamBegin begin){
+                streamID = begin.id;
+                streamTotal = begin.total;
+                streamReceived = 0;
+                streamData.reset();
+            }else if(object instanceof StreamChunk chunk && chunk.id == streamID){
+                streamReceived += chunk.data.length;
+                streamData.write(chunk.data, 0, chunk.data.length);
+
+                //the world has been received; a real client would load it now
+                if(streamReceived >= streamTotal){
+                    streamID = -1;
+                    readPlayerID();
+                    client.sendTCP(new ConnectConfirmCallPacket());
+                    joinTime = Time.nanos();
+                    joined = true;
+                }
+            }else if(object instanceof EntitySnapshotCallPacket snapshot && playerID != -1 && !net.server()){
+                snapshot.handled();
+                short amount = snapshot.amount;
+                byte[] data = snapshot.data;
+                //entities can only be created on the main thread
+                Core.app.post(() -> readSnapshot(amount, data));
+            }
+        }
+
+        /** Reads the ID of this bot's player from the world data, which is written by {@link NetworkIO#writeWorld}. */
+        void readPlayerID(){
+            try(DataInputStream stream = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(streamData.toByteArray())))){
+                stream.readUTF(); //rules
+                stream.readUTF(); //map locales
+                SaveIO.getSaveWriter().readStringMap(stream); //map tags
+                stream.readInt(); //wave
+                stream.readFloat(); //wave time
+                stream.readDouble(); //tick
+                stream.readLong(); //random seeds
+                stream.readLong();
+                playerID = stream.readInt();
+            }catch(IOException e){
+                debug("Load test bot @ could not read its player ID: @", index, e);
+            }
+            streamData = new ByteArrayOutputStream();
+        }
+
+        /** Runs on the main thread. Finds this bot's player in an entity snapshot, and reads its unit. */
+        void readSnapshot(short amount, byte[] data){
+            Reads read = new Reads(new DataInputStream(new ByteArrayInputStream(data)));
+
+            try{
+                for(int i = 0; i < amount; i++){
+                    int id = read.i();
+                    int type = read.ub();
+
+                    if(id == playerID){
+                        readPlayer(read);
+                        return;
+                    }
+
+                    //other entities have to be read completely to get past them; they are discarded
+                    ((Syncc)EntityMapping.map(type).get()).readSync(read);
+                }
+            }catch(Throwable e){
+                debug("Load test bot @ could not read an entity snapshot: @", index, e);
+            }
+        }
+
+        /** Reads the synced fields of this bot's player, in the order of the latest revision of {@code PlayerComp}. */
+        void readPlayer(Reads read){
+            read.bool(); //admin
+            read.bool(); //boosting
+            read.i(); //color
+            read.f(); //mouseX
+            read.f(); //mouseY
+            TypeIO.readString(read); //name
+            read.bool(); //shooting
+            read.b(); //team
+            read.bool(); //typing
+            byte unitType = read.b();
+            int unit = read.i();
+            float x = read.f(), y = read.f();
+
+            //only regular units can be controlled with snapshots
+            if(unitType == 2){
+                unit(unit, x, y);
+            }else{
+                unitID = -1;
+            }
+        }
+
+        /** Runs on the main thread. Sets the unit this bot controls. */
+        void unit(int id, float unitX, float unitY){
+            if(unitID == id) return;
+
+            //spawned with a new unit; remember where it started, so movement is centered there
+            homeX = x = unitX;
+            homeY = y = unitY;
+            unitID = id;
+            planUnit = -1;
+
+            if(spawnTime == 0){
+                spawnTime = Time.nanos();
+            }
+        }
+
+        /** Sends a snapshot and runs the scripted behavior. */
+        void update(long tick){
+            boolean dead = unitID == -1, shooting = false, building = false;
+
+            if(!dead){
+                switch(behavior){
+                    case move, chat -> move();
+                    case shoot -> {
+                        move();
+                        shooting = true;
+                    }
+                    case build -> building = true;
+                }
+            }
+
+            aim += 10f;
+
+            ClientSnapshotCallPacket snapshot = new ClientSnapshotCallPacket();
+            snapshot.snapshotID = snapshotID++;
+            snapshot.unitID = unitID;
+            snapshot.dead = dead;
+            snapshot.x = x;
+            snapshot.y = y;
+            snapshot.pointerX = x + Angles.trnsx(aim, 40f);
+            snapshot.pointerY = y + Angles.trnsy(aim, 40f);
+            snapshot.rotation = aim;
+            snapshot.shooting = shooting;
+            snapshot.building = building;
+            snapshot.viewX = x;
+            snapshot.viewY = y;
+            snapshot.viewWidth = 1920f / 4f;
+            snapshot.viewHeight = 1080f / 4f;
+            client.sendUDP(snapshot);
+
+            if(behavior == Behavior.build && !dead && tick % planTicks < snapshotTicks){
+                syncPlans();
+            }
+
+            if(behavior == Behavior.chat && tick % chatTicks < snapshotTicks){
+                SendChatMessageCallPacket chat = new SendChatMessageCallPacket();
+                chat.message = "load test message " + rand.nextInt(1000);
+                client.sendTCP(chat);
+            }
+        }
+
+        void move(){
+            if(Mathf.within(x, y, targetX, targetY, moveSpeed * snapshotTicks) || !Mathf.within(targetX, targetY, homeX, homeY, moveRange)){
+                targetX = homeX + rand.range(moveRange);
+                targetY = homeY + rand.range(moveRange);
+            }
+
+            float angle = Angles.angle(x, y, targetX, targetY);
+            x += Angles.trnsx(angle, moveSpeed * snapshotTicks);
+            y += Angles.trnsy(angle, moveSpeed * snapshotTicks);
+        }
+
+        /** Alternates between queueing a small schematic of walls next to the spawn point, and removing the plans again. */
+        void syncPlans(){
+            ClientPlanSyncCallPacket packet = new ClientPlanSyncCallPacket();
+
+            //the server resets its plans when the unit changes
+            if(planUnit != unitID){
+                planUnit = unitID;
+                plans.clear();
+            }
+
+            packet.unitID = unitID;
+            packet.syncID = ++planSync;
+
+            if(plans.isEmpty()){
+                int ox = (int)(homeX / tilesize) + rand.range(8), oy = (int)(homeY / tilesize) + rand.range(8);
+                BuildPlan[] added = new BuildPlan[9];
+                for(int i = 0; i < added.length; i++){
+                    added[i] = new BuildPlan(ox + i % 3, oy + i / 3, 0, Blocks.copperWall);
+                    plans.add(nextPlanId++);
+                }
+                packet.head = plans.first();
+                packet.removed = new int[0];
+                packet.addedIds = plans.toArray();
+                packet.added = added;
+            }else{
+                packet.head = -1;
+                packet.removed = plans.toArray();
+                packet.addedIds = new int[0];
+                packet.added = new BuildPlan[0];
+                plans.clear();
+            }
+
+            client.sendUDP(packet);
+        }
+    }
+
+    /** Records the size of every packet of a bot. */
+    class BotSerializer extends ArcNetProvider.PacketSerializer{
+        final Bot bot;
+
+        BotSerializer(Bot bot){
+            this.bot = bot;
+        }
+
+        @Override
+        public Object read(ByteBuffer buffer){
+            int start = buffer.position();
+            Object result = super.read(buffer);
+            int bytes = buffer.position() - start;
+
+            bot.bytesIn += bytes;
+            recordPacket(result, bytes);
+            return result;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, Object o){
+            int start = buffer.position();
+            super.write(buffer, o);
+            bot.bytesOut += buffer.position() - start;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package mindustry.server;
+
+import arc.files.*;
+import arc.math.*;
+import arc.struct.*;
+import arc.util.*;
+import arc.util.io.*;
+import mindustry.core.*;
+import mindustry.core.GameState.*;
+import mindustry.entities.*;
+import mindustry.game.*;
+import mindustry.gen.*;
+import mindustry.io.*;
+import mindustry.net.*;
+import mindustry.net.Packets.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import static mindustry.Vars.*;
+import static mindustry.server.ReplayRecorder.*;
+
+/**
+ * Plays back a replay recorded by {@link ReplayRecorder} as fast as possible, with the profiler enabled.
+ * The recorded world is loaded, and every recorded update is run with its original delta, after handling the packets that arrived before it.
+ * The random generator, entity IDs and global time are set up as they were when recording started, and the server's clock is advanced by the recorded deltas.
+ * Clients are simulated by connections that discard everything sent to them, so only the cost of creating packets is included, not of sending them.
+ * Runs on the main thread and blocks it until playback is done.
+ */
+public class ReplayPlayer{
+    /** Number of slowest updates kept for the summary. */
+    private static final int slowestKept = 5;
+
+    private final IntMap<ReplayConnection> connections = new IntMap<>();
+    private final ReusableByteInStream packetBytes = new ReusableByteInStream();
+    private final Reads packetReads = new Reads(new DataInputStream(packetBytes));
+
+    /** Number of updates and packets played back. */
+    public int ticks, packets;
+    /** Number of checksums that matched and did not match the recording, and the first update where they did not. */
+    public int checksums, mismatches, firstMismatch = -1;
+    /** Total wall time of all updates, and game time passed, in ticks. */
+    public long updateNanos;
+    public float gameTime;
+
+    private final long[] slowestNanos = new long[slowestKept];
+    private final int[] slowestTicks = new int[slowestKept];
+
+    /** Plays back a replay file. The server must not be hosting a game. Returns once the whole replay was played. */
+    public void play(Fi file) throws IOException{
+        boolean profiling = profiler.enabled;
+
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(file.read(), 1 << 16))){
+            byte[] magic = new byte[header.length];
+            in.readFully(magic);
+            if(!Arrays.equals(magic, header)) throw new IOException("Not a replay file.");
+
+            int fileVersion = in.readInt();
+            if(fileVersion != version) throw new IOException("Unsupported replay version: " + fileVersion);
+
+            int build = in.readInt();
+            if(build != Version.build){
+                Log.warn("Replay was recorded on build @, but this is build @. Packets may not be read correctly.", build, Version.build);
+            }
+            in.readLong();
+            long seed = in.readLong();
+            int nextId = in.readInt();
+            float time = in.readFloat();
+
+            byte[] save = new byte[in.readInt()];
+            in.readFully(save);
+            SaveIO.load(new InflaterInputStream(new ByteArrayInputStream(save)), world.context);
+            state.rules.sector = null;
+            state.set(State.playing);
+
+            Mathf.rand.setSeed(seed);
+            EntityGroup.setNextId(nextId);
+            Time.time = time;
+            net.simulateServer(true);
+            netServer.clockOverride = 0;
+            profiler.enabled = true;
+            profiler.reset();
+
+            float[] delta = {1f};
+            Time.setDeltaProvider(() -> delta[0]);
+
+            while(true){
+                byte type = in.readByte();
+                if(type == recordEnd) break;
+
+                switch(type){
+                    case recordTick -> {
+                        delta[0] = in.readFloat();
+                        tick(delta[0]);
+                    }
+                    case recordConnect -> {
+                        int id = in.readInt();
+                        ReplayConnection con = new ReplayConnection(in.readUTF());
+                        connections.put(id, con);
+
+                        Connect connect = new Connect();
+                        connect.addressTCP = con.address;
+                        handle(con, connect);
+                    }
+                    case recordDisconnect -> {
+                        ReplayConnection con = connections.remove(in.readInt());
+                        Disconnect disconnect = new Disconnect();
+                        disconnect.reason = in.readUTF();
+                        if(con != null) handle(con, disconnect);
+                    }
+                    case recordPacket -> {
+                        ReplayConnection con = connections.get(in.readInt());
+                        byte id = in.readByte();
+                        byte[] data = new byte[in.readInt()];
+                        in.readFully(data);
+
+                        if(con != null){
+                            Packet packet = Net.newPacket(id);
+                            packetBytes.setBytes(data);
+                            packet.read(packetReads, data.length);
+                            handle(con, packet);
+                            packets ++;
+                        }
+                    }
+                    case recordJoin -> join(in);
+                    case recordChecksum -> {
+                        int tick = in.readInt();
+                        if(in.readLong() == checksum()){
+                            checksums ++;
+                        }else if(mismatches++ == 0){
+                            firstMismatch = tick;
+                        }
+                    }
+                    default -> throw new IOException("Invalid record type: " + type);
+                }
+            }
+        }finally{
+            profiler.enabled = profiling;
+            connections.clear();
+            net.simulateServer(false);
+            netServer.clockOverride = -1;
+            logic.reset();
+            ServerControl.setDeltaProvider();
+        }
+    }
+
+    /** @return a summary of the playback, including the profiler report. */
+    public String report(){
+        StringBuilder out = new StringBuilder();
+        double seconds = updateNanos / 1_000_000_000.0;
+
+        out.append(Strings.format("Played @ updates (@ seconds of game time) in @ seconds, @x real time. @ packets handled.\n",
+            ticks, Strings.fixed(gameTime / 60f, 1), Strings.fixed((float)seconds, 2), Strings.fixed((float)(gameTime / 60f / Math.max(seconds, 0.001)), 1), packets));
+        out.append(Strings.format("Average update: @ ms\n", Strings.fixed((float)(seconds * 1000.0 / Math.max(ticks, 1)), 3)));
+
+        out.append("Slowest updates:");
+        for(int i = 0; i < slowestKept && slowestNanos[i] > 0; i++){
+            out.append(Strings.format(" #@ (@ ms)", slowestTicks[i], Strings.fixed(slowestNanos[i] / 1_000_000f, 2)));
+        }
+        out.append("\n");
+
+        if(mismatches > 0){
+            out.append(Strings.format("Desync: @ of @ checksums did not match the recording, starting at update @.\n", mismatches, checksums + mismatches, firstMismatch));
+        }else{
+            out.append(Strings.format("All @ checksums matched the recording.\n", checksums));
+        }
+
+        out.append(profiler.report(10));
+        return out.toString();
+    }
+
+    private void tick(float delta){
+        logic.fixedDelta = delta;
+
+        long start = Time.nanos();
+        asyncCore.begin();
+        logic.update();
+        asyncCore.end();
+        netServer.update();
+        long time = Time.timeSinceNanos(start);
+
+        ticks ++;
+        updateNanos += time;
+        gameTime += delta;
+        //the server's clock follows the recorded time, not the time playback takes
+        netServer.clockOverride = (long)(gameTime * 1000f / 60f);
+
+        //keep the slowest updates, sorted by time
+        for(int i = 0; i < slowestKept; i++){
+            if(time > slowestNanos[i]){
+                System.arraycopy(slowestNanos, i, slowestNanos, i + 1, slowestKept - i - 1);
+                System.arraycopy(slowestTicks, i, slowestTicks, i + 1, slowestKept - i - 1);
+                slowestNanos[i] = time;
+                slowestTicks[i] = ticks;
+                break;
+            }
+        }
+    }
+
+    private void join(DataInputStream in) throws IOException{
+        int id = in.readInt(), playerId = in.readInt(), unitId = in.readInt();
+        ReplayConnection con = new ReplayConnection(in.readUTF());
+        con.uuid = in.readUTF();
+        con.usid = in.readUTF();
+
+        //the player keeps its recorded ID, which must not shift the IDs of entities created later
+        int nextId = EntityGroup.peekNextId();
+        Player player = Player.create();
+        EntityGroup.setNextId(nextId);
+        player.id = playerId;
+        player.name = in.readUTF();
+        player.locale = in.readUTF();
+        player.team(Team.get(in.readInt()));
+        player.admin = in.readBoolean();
+        con.mobile = in.readBoolean();
+        player.color.set(in.readInt());
+        player.con = con;
+
+        con.player = player;
+        con.hasBegunConnecting = con.hasConnected = true;
+        connections.put(id, con);
+        player.add();
+
+        //the unit was loaded with the world; without it, the server would spawn a new one
+        Unit unit = Groups.unit.getByID(unitId);
+        if(unit != null){
+            player.unit(unit);
+        }
+    }
+
+    private void handle(NetConnection con, Packet packet){
+        try{
+            net.handleServerReceived(con, packet);
+        }catch(Throwable e){
+            Log.err(e);
+        }
+    }
+
+    /** A client connection that discards everything sent to it. */
+    static class ReplayConnection extends NetConnection{
+        boolean closed;
+
+        ReplayConnection(String address){
+            super(address);
+        }
+
+        @Override
+        public boolean isConnected(){
+            return !closed;
+        }
+
+        @Override
+        public void send(Object object, boolean reliable){
+        }
+
+        @Override
+        public void close(){
+            closed = true;
+        }
+    }
+}
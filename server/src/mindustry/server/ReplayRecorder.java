@@ -0,0 +1,266 @@
+package mindustry.server;
+
+import arc.*;
+import arc.files.*;
+import arc.math.*;
+import arc.struct.*;
+import arc.util.*;
+import arc.util.io.*;
+import mindustry.core.*;
+import mindustry.entities.*;
+import mindustry.game.EventType.*;
+import mindustry.gen.*;
+import mindustry.io.*;
+import mindustry.net.*;
+import mindustry.net.Packets.*;
+
+import java.io.*;
+
+import static mindustry.Vars.*;
+
+/**
+ * Records a replay of the current game: a save of the world when recording starts, followed by every packet received from clients,
+ * and the delta of every update in between. Together, they are enough to run the same updates again with {@link ReplayPlayer}.
+ * The shared random generator is reseeded when recording starts, and the seed is stored along with the next entity ID and the global time.
+ * Players connected when recording starts are stored as they are, including their entity ID and the ID of the unit they control. A checksum of all units and buildings is recorded regularly, to find desyncs.
+ * Recording stops when the game is reset. Main thread only.
+ */
+public class ReplayRecorder{
+    static final byte[] header = {'M', 'R', 'E', 'P'};
+    static final int version = 3;
+    /** Record types. */
+    static final byte recordTick = 0, recordConnect = 1, recordDisconnect = 2, recordPacket = 3, recordJoin = 4, recordChecksum = 5, recordEnd = -1;
+    /** Number of updates between checksums. */
+    static final int checksumInterval = 300;
+
+    private final ObjectIntMap<NetConnection> connections = new ObjectIntMap<>();
+    private final ReusableByteOutStream packetBytes = new ReusableByteOutStream(512);
+    private final Writes packetWrites = new Writes(new DataOutputStream(packetBytes));
+
+    private @Nullable DataOutputStream stream;
+    private @Nullable Fi file;
+    private int nextConnection, ticks, packets, failed;
+    private boolean tickPending;
+
+    public ReplayRecorder(){
+        Events.run(Trigger.update, () -> {
+            if(stream == null) return;
+
+            flushTick();
+            tickPending = true;
+
+            if(++ticks % checksumInterval == 0){
+                write(out -> {
+                    out.writeByte(recordChecksum);
+                    out.writeInt(ticks);
+                    out.writeLong(checksum());
+                });
+            }
+        });
+
+        Events.on(ResetEvent.class, e -> {
+            if(stream != null){
+                Log.info("Replay recording stopped, as the game was reset.");
+                stop();
+            }
+        });
+    }
+
+    /** @return whether a replay is being recorded. */
+    public boolean recording(){
+        return stream != null;
+    }
+
+    /** @return the file being recorded to, if any. */
+    public @Nullable Fi file(){
+        return file;
+    }
+
+    /** @return the number of updates recorded so far. */
+    public int ticks(){
+        return ticks;
+    }
+
+    /** @return the number of packets recorded so far. */
+    public int packets(){
+        return packets;
+    }
+
+    /** Starts recording to a file, stopping any previous recording. The game must be running. */
+    public void start(Fi file) throws IOException{
+        stop();
+
+        file.parent().mkdirs();
+        ByteArrayOutputStream save = new ByteArrayOutputStream();
+        SaveIO.write(new FastDeflaterOutputStream(save), null);
+
+        //game logic uses the shared random generator, so it is reseeded with a seed that playback can use as well
+        long seed = System.nanoTime();
+        Mathf.rand.setSeed(seed);
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file.write(false), 1 << 16));
+        out.write(header);
+        out.writeInt(version);
+        out.writeInt(Version.build);
+        out.writeLong(Time.millis());
+        out.writeLong(seed);
+        out.writeInt(EntityGroup.peekNextId());
+        out.writeFloat(Time.time);
+        out.writeInt(save.size());
+        save.writeTo(out);
+
+        this.stream = out;
+        this.file = file;
+        ticks = packets = failed = nextConnection = 0;
+        tickPending = false;
+        connections.clear();
+
+        //players that are already here cannot be connected again, so their state is stored instead
+        for(Player player : Groups.player){
+            if(player.con == null) continue;
+
+            NetConnection con = player.con;
+            int id = id(con);
+            write(o -> {
+                o.writeByte(recordJoin);
+                o.writeInt(id);
+                o.writeInt(player.id);
+                o.writeInt(player.dead() ? -1 : player.unit().id);
+                o.writeUTF(con.address);
+                o.writeUTF(con.uuid);
+                o.writeUTF(con.usid);
+                o.writeUTF(player.name);
+                o.writeUTF(player.locale == null ? "en" : player.locale);
+                o.writeInt(player.team().id);
+                o.writeBoolean(player.admin);
+                o.writeBoolean(con.mobile);
+                o.writeInt(player.color.rgba());
+            });
+        }
+
+        net.serverReceiveListener = this::received;
+    }
+
+    /** Finishes the current recording, if any. */
+    public void stop(){
+        if(stream == null) return;
+
+        flushTick();
+        write(out -> out.writeByte(recordEnd));
+
+        try{
+            stream.close();
+        }catch(IOException e){
+            Log.err("Failed to close replay file", e);
+        }
+
+        Log.info("Recorded @ updates and @ packets to @.@", ticks, packets, file.absolutePath(), failed > 0 ? " " + failed + " packets could not be written." : "");
+
+        net.serverReceiveListener = null;
+        stream = null;
+        file = null;
+        connections.clear();
+    }
+
+    /** @return a checksum of the position and health of every unit and building. */
+    public static long checksum(){
+        long hash = 0xcbf29ce484222325L;
+        for(Unit unit : Groups.unit){
+            hash = mix(hash, unit.id);
+            hash = mix(hash, unit.type.id);
+            hash = mix(hash, Float.floatToIntBits(unit.x));
+            hash = mix(hash, Float.floatToIntBits(unit.y));
+            hash = mix(hash, Float.floatToIntBits(unit.health));
+        }
+        for(Building build : Groups.build){
+            hash = mix(hash, build.pos());
+            hash = mix(hash, build.block.id);
+            hash = mix(hash, Float.floatToIntBits(build.health));
+        }
+        return mix(hash, state.wave);
+    }
+
+    private static long mix(long hash, int value){
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+    private void received(NetConnection con, Packet packet){
+        if(stream == null) return;
+
+        flushTick();
+
+        if(packet instanceof Connect c){
+            int id = id(con);
+            write(out -> {
+                out.writeByte(recordConnect);
+                out.writeInt(id);
+                out.writeUTF(c.addressTCP == null ? con.address : c.addressTCP);
+            });
+        }else if(packet instanceof Disconnect d){
+            int id = connections.get(con, -1);
+            if(id == -1) return;
+
+            connections.remove(con, -1);
+            write(out -> {
+                out.writeByte(recordDisconnect);
+                out.writeInt(id);
+                out.writeUTF(d.reason == null ? "" : d.reason);
+            });
+        }else{
+            //packets of connections from before the recording started are skipped, unless they belong to a player
+            int id = connections.get(con, -1);
+            if(id == -1) return;
+
+            try{
+                packetBytes.reset();
+                packet.write(packetWrites);
+            }catch(Throwable e){
+                failed ++;
+                return;
+            }
+
+            packets ++;
+            write(out -> {
+                out.writeByte(recordPacket);
+                out.writeInt(id);
+                out.writeByte(Net.getPacketId(packet));
+                out.writeInt(packetBytes.size());
+                out.write(packetBytes.getBytes(), 0, packetBytes.size());
+            });
+        }
+    }
+
+    /** Writes the update that was started last, now that its delta is known. */
+    private void flushTick(){
+        if(!tickPending) return;
+
+        tickPending = false;
+        write(out -> {
+            out.writeByte(recordTick);
+            out.writeFloat(Time.delta);
+        });
+    }
+
+    private int id(NetConnection con){
+        int id = connections.get(con, -1);
+        if(id == -1){
+            connections.put(con, id = nextConnection++);
+        }
+        return id;
+    }
+
+    private void write(RecordWriter writer){
+        try{
+            writer.write(stream);
+        }catch(IOException e){
+            Log.err("Failed to write replay; recording stopped", e);
+            stream = null;
+            file = null;
+            net.serverReceiveListener = null;
+        }
+    }
+
+    interface RecordWriter{
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -42,6 +42,10 @@ public class ServerControl implements ApplicationListener{
 
     /** Global instance of ServerControl, initialized when the server is created. Should never be null on a dedicated server. */
     public static ServerControl instance;
+    /** Metrics of this server. Always collected, but only served if enabled in the config. */
+    public static final ServerMetrics metrics = new ServerMetrics();
+    /** The loop that updates the game, if fixed step mode is enabled. */
+    public static @Nullable FixedStepLoop fixedStep;
 
     public final CommandHandler handler = new CommandHandler("");
     public final Fi logFolder = Core.settings.getDataDirectory().child("logs/");
@@ -56,8 +60,17 @@ public class ServerControl implements ApplicationListener{
         }
     };
 
-    /** The file to which the logs are currently being written. */
-    public Fi currentLogFile;
+    /** Writes logs to the console, log files and the command socket without blocking. */
+    public final AsyncLogWriter logWriter = new AsyncLogWriter(logFolder, Config.maxLogLength.num());
+    /**
+     * The file to which the logs were being written when the last line was logged. Updated after every line; assigning it has no effect.
+     * @deprecated logs are written on another thread; use {@link #currentLogFile()}.
+     */
+    @Deprecated
+    public volatile @Nullable Fi currentLogFile;
+    /** Records replays of games on this server. */
+    public final ReplayRecorder recorder = new ReplayRecorder();
+    public final Fi replayFolder = Core.settings.getDataDirectory().child("replays/");
 
     /** Whether the server is currently waiting for the next map to be loaded. */
     public boolean inGameOverWait;
@@ -68,8 +81,8 @@ public class ServerControl implements ApplicationListener{
     private Task lastTask;
     private Thread socketThread;
     private ServerSocket serverSocket;
-    private PrintWriter socketOutput;
     private String suggested;
+    private @Nullable LoadTest loadTest;
     private boolean autoPaused = false;
 
     public Cons<GameOverEvent> gameOverListener = event -> {
@@ -123,24 +136,12 @@ public class ServerControl implements ApplicationListener{
             lastMode = Gamemode.survival;
         }
 
+        //formatting and writing happens on the log writer thread
         logger = (level1, text) -> {
-            //err has red text instead of reset.
-            if(level1 == LogLevel.err) text = text.replace(reset, lightRed + bold);
-
-            String result = bold + lightBlack + "[" + dateTime.format(LocalDateTime.now()) + "] " + reset + format(tags[level1.ordinal()] + " " + text + "&fr");
-            System.out.println(result);
-
-            if(Config.logging.bool()){
-                logToFile("[" + dateTime.format(LocalDateTime.now()) + "] " + formatColors(tags[level1.ordinal()] + " " + text + "&fr", false));
-            }
-
-            if(socketOutput != null){
-                try{
-                    socketOutput.println(formatColors(text + "&fr", false));
-                }catch(Throwable e1){
-                    err("Error occurred logging to socket: @", e1.getClass().getSimpleName());
-                }
-            }
+            boolean toFile = Config.logging.bool();
+            if(toFile) logWriter.maxFileSize = Config.maxLogLength.num();
+            logWriter.log(level1, text, toFile);
+            currentLogFile = logWriter.currentFile();
         };
 
         formatter = (text, useColors, arg) -> {
@@ -148,7 +149,7 @@ public class ServerControl implements ApplicationListener{
             return useColors ? addColors(text) : removeColors(text);
         };
 
-        Time.setDeltaProvider(() -> Math.min(Core.graphics.getDeltaTime() * 60f, maxDeltaServer));
+        setDeltaProvider();
 
         registerCommands();
 
@@ -240,7 +241,9 @@ public class ServerControl implements ApplicationListener{
                     info("Autosaving...");
 
                     try{
+                        long start = Time.nanos();
                         SaveIO.save(file);
+                        metrics.saveTime.recordNanos(Time.timeSinceNanos(start));
                         info("Autosave completed.");
                     }catch(Throwable e){
                         err("Autosave failed.", e);
@@ -254,6 +257,11 @@ public class ServerControl implements ApplicationListener{
             toggleSocket(Config.socketInput.bool());
         });
 
+        Events.run(Trigger.metricsConfigChanged, () -> {
+            metrics.toggle(false, null, 0);
+            toggleMetrics();
+        });
+
         Events.on(PlayEvent.class, e -> {
             try{
                 JsonValue value = JsonIO.json.fromJson(null, Core.settings.getString("globalrules"));
@@ -284,6 +292,7 @@ public class ServerControl implements ApplicationListener{
         }
 
         toggleSocket(Config.socketInput.bool());
+        toggleMetrics();
 
         Events.on(ServerLoadEvent.class, e -> {
             if(serverInput != null){
@@ -467,6 +476,9 @@ public class ServerControl implements ApplicationListener{
                 info("  @ units / @ enemies", Groups.unit.size(), state.enemies);
 
                 info("  @ FPS, @ MB used.", Core.graphics.getFramesPerSecond(), Core.app.getJavaHeap() / 1024 / 1024);
+                if(fixedStep != null){
+                    info("  Fixed step: @ ticks/s, @ ticks run, @ skipped.", fixedStep.tickRate, fixedStep.ticks, fixedStep.skipped);
+                }
 
                 if(Groups.player.size() > 0){
                     info("  Players: @", Groups.player.size());
@@ -985,7 +997,9 @@ public class ServerControl implements ApplicationListener{
             Fi file = saveDirectory.child(arg[0] + "." + saveExtension);
 
             Core.app.post(() -> {
+                long start = Time.nanos();
                 SaveIO.save(file);
+                metrics.saveTime.recordNanos(Time.timeSinceNanos(start));
                 info("Saved to @.", file);
             });
         });
@@ -1052,6 +1066,164 @@ public class ServerControl implements ApplicationListener{
             info("@ MB collected. Memory usage now at @ MB.", pre - post, post);
         });
 
+        handler.register("profile", "[on/off/reset/export] [file]", "Display rolling tick timings per subsystem, or control the profiler.", arg -> {
+            if(arg.length == 0){
+                if(!profiler.enabled){
+                    info("Profiler is disabled. Enable it with 'profile on'.");
+                    return;
+                }
+                info(profiler.report(10).trim());
+                return;
+            }
+
+            switch(arg[0]){
+                case "on", "off" -> {
+                    profiler.enabled = arg[0].equals("on");
+                    info(profiler.enabled ? "Profiler enabled." : "Profiler disabled.");
+                }
+                case "reset" -> {
+                    profiler.reset();
+                    info("Profiler samples cleared.");
+                }
+                case "export" -> {
+                    Fi file = arg.length > 1 ? Core.files.local(arg[1]) : Core.files.local("profile-" + Time.millis() + ".csv");
+                    file.writeString(profiler.export());
+                    info("Profiler snapshot written to @.", file.absolutePath());
+                }
+                default -> err("Invalid argument. Usage: profile [on/off/reset/export] [file]");
+            }
+        });
+
+        handler.register("packets", "[reset/player...]", "Display sent packets by type, for all connections or for one player.", arg -> {
+            if(arg.length == 0){
+                info(Net.sentStats.report(15).trim());
+                return;
+            }
+
+            if(arg[0].equals("reset")){
+                Net.sentStats.reset();
+                for(NetConnection con : net.getConnections()){
+                    con.packetStats.reset();
+                }
+                info("Packet statistics cleared.");
+                return;
+            }
+
+            Player target = Groups.player.find(p -> p.name().equalsIgnoreCase(arg[0]) || p.plainName().equalsIgnoreCase(arg[0]));
+            if(target == null || target.con == null){
+                err("No player with that name found.");
+                return;
+            }
+
+            info("Packets sent to @:", target.plainName());
+            info(target.con.packetStats.report(15).trim());
+        });
+
+        handler.register("replay", "<record/stop/play> [name]", "Record the current game to a replay, or play back a replay as fast as possible with the profiler enabled.", arg -> {
+            switch(arg[0]){
+                case "record" -> {
+                    if(!state.isGame()){
+                        err("Not hosting. Host a game first.");
+                        return;
+                    }
+
+                    Fi file = replayFolder.child((arg.length > 1 ? arg[1] : "replay-" + autosaveDate.format(LocalDateTime.now())) + ".mrep");
+                    try{
+                        recorder.start(file);
+                        info("Recording replay to @.", file.absolutePath());
+                    }catch(IOException e){
+                        err("Failed to start recording: @", e.getMessage());
+                    }
+                }
+                case "stop" -> {
+                    if(!recorder.recording()){
+                        err("Not recording a replay.");
+                        return;
+                    }
+                    recorder.stop();
+                }
+                case "play" -> {
+                    if(arg.length < 2){
+                        err("Specify the replay to play back.");
+                        return;
+                    }
+                    if(state.isGame()){
+                        err("Already hosting. Type 'stop' to stop hosting first.");
+                        return;
+                    }
+
+                    Fi file = replayFolder.child(arg[1] + ".mrep");
+                    if(!file.exists()){
+                        file = Core.files.local(arg[1]);
+                    }
+                    if(!file.exists()){
+                        err("No replay with that name found.");
+                        return;
+                    }
+
+                    info("Playing back @...", file.name());
+                    ReplayPlayer player = new ReplayPlayer();
+                    try{
+                        player.play(file);
+                    }catch(Throwable e){
+                        err("Playback stopped early: @", Strings.getSimpleMessage(e));
+                    }
+                    info(player.report().trim());
+                }
+                default -> err("Invalid argument. Usage: replay <record/stop/play> [name]");
+            }
+        });
+
+        handler.register("loadtest", "<start/add/stop/report> [bots] [behavior] [host] [port]", "Connect simulated players to a server and measure its load.", arg -> {
+            switch(arg[0]){
+                case "start", "add" -> {
+                    if(arg.length < 2 || !Strings.canParsePositiveInt(arg[1])){
+                        err("Specify a positive amount of bots.");
+                        return;
+                    }
+
+                    if(loadTest == null || !loadTest.running()){
+                        LoadTest.Behavior behavior;
+                        try{
+                            behavior = arg.length > 2 ? LoadTest.Behavior.valueOf(arg[2]) : LoadTest.Behavior.mixed;
+                        }catch(IllegalArgumentException e){
+                            err("Invalid behavior. Valid behaviors: @", Arrays.toString(LoadTest.Behavior.all));
+                            return;
+                        }
+
+                        if(arg.length > 4 && !Strings.canParsePositiveInt(arg[4])){
+                            err("Invalid port.");
+                            return;
+                        }
+
+                        loadTest = new LoadTest(arg.length > 3 ? arg[3] : "localhost", arg.length > 4 ? Strings.parseInt(arg[4]) : Config.port.num(), behavior);
+                    }
+
+                    loadTest.add(Strings.parseInt(arg[1]));
+                    info("Connecting @ bots to @:@.", arg[1], loadTest.host, loadTest.port);
+                }
+                case "stop" -> {
+                    if(loadTest == null || !loadTest.running()){
+                        err("No load test is running.");
+                        return;
+                    }
+
+                    info(loadTest.report().trim());
+                    loadTest.stop();
+                    info("Load test stopped.");
+                }
+                case "report" -> {
+                    if(loadTest == null){
+                        err("No load test has been started.");
+                        return;
+                    }
+
+                    info(loadTest.report().trim());
+                }
+                default -> err("Invalid argument. Usage: loadtest <start/add/stop/report> [bots] [behavior] [host] [port]");
+            }
+        });
+
         handler.register("yes", "Run the last suggested incorrect command.", arg -> {
             if(suggested == null){
                 err("There is nothing to say yes to.");
@@ -1063,6 +1235,18 @@ public class ServerControl implements ApplicationListener{
         mods.eachClass(p -> p.registerServerCommands(handler));
     }
 
+    /** Sets up the delta of game updates: constant in fixed step mode, and based on frame time otherwise. */
+    static void setDeltaProvider(){
+        if(fixedStep != null){
+            float delta = fixedStep.delta();
+            Time.setDeltaProvider(() -> delta);
+            logic.fixedDelta = delta;
+        }else{
+            Time.setDeltaProvider(() -> Math.min(Core.graphics.getDeltaTime() * 60f, maxDeltaServer));
+            logic.fixedDelta = 0f;
+        }
+    }
+
     public void handleCommandString(String line){
         CommandResponse response = handler.handleMessage(line);
 
@@ -1152,26 +1336,18 @@ public class ServerControl implements ApplicationListener{
         }
     }
 
+    /** Queues a line to be written to the current log file, as is. */
     public void logToFile(String text){
-        if(currentLogFile != null && currentLogFile.length() > Config.maxLogLength.num()){
-            currentLogFile.writeString("[End of log file. Date: " + dateTime.format(LocalDateTime.now()) + "]\n", true);
-            currentLogFile = null;
-        }
-
-        for(String value : values){
-            text = text.replace(value, "");
-        }
-
-        if(currentLogFile == null){
-            int i = 0;
-            while(logFolder.child("log-" + i + ".txt").length() >= Config.maxLogLength.num()){
-                i++;
-            }
+        logWriter.logToFile(text);
+    }
 
-            currentLogFile = logFolder.child("log-" + i + ".txt");
-        }
+    /** @return the file to which the logs are currently being written, or null if nothing has been written yet. */
+    public @Nullable Fi currentLogFile(){
+        return logWriter.currentFile();
+    }
 
-        currentLogFile.writeString(text + "\n", true);
+    private void toggleMetrics(){
+        metrics.toggle(Config.metrics.bool(), Config.metricsAddress.string(), Config.metricsPort.num());
     }
 
     public void toggleSocket(boolean on){
@@ -1184,14 +1360,14 @@ public class ServerControl implements ApplicationListener{
                         Socket client = serverSocket.accept();
                         info("&lkReceived command socket connection: &fi@", serverSocket.getLocalSocketAddress());
                         BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream()));
-                        socketOutput = new PrintWriter(client.getOutputStream(), true);
+                        logWriter.socketOutput = new PrintWriter(client.getOutputStream(), true);
                         String line;
                         while(client.isConnected() && (line = in.readLine()) != null){
                             String result = line;
                             Core.app.post(() -> handleCommandString(result));
                         }
                         info("&lkLost command socket connection: &fi@", serverSocket.getLocalSocketAddress());
-                        socketOutput = null;
+                        logWriter.socketOutput = null;
                     }
                 }catch(BindException b){
                     err("Command input socket already in use. Is another instance of the server running?");
@@ -1212,7 +1388,7 @@ public class ServerControl implements ApplicationListener{
                 err(e);
             }
             socketThread = null;
-            socketOutput = null;
+            logWriter.socketOutput = null;
         }
     }
 }
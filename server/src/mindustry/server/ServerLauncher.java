@@ -9,6 +9,7 @@ import mindustry.ctype.*;
 import mindustry.game.EventType.*;
 import mindustry.mod.*;
 import mindustry.mod.Mods.*;
+import mindustry.net.Administration.*;
 import mindustry.net.Net;
 import mindustry.net.*;
 import mindustry.ui.*;
@@ -71,11 +72,23 @@ public class ServerLauncher implements ApplicationListener{
 
         bases.load();
 
-        Core.app.addListener(new ApplicationListener(){public void update(){ asyncCore.begin(); }});
-        Core.app.addListener(logic = new Logic());
-        Core.app.addListener(netServer = new NetServer());
-        Core.app.addListener(new ServerControl(args));
-        Core.app.addListener(new ApplicationListener(){public void update(){ asyncCore.end(); }});
+        ApplicationListener
+        asyncBegin = new ApplicationListener(){public void update(){ asyncCore.begin(); }},
+        asyncEnd = new ApplicationListener(){public void update(){ asyncCore.end(); }};
+
+        if(Config.fixedStep.bool()){
+            //network and server control run at their own rate, after the ticks of each frame
+            fixedStep = new FixedStepLoop(Config.fixedStepRate.num(), Config.fixedStepNetRate.num(), Config.fixedStepCatchUp.num());
+            fixedStep.tick.addAll(asyncBegin, logic = new Logic(), asyncEnd);
+            fixedStep.network.addAll(netServer = new NetServer(), new ServerControl(args));
+            Core.app.addListener(fixedStep);
+        }else{
+            Core.app.addListener(asyncBegin);
+            Core.app.addListener(logic = new Logic());
+            Core.app.addListener(netServer = new NetServer());
+            Core.app.addListener(new ServerControl(args));
+            Core.app.addListener(asyncEnd);
+        }
 
         mods.eachClass(Mod::init);
 
@@ -0,0 +1,416 @@
+package mindustry.server;
+
+import arc.*;
+import arc.func.*;
+import arc.struct.*;
+import arc.util.*;
+import mindustry.core.*;
+import mindustry.game.EventType.*;
+import mindustry.gen.*;
+import mindustry.net.*;
+
+import java.io.*;
+import java.lang.management.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static arc.util.Log.*;
+import static mindustry.Vars.*;
+
+/**
+ * Counters, gauges and histograms of a dedicated server, served over HTTP in the Prometheus text format.
+ * Counters and histograms are updated as things happen, without allocating, so they can always stay enabled.
+ * Gauges are only read when metrics are requested, on the main thread.
+ * The time of each part of a server update is read from the running totals of the {@link TickProfiler} sections.
+ */
+public class ServerMetrics{
+    /** Default histogram buckets for durations, in seconds. */
+    public static final double[] timeBuckets = {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.016, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5};
+    /** Maximum time to wait for the main thread to read gauges, in milliseconds. */
+    private static final long scrapeTimeout = 5000, returnTripInterval = 5000;
+
+    private final OrderedMap<String, Metric> metrics = new OrderedMap<>();
+
+    public final Histogram
+    tickTime = histogram("mindustry_tick_seconds", "Duration of a server update.", timeBuckets),
+    saveTime = histogram("mindustry_save_seconds", "Duration of saving the game.", timeBuckets),
+    returnTripTime = histogram("mindustry_connection_rtt_seconds", "Round trip times of client connections, measured every few seconds.", 0.01, 0.025, 0.05, 0.1, 0.15, 0.2, 0.3, 0.5, 1, 2);
+
+    /** Profiler sections of the parts of a server update, in order. */
+    private final TickProfiler.Section[] phases = {profiler.asyncBegin, profiler.logic, profiler.netServer, profiler.asyncEnd};
+
+    //main thread only
+    private long ticks, lastPhaseTime, lastReturnTrip;
+
+    private @Nullable Thread thread;
+    private volatile @Nullable ServerSocket serverSocket;
+
+    public ServerMetrics(){
+        profiler.totals = true;
+        Events.run(Trigger.update, this::update);
+
+        sampled("mindustry_ticks_total", "Number of server updates.", "counter", out -> out.sample("", ticks));
+        sampled("mindustry_phase_seconds_total", "Total time spent in each part of server updates.", "counter", out -> {
+            for(var phase : phases){
+                out.sample("phase=\"" + phase.name + "\"", phase.totalTime() / 1_000_000_000.0);
+            }
+        });
+        sampled("mindustry_skipped_ticks_total", "Number of ticks skipped in fixed step mode, because the server could not keep up.", "counter", out -> {
+            if(ServerControl.fixedStep != null) out.sample("", ServerControl.fixedStep.skipped);
+        });
+        gauge("mindustry_fps", "Server updates per second.", () -> Core.graphics.getFramesPerSecond());
+        gauge("mindustry_heap_bytes", "Used Java heap.", () -> Core.app.getJavaHeap());
+
+        sampled("mindustry_entities", "Number of entities in each group.", "gauge", out -> {
+            out.sample("group=\"all\"", Groups.all.size());
+            out.sample("group=\"player\"", Groups.player.size());
+            out.sample("group=\"unit\"", Groups.unit.size());
+            out.sample("group=\"build\"", Groups.build.size());
+            out.sample("group=\"bullet\"", Groups.bullet.size());
+            out.sample("group=\"fire\"", Groups.fire.size());
+            out.sample("group=\"puddle\"", Groups.puddle.size());
+            out.sample("group=\"weather\"", Groups.weather.size());
+            out.sample("group=\"label\"", Groups.label.size());
+            out.sample("group=\"power-graph\"", Groups.powerGraph.size());
+        });
+        gauge("mindustry_sleeping_buildings", "Number of buildings asleep because their whole region is idle.", () -> World.sleepRegions.sleepingBuildings);
+
+        sampled("mindustry_pathfinder_queue", "Number of tasks waiting for each pathfinding thread.", "gauge", out -> {
+            if(pathfinder != null) out.sample("thread=\"flowfield\"", pathfinder.queueSize());
+            if(controlPath != null) out.sample("thread=\"control\"", controlPath.taskQueue().size());
+        });
+
+        sampled("mindustry_packets_sent_total", "Number of packets sent, by type.", "counter", out -> writePackets(out, Net.sentStats.packets));
+        sampled("mindustry_packets_sent_bytes_total", "Bytes of packets sent, by type, including headers and after compression.", "counter", out -> writePackets(out, Net.sentStats.bytes));
+        sampled("mindustry_packets_sent_raw_bytes_total", "Bytes of packets sent, by type, including headers and before compression.", "counter", out -> writePackets(out, Net.sentStats.rawBytes));
+        sampled("mindustry_packets_dropped_total", "Number of unreliable packets dropped because of packet budgets, by type.", "counter", out -> writePackets(out, Net.sentStats.dropped));
+
+        sampled("mindustry_gc_collections_total", "Number of garbage collections, by collector.", "counter", out -> {
+            for(GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()){
+                out.sample("gc=\"" + bean.getName() + "\"", Math.max(bean.getCollectionCount(), 0));
+            }
+        });
+        sampled("mindustry_gc_seconds_total", "Total time spent in garbage collection, by collector.", "counter", out -> {
+            for(GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()){
+                out.sample("gc=\"" + bean.getName() + "\"", Math.max(bean.getCollectionTime(), 0) / 1000.0);
+            }
+        });
+    }
+
+    /**
+     * Called at the start of every game update. Records the time of the previous update, which is the time of all its parts since the last call;
+     * in fixed step mode, this includes network updates since the last tick.
+     */
+    private void update(){
+        long phaseTime = 0;
+        for(var phase : phases){
+            phaseTime += phase.totalTime();
+        }
+
+        if(ticks > 0) tickTime.recordNanos(phaseTime - lastPhaseTime);
+        lastPhaseTime = phaseTime;
+        ticks ++;
+
+        if(Time.timeSinceMillis(lastReturnTrip) >= returnTripInterval){
+            lastReturnTrip = Time.millis();
+
+            for(NetConnection con : net.getConnections()){
+                int time = con.getReturnTripTime();
+                if(time >= 0) returnTripTime.record(time / 1000.0);
+                con.updateReturnTripTime();
+            }
+        }
+    }
+
+    private static void writePackets(Samples out, AtomicLongArray values){
+        for(int i = 0; i < values.length(); i++){
+            long value = values.get(i);
+            Class<?> type = Net.getPacketClass(i);
+            if(value > 0 && type != null){
+                out.sample("type=\"" + type.getSimpleName() + "\"", value);
+            }
+        }
+    }
+
+    /** Registers a counter, which can only increase. */
+    public Counter counter(String name, String help){
+        return add(new Counter(name, help));
+    }
+
+    /** Registers a histogram with the specified upper bucket bounds, in ascending order. */
+    public Histogram histogram(String name, String help, double... buckets){
+        return add(new Histogram(name, help, buckets));
+    }
+
+    /** Registers a gauge with a single value. */
+    public void gauge(String name, String help, Floatp value){
+        add(new Sampled(name, help, "gauge", out -> out.sample("", value.get())));
+    }
+
+    /**
+     * Registers a metric with any number of values, which are read when metrics are requested.
+     * @param type the Prometheus type; gauge or counter
+     */
+    public void sampled(String name, String help, String type, Cons<Samples> sampler){
+        add(new Sampled(name, help, type, sampler));
+    }
+
+    private <T extends Metric> T add(T metric){
+        synchronized(metrics){
+            if(metrics.containsKey(metric.name)) throw new IllegalArgumentException("Duplicate metric: " + metric.name);
+            metrics.put(metric.name, metric);
+        }
+        return metric;
+    }
+
+    /** @return all metrics in the Prometheus text format. Main thread only. */
+    public String write(){
+        StringBuilder out = new StringBuilder(4096);
+        Samples samples = new Samples(out);
+
+        synchronized(metrics){
+            for(Metric metric : metrics.values()){
+                out.append("# HELP ").append(metric.name).append(' ').append(metric.help).append('\n');
+                out.append("# TYPE ").append(metric.name).append(' ').append(metric.type).append('\n');
+                samples.name = metric.name;
+                metric.write(samples);
+            }
+        }
+
+        return out.toString();
+    }
+
+    /** Starts or stops serving metrics on a local port. */
+    public void toggle(boolean on, String address, int port){
+        if(on && thread == null){
+            thread = Threads.daemon("Metrics Server", () -> {
+                ServerSocket socket = null;
+                try{
+                    socket = serverSocket = new ServerSocket();
+                    //metrics may have been turned off before the socket was assigned, in which case nothing else will close it
+                    if(Thread.currentThread().isInterrupted()){
+                        socket.close();
+                        return;
+                    }
+
+                    socket.bind(new InetSocketAddress(address, port));
+                    info("Serving metrics on &fi@.", socket.getLocalSocketAddress());
+
+                    while(true){
+                        try(Socket client = socket.accept()){
+                            client.setSoTimeout(5000);
+                            respond(client);
+                        }catch(SocketTimeoutException ignored){
+                        }
+                    }
+                }catch(BindException b){
+                    err("Metrics port @ is already in use.", port);
+                }catch(IOException e){
+                    if(!"Socket closed".equals(e.getMessage())){
+                        err("Terminating metrics server.");
+                        err(e);
+                    }
+                }finally{
+                    if(socket != null && !socket.isClosed()){
+                        try{
+                            socket.close();
+                        }catch(IOException ignored){
+                        }
+                    }
+                }
+            });
+        }else if(!on && thread != null){
+            thread.interrupt();
+            try{
+                if(serverSocket != null) serverSocket.close();
+            }catch(IOException e){
+                err(e);
+            }
+            thread = null;
+            serverSocket = null;
+        }
+    }
+
+    private void respond(Socket client) throws IOException{
+        BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+        String request = in.readLine();
+        if(request == null) return;
+
+        //skip headers
+        String line;
+        while((line = in.readLine()) != null && !line.isEmpty());
+
+        String[] parts = request.split(" ");
+        String status, body;
+
+        if(parts.length < 2 || !parts[0].equals("GET")){
+            status = "405 Method Not Allowed";
+            body = "";
+        }else if(!parts[1].equals("/metrics") && !parts[1].equals("/")){
+            status = "404 Not Found";
+            body = "";
+        }else{
+            //gauges read game state, which is only safe on the main thread
+            CompletableFuture<String> result = new CompletableFuture<>();
+            Core.app.post(() -> {
+                try{
+                    result.complete(write());
+                }catch(Throwable e){
+                    result.completeExceptionally(e);
+                }
+            });
+
+            try{
+                body = result.get(scrapeTimeout, TimeUnit.MILLISECONDS);
+                status = "200 OK";
+            }catch(TimeoutException e){
+                status = "503 Service Unavailable";
+                body = "Main thread did not respond in time.\n";
+            }catch(Exception e){
+                status = "500 Internal Server Error";
+                body = Strings.getSimpleMessage(e) + "\n";
+            }
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        OutputStream out = client.getOutputStream();
+        out.write(("HTTP/1.1 " + status + "\r\n" +
+            "Content-Type: text/plain; version=0.0.4; charset=utf-8\r\n" +
+            "Content-Length: " + bytes.length + "\r\n" +
+            "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.flush();
+    }
+
+    /** Writes the values of a metric. */
+    public static class Samples{
+        private final StringBuilder out;
+        private String name;
+
+        Samples(StringBuilder out){
+            this.out = out;
+        }
+
+        /** @param labels labels in the Prometheus format without braces, e.g. {@code group="unit"}; empty for none */
+        public void sample(String labels, double value){
+            sample("", labels, value);
+        }
+
+        void sample(String suffix, String labels, double value){
+            out.append(name).append(suffix);
+            if(!labels.isEmpty()){
+                out.append('{').append(labels).append('}');
+            }
+            out.append(' ');
+            if(value == (long)value){
+                out.append((long)value);
+            }else if(Double.isInfinite(value)){
+                out.append(value > 0 ? "+Inf" : "-Inf");
+            }else{
+                out.append(value);
+            }
+            out.append('\n');
+        }
+    }
+
+    abstract static class Metric{
+        final String name, help, type;
+
+        Metric(String name, String help, String type){
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        abstract void write(Samples out);
+    }
+
+    public static class Counter extends Metric{
+        private final AtomicLong value = new AtomicLong();
+
+        Counter(String name, String help){
+            super(name, help, "counter");
+        }
+
+        public void increment(){
+            value.incrementAndGet();
+        }
+
+        public void add(long amount){
+            value.addAndGet(amount);
+        }
+
+        public long get(){
+            return value.get();
+        }
+
+        @Override
+        void write(Samples out){
+            out.sample("", value.get());
+        }
+    }
+
+    /** Counts observations in fixed buckets. Thread-safe. */
+    public static class Histogram extends Metric{
+        private final double[] buckets;
+        private final String[] bucketLabels;
+        private final long[] counts;
+        private double sum;
+        private long count;
+
+        Histogram(String name, String help, double[] buckets){
+            super(name, help, "histogram");
+            this.buckets = buckets;
+            this.counts = new long[buckets.length];
+            this.bucketLabels = new String[buckets.length];
+            for(int i = 0; i < buckets.length; i++){
+                bucketLabels[i] = "le=\"" + buckets[i] + "\"";
+            }
+        }
+
+        /** Records a duration in nanoseconds, as seconds. */
+        public void recordNanos(long nanos){
+            record(nanos / 1_000_000_000.0);
+        }
+
+        public synchronized void record(double value){
+            sum += value;
+            count ++;
+            for(int i = 0; i < buckets.length; i++){
+                if(value <= buckets[i]){
+                    counts[i] ++;
+                    break;
+                }
+            }
+        }
+
+        @Override
+        synchronized void write(Samples out){
+            //buckets are cumulative
+            long total = 0;
+            for(int i = 0; i < buckets.length; i++){
+                total += counts[i];
+                out.sample("_bucket", bucketLabels[i], total);
+            }
+            out.sample("_bucket", "le=\"+Inf\"", count);
+            out.sample("_sum", "", sum);
+            out.sample("_count", "", count);
+        }
+    }
+
+    static class Sampled extends Metric{
+        final Cons<Samples> sampler;
+
+        Sampled(String name, String help, String type, Cons<Samples> sampler){
+            super(name, help, type);
+            this.sampler = sampler;
+        }
+
+        @Override
+        void write(Samples out){
+            sampler.get(out);
+        }
+    }
+}
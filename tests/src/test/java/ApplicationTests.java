@@ -1,6 +1,7 @@
 import arc.*;
 import arc.backend.headless.*;
 import arc.files.*;
+import arc.math.*;
 import arc.math.geom.*;
 import arc.struct.*;
 import arc.util.*;
@@ -12,6 +13,8 @@ import mindustry.content.*;
 import mindustry.core.*;
 import mindustry.core.GameState.*;
 import mindustry.ctype.*;
+import mindustry.entities.*;
+import mindustry.entities.bullet.*;
 import mindustry.entities.units.*;
 import mindustry.game.*;
 import mindustry.gen.*;
@@ -22,6 +25,7 @@ import mindustry.mod.*;
 import mindustry.mod.Mods.*;
 import mindustry.net.*;
 import mindustry.net.Packets.*;
+import mindustry.server.*;
 import mindustry.type.*;
 import mindustry.world.*;
 import mindustry.world.blocks.payloads.*;
@@ -33,6 +37,7 @@ import org.junit.jupiter.params.provider.*;
 
 import java.io.*;
 import java.nio.*;
+import java.util.zip.*;
 
 import static mindustry.Vars.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -375,6 +380,122 @@ public class ApplicationTests{
         assertTrue(state.teams.playerCores().size > 0);
     }
 
+    @ParameterizedTest
+    @ValueSource(ints = {8, 9})
+    void saveVersionRoundTrip(int version) throws IOException{
+        world.loadMap(testMap);
+        state.set(State.playing);
+
+        Tile conveyor = null;
+        for(Tile tile : world.tiles){
+            Tile next = tile.nearby(1, 0);
+            if(tile.block() == Blocks.air && !tile.floor().isDeep() && next != null && next.block() == Blocks.air && !next.floor().isDeep()){
+                conveyor = tile;
+                break;
+            }
+        }
+        assertNotNull(conveyor, "Test map must have free space.");
+        int x = conveyor.x, y = conveyor.y;
+        conveyor.setBlock(Blocks.conveyor, Team.sharded, 1);
+        world.tile(x + 1, y).setBlock(Blocks.duo, Team.sharded);
+        assertTrue(world.height() > SaveVersion.mapBandRows, "Test map must span more than one band.");
+
+        int width = world.width(), height = world.height(), builds = Groups.build.size();
+        int[] tiles = saveLayout();
+
+        //written by hand, so that older versions can be written as well
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(DataOutputStream stream = new DataOutputStream(new FastDeflaterOutputStream(bytes))){
+            stream.write(SaveIO.header);
+            stream.writeInt(version);
+            SaveIO.versions.get(version).write(stream);
+        }
+
+        resetWorld();
+        SaveIO.load(new InflaterInputStream(new ByteArrayInputStream(bytes.toByteArray())), world.context);
+
+        assertEquals(width, world.width());
+        assertEquals(height, world.height());
+        assertEquals(builds, Groups.build.size(), "Every building must be loaded.");
+        assertArrayEquals(tiles, saveLayout(), "Floors, overlays and blocks must be loaded in place.");
+        assertEquals(Blocks.conveyor, world.tile(x, y).block());
+        assertEquals(1, world.tile(x, y).build.rotation);
+        assertEquals(Blocks.duo, world.tile(x + 1, y).block());
+    }
+
+    @Test
+    void replayRoundTrip() throws IOException{
+        world.loadMap(testMap);
+        state.set(State.playing);
+
+        for(int i = 0; i < 10; i++){
+            UnitTypes.dagger.spawn(Team.crux, 40f + i * 8f, 40f);
+            UnitTypes.flare.spawn(Team.sharded, 80f, 40f + i * 8f);
+        }
+
+        //a player that is connected when recording starts, controlling a unit
+        NetConnection con = new NetConnection("127.0.0.1"){
+            @Override
+            public void send(Object object, boolean reliable){
+            }
+
+            @Override
+            public void close(){
+            }
+        };
+        con.uuid = con.usid = "replay-test";
+        con.hasBegunConnecting = con.hasConnected = true;
+
+        Player connected = Player.create();
+        connected.name = "replay";
+        connected.team(Team.sharded);
+        connected.con = con;
+        con.player = connected;
+        connected.add();
+        connected.unit(UnitTypes.alpha.spawn(Team.sharded, 120f, 120f));
+
+        Fi file = saveDirectory.child("test.mrep");
+        ReplayRecorder recorder = new ReplayRecorder();
+        int ticks;
+
+        net.simulateServer(true);
+        try{
+            recorder.start(file);
+
+            //long enough for two checksums; updated in the same order as playback
+            for(int i = 0; i < 700; i++){
+                asyncCore.begin();
+                logic.update();
+                asyncCore.end();
+                netServer.update();
+            }
+
+            ticks = recorder.ticks();
+            recorder.stop();
+        }finally{
+            net.simulateServer(false);
+        }
+        resetWorld();
+
+        ReplayPlayer player = new ReplayPlayer();
+        player.play(file);
+
+        assertEquals(ticks, player.ticks, "Every recorded update must be played back.");
+        assertTrue(player.checksums >= 2, "Checksums must be recorded.");
+        assertEquals(0, player.mismatches, "Playback must match the recording, first mismatch at update " + player.firstMismatch);
+    }
+
+    int[] saveLayout(){
+        int[] result = new int[world.width() * world.height() * 3];
+        for(int i = 0; i < world.width() * world.height(); i++){
+            Tile tile = world.tiles.geti(i);
+            result[i * 3] = tile.floorID();
+            result[i * 3 + 1] = tile.overlayID();
+            result[i * 3 + 2] = tile.blockID();
+        }
+        return result;
+    }
+
     void updateBlocks(int times){
         for(Tile tile : world.tiles){
             if(tile.build != null && tile.isCenter()){
@@ -617,6 +738,133 @@ public class ApplicationTests{
         assertNotEquals(0, itemsa[0]);
     }
 
+    @Test
+    void collisionMoveBench(){
+        Tiles tiles = world.resize(128, 128);
+        world.beginMapLoad();
+        tiles.fill();
+        world.endMapLoad();
+        state.set(State.playing);
+
+        Rand rand = new Rand(0);
+        int cx = tiles.width / 2, cy = tiles.height / 2;
+
+        //scattered walls, some of which are doors, as those change their solidity on their own
+        for(Tile tile : tiles){
+            if(Math.abs(tile.x - cx) + Math.abs(tile.y - cy) > 2 && rand.chance(0.15)){
+                tile.setBlock(rand.chance(0.1) ? Blocks.door : Blocks.copperWall, Team.derelict);
+            }
+        }
+
+        int moves = 100000;
+        float[] deltas = new float[moves * 2];
+        for(int i = 0; i < deltas.length; i++){
+            deltas[i] = rand.range(12f);
+        }
+
+        Unit swept = UnitTypes.dagger.create(Team.sharded), stepped = UnitTypes.dagger.create(Team.sharded);
+
+        //both should end up in the same place from the same start; stepping can differ slightly when it ends up exactly on a tile edge
+        int mismatches = 0;
+        swept.set(cx * tilesize, cy * tilesize);
+        for(int i = 0; i < moves; i++){
+            stepped.set(swept.x, swept.y);
+            collisions.move(swept, deltas[i * 2], deltas[i * 2 + 1]);
+            collisions.moveStepped(stepped, deltas[i * 2], deltas[i * 2 + 1], EntityCollisions.solidPred);
+
+            if(!Mathf.within(swept.x, swept.y, stepped.x, stepped.y, 0.01f)){
+                mismatches ++;
+            }
+        }
+        assertTrue(mismatches <= moves / 1000, mismatches + " moves ended up in a different place");
+
+        swept.set(cx * tilesize, cy * tilesize);
+        Time.mark();
+        for(int i = 0; i < moves; i++){
+            collisions.move(swept, deltas[i * 2], deltas[i * 2 + 1]);
+        }
+        float sweptTime = Time.elapsed();
+
+        stepped.set(cx * tilesize, cy * tilesize);
+        Time.mark();
+        for(int i = 0; i < moves; i++){
+            collisions.moveStepped(stepped, deltas[i * 2], deltas[i * 2 + 1], EntityCollisions.solidPred);
+        }
+        Log.info(moves + " moves: " + sweptTime + "ms swept, " + Time.elapsed() + "ms stepped");
+    }
+
+    @Test
+    void batchedBulletCollisions(){
+        Tiles tiles = world.resize(64, 64);
+        world.beginMapLoad();
+        tiles.fill();
+        world.endMapLoad();
+        state.set(State.playing);
+
+        IntIntMap batched = bulletHits(true), single = bulletHits(false);
+        assertFalse(single.isEmpty(), "No bullets hit anything.");
+        assertEquals(single.size, batched.size, "Different bullets hit something.");
+
+        //bullets that do not pierce are removed by their first hit, even if they overlap several units
+        for(var entry : single.entries()){
+            assertEquals(1, entry.value, "Bullet " + entry.key + " hit several units.");
+            assertEquals(1, batched.get(entry.key, 0), "Bullet " + entry.key + " did not hit exactly one unit when batched.");
+        }
+    }
+
+    /** @return the number of units hit by each bullet index, with bullets that do not pierce fired into a crowd of overlapping units. */
+    IntIntMap bulletHits(boolean batch){
+        Groups.clear();
+        Rand rand = new Rand(0);
+        IntIntMap hits = new IntIntMap(), bulletIndex = new IntIntMap();
+        Rect bulletRect = new Rect(), unitRect = new Rect();
+
+        BulletType type = new BulletType(0f, 0f){
+            @Override
+            public void hitEntity(Bullet b, Hitboxc entity, float health){
+                int index = bulletIndex.get(b.id);
+                hits.put(index, hits.get(index, 0) + 1);
+            }
+        };
+        type.collidesTiles = false;
+
+        for(int i = 0; i < 60; i++){
+            Unit unit = UnitTypes.dagger.create(Team.crux);
+            unit.set(20 * tilesize + rand.range(24f), 20 * tilesize + rand.range(24f));
+            unit.lastX(unit.x);
+            unit.lastY(unit.y);
+            unit.add();
+        }
+        state.teams.updateTeamStats();
+
+        for(int i = 0; i < 100; i++){
+            Bullet bullet = type.create(null, Team.sharded, 20 * tilesize + rand.range(32f), 20 * tilesize + rand.range(32f), rand.random(360f));
+            bullet.lastX(bullet.x);
+            bullet.lastY(bullet.y);
+            bulletIndex.put(bullet.id, i);
+        }
+
+        //make sure that some bullets overlap several units, so the test covers them
+        int crowded = 0;
+        for(Bullet bullet : Groups.bullet){
+            bullet.hitbox(bulletRect);
+            int overlapping = 0;
+            for(Unit unit : Groups.unit){
+                unit.hitbox(unitRect);
+                if(bulletRect.overlaps(unitRect)) overlapping ++;
+            }
+            if(overlapping > 1) crowded ++;
+        }
+        assertTrue(crowded > 0, "No bullet overlaps several units.");
+
+        collisions.batchBullets = batch;
+        Groups.bullet.collide();
+        collisions.batchBullets = true;
+
+        Groups.clear();
+        return hits;
+    }
+
     @Test
     void load77Save(){
         resetWorld();
@@ -0,0 +1,321 @@
+package mindustry.tools;
+
+import arc.files.*;
+import arc.func.*;
+import arc.graphics.*;
+import arc.struct.*;
+import arc.util.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.security.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs generator steps as a task graph on all cores, and restores the outputs of unchanged steps from a cache.
+ * Each step records the sprites it reads and the files it writes or deletes. A step is restored if the generator code, the set of available sprites
+ * and the contents of every sprite it read last time are unchanged, and all the steps it depends on were restored as well.
+ * Deletions are deferred until every step is done, so that steps can read sprites that other steps replace.
+ */
+class GeneratorCache{
+    /** Cache directory, relative to the generator working directory. */
+    static final Fi dir = Fi.get("../../../../tools/build/generator-cache");
+
+    private static final ForkJoinPool pool = new ForkJoinPool(OS.cores);
+    private static final ThreadLocal<Step> current = new ThreadLocal<>();
+    private static final ConcurrentHashMap<String, Object> locks = new ConcurrentHashMap<>();
+    private static final OrderedMap<String, Step> steps = new OrderedMap<>();
+    /** Files to delete after all steps are done, by absolute path. */
+    private static final OrderedMap<String, Fi> deletions = new OrderedMap<>();
+    /** Content hashes of sprites, keyed by path, size and modification time. */
+    private static final ObjectMap<String, String> hashes = new ObjectMap<>(), usedHashes = new ObjectMap<>();
+    private static String version;
+
+    /** Adds a step that runs after all of its dependencies are done. Dependencies must be added first. */
+    static void add(String name, String[] dependencies, Runnable run){
+        for(String dep : dependencies){
+            if(!steps.containsKey(dep)) throw new IllegalArgumentException("Unknown generator dependency: " + dep);
+        }
+        steps.put(name, new Step(name, dependencies, run));
+    }
+
+    /** Runs all added steps and applies deferred deletions. Rethrows the first exception of any step. */
+    static void run(){
+        Fi hashFile = dir.child("hashes.txt");
+        if(hashFile.exists()){
+            for(String line : hashFile.readString().split("\n")){
+                int split = line.lastIndexOf('\t');
+                if(split != -1) hashes.put(line.substring(0, split), line.substring(split + 1));
+            }
+        }
+        version = version();
+
+        Seq<CompletableFuture<Void>> futures = new Seq<>();
+        for(Step step : steps.values()){
+            CompletableFuture<?>[] deps = new CompletableFuture[step.dependencies.length];
+            for(int i = 0; i < deps.length; i++){
+                deps[i] = steps.get(step.dependencies[i]).future;
+            }
+            step.future = CompletableFuture.allOf(deps).thenRunAsync(() -> execute(step), pool);
+            futures.add(step.future);
+        }
+
+        try{
+            CompletableFuture.allOf(futures.toArray(CompletableFuture.class)).join();
+        }catch(CompletionException e){
+            throw e.getCause() instanceof RuntimeException r ? r : new RuntimeException(e.getCause());
+        }finally{
+            steps.clear();
+        }
+
+        for(Fi file : deletions.values()){
+            file.delete();
+        }
+        deletions.clear();
+
+        //only keep hashes of sprites that still exist
+        StringBuilder out = new StringBuilder();
+        for(var entry : usedHashes){
+            out.append(entry.key).append('\t').append(entry.value).append('\n');
+        }
+        hashFile.writeString(out.toString());
+    }
+
+    /** Runs a function for every item in parallel, as part of the current step. Blocks until all items are done. */
+    static <T> void parallel(Seq<T> items, Cons<T> cons){
+        Step step = current.get();
+        Seq<ForkJoinTask<?>> tasks = new Seq<>();
+        //not iterated with an iterator: those are shared between threads
+        for(int i = 0; i < items.size; i++){
+            T item = items.get(i);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                //the calling thread may run some of these tasks itself, so the previous step has to be restored
+                Step last = current.get();
+                current.set(step);
+                try{
+                    cons.get(item);
+                }finally{
+                    current.set(last);
+                }
+            }));
+        }
+        ForkJoinTask.invokeAll(tasks.toArray(ForkJoinTask.class));
+    }
+
+    /** Records that the current step read a sprite. */
+    static void input(String name, Fi file){
+        Step step = current.get();
+        if(step != null){
+            String hash = hash(file);
+            synchronized(step){
+                step.inputs.put(name, hash);
+            }
+        }
+    }
+
+    /** Writes a PNG file, recording it as an output of the current step. */
+    static void write(String path, Pixmap pixmap){
+        Fi file = Fi.get(path);
+        synchronized(lock(file)){
+            file.writePng(pixmap);
+            written(current.get(), path, file);
+        }
+    }
+
+    /** Copies a file, recording the copy as an output of the current step. */
+    static void copy(Fi from, String path){
+        Fi file = Fi.get(path);
+        synchronized(lock(file)){
+            from.copyTo(file);
+            written(current.get(), path, file);
+        }
+    }
+
+    /** Deletes a file once all steps are done, unless it is written again before that. */
+    static void delete(Fi file){
+        synchronized(lock(file)){
+            synchronized(deletions){
+                deletions.put(key(file), file);
+            }
+            Step step = current.get();
+            if(step != null){
+                synchronized(step){
+                    step.journal.add("del\t" + file.path());
+                }
+            }
+        }
+    }
+
+    /** @return the content hash of a sprite file. Hashes are reused across runs as long as the file's size and modification time do not change. */
+    static String hash(Fi file){
+        String key = file.absolutePath() + "|" + file.length() + "|" + file.lastModified();
+        String hash;
+        synchronized(hashes){
+            hash = hashes.get(key);
+        }
+        if(hash == null){
+            hash = digest(file.readBytes());
+        }
+        synchronized(hashes){
+            hashes.put(key, hash);
+            usedHashes.put(key, hash);
+        }
+        return hash;
+    }
+
+    private static void execute(Step step){
+        long start = Time.millis();
+
+        boolean dependenciesRestored = true;
+        for(String dep : step.dependencies){
+            dependenciesRestored &= steps.get(dep).restored;
+        }
+
+        if(dependenciesRestored && restore(step)){
+            step.restored = true;
+            Log.info("&ly[Generator]&lc Restored &lm@&lc from cache: &lg@&lcms", step.name, Time.timeSinceMillis(start));
+            return;
+        }
+
+        Fi stepDir = dir.child(step.name);
+        stepDir.deleteDirectory();
+        stepDir.mkdirs();
+
+        current.set(step);
+        try{
+            step.run.run();
+        }finally{
+            current.remove();
+        }
+
+        StringBuilder manifest = new StringBuilder("version\t").append(version).append('\n');
+        for(var entry : step.inputs){
+            manifest.append("in\t").append(entry.key).append('\t').append(entry.value).append('\n');
+        }
+        for(String line : step.journal){
+            manifest.append(line).append('\n');
+        }
+        stepDir.child("manifest.txt").writeString(manifest.toString());
+
+        Log.info("&ly[Generator]&lc Time to generate &lm@&lc: &lg@&lcms", step.name, Time.timeSinceMillis(start));
+    }
+
+    /** @return whether the cached outputs of this step were valid and have been restored. */
+    private static boolean restore(Step step){
+        Fi stepDir = dir.child(step.name), manifest = stepDir.child("manifest.txt");
+        if(!manifest.exists()) return false;
+
+        String[] lines = manifest.readString().split("\n");
+        if(!lines[0].equals("version\t" + version)) return false;
+
+        for(int i = 1; i < lines.length; i++){
+            String[] parts = lines[i].split("\t");
+            switch(parts[0]){
+                case "in" -> {
+                    ImagePacker.PackIndex index = ImagePacker.cache.get(parts[1]);
+                    if(index == null || !hash(index.file).equals(parts[2])) return false;
+                }
+                case "out" -> {
+                    if(!stepDir.child(parts[2]).exists()) return false;
+                }
+            }
+        }
+
+        for(int i = 1; i < lines.length; i++){
+            String[] parts = lines[i].split("\t");
+            switch(parts[0]){
+                case "out" -> {
+                    Fi file = Fi.get(parts[1]);
+                    synchronized(lock(file)){
+                        stepDir.child(parts[2]).copyTo(file);
+                        written(null, parts[1], file);
+                    }
+                }
+                case "del" -> delete(Fi.get(parts[1]));
+            }
+        }
+        return true;
+    }
+
+    private static void written(@Nullable Step step, String path, Fi file){
+        synchronized(deletions){
+            deletions.remove(key(file));
+        }
+
+        if(step != null){
+            synchronized(step){
+                String cached = step.journal.size + ".png";
+                file.copyTo(dir.child(step.name).child(cached));
+                step.journal.add("out\t" + path + "\t" + cached);
+            }
+        }
+    }
+
+    private static Object lock(Fi file){
+        return locks.computeIfAbsent(key(file), k -> new Object());
+    }
+
+    private static String key(Fi file){
+        return file.file().toPath().toAbsolutePath().normalize().toString();
+    }
+
+    /** @return a hash of the generator code and the names of all available sprites. */
+    private static String version(){
+        StringBuilder out = new StringBuilder();
+
+        for(String name : ImagePacker.cache.keys().toSeq().sort()){
+            out.append(name).append('\n');
+        }
+
+        //classes are identified by their size and modification time; hashing their contents would take longer than most steps
+        for(String entry : System.getProperty("java.class.path").split(File.pathSeparator)){
+            Fi root = Fi.get(entry);
+            Seq<Fi> files = new Seq<>();
+            if(root.isDirectory()){
+                //resources such as packed sprites change on every run, and are not code
+                root.walk(f -> {
+                    if(f.extEquals("class")) files.add(f);
+                });
+            }else if(root.exists()){
+                files.add(root);
+            }
+            files.sort((a, b) -> a.path().compareTo(b.path()));
+
+            for(Fi file : files){
+                out.append(file.path()).append('|').append(file.length()).append('|').append(file.lastModified()).append('\n');
+            }
+        }
+
+        return digest(out.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String digest(byte[] bytes){
+        try{
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(bytes);
+            StringBuilder out = new StringBuilder(hash.length * 2);
+            for(byte b : hash){
+                out.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return out.toString();
+        }catch(NoSuchAlgorithmException e){
+            throw new RuntimeException(e);
+        }
+    }
+
+    static class Step{
+        final String name;
+        final String[] dependencies;
+        final Runnable run;
+        final OrderedMap<String, String> inputs = new OrderedMap<>();
+        final Seq<String> journal = new Seq<>();
+
+        volatile boolean restored;
+        CompletableFuture<Void> future;
+
+        Step(String name, String[] dependencies, Runnable run){
+            this.name = name;
+            this.dependencies = dependencies;
+            this.run = run;
+        }
+    }
+}
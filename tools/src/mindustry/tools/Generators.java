@@ -20,8 +20,6 @@ import mindustry.world.blocks.*;
 import mindustry.world.blocks.environment.*;
 import mindustry.world.blocks.legacy.*;
 
-import java.util.concurrent.*;
-
 import static mindustry.Vars.*;
 import static mindustry.tools.ImagePacker.*;
 
@@ -89,7 +87,7 @@ public class Generators{
                     }
                 }
 
-                Fi.get("splash-" + i + ".png").writePng(pixmap);
+                save(pixmap, "splash-" + i);
 
                 pixmap.dispose();
             }
@@ -116,7 +114,7 @@ public class Generators{
                     }
                 });
 
-                Fi.get("bubble-" + i + ".png").writePng(pixmap);
+                save(pixmap, "bubble-" + i);
 
                 pixmap.dispose();
             }
@@ -151,85 +149,83 @@ public class Generators{
         });
 
         generate("cliffs", () -> {
-            ExecutorService exec = Executors.newFixedThreadPool(OS.cores);
             int size = 64;
             int dark = new Color(0.5f, 0.5f, 0.6f, 1f).mul(0.98f).rgba();
             int mid = Color.lightGray.rgba();
 
             Pixmap[] images = new Pixmap[8];
             for(int i = 0; i < 8; i++){
-                images[i] = new Pixmap(((GenRegion)Core.atlas.find("cliff" + i)).path);
+                images[i] = get("cliff" + i);
             }
 
+            Seq<Integer> masks = new Seq<>();
             for(int i = Byte.MIN_VALUE; i <= Byte.MAX_VALUE; i++){
-                int bi = i;
-                exec.execute(() -> {
-                    Color color = new Color();
-                    Pixmap result = new Pixmap(size, size);
-                    byte[][] mask = new byte[size][size];
-
-                    byte val = (byte)bi;
-                    //check each bit/direction
-                    for(int j = 0; j < 8; j++){
-                        if((val & (1 << j)) != 0){
-                            if(j % 2 == 1 && (((val & (1 << (j + 1))) != 0) != ((val & (1 << (j - 1))) != 0))){
-                                continue;
-                            }
+                masks.add(i);
+            }
 
-                            Pixmap image = images[j];
-                            image.each((x, y) -> {
-                                color.set(image.getRaw(x, y));
-                                if(color.a > 0.1){
-                                    //white -> bit 1 -> top
-                                    //black -> bit 2 -> bottom
-                                    mask[x][y] |= (color.r > 0.5f ? 1 : 2);
-                                }
-                            });
+            parallel(masks, bi -> {
+                Color color = new Color();
+                Pixmap result = new Pixmap(size, size);
+                byte[][] mask = new byte[size][size];
+
+                byte val = (byte)(int)bi;
+                //check each bit/direction
+                for(int j = 0; j < 8; j++){
+                    if((val & (1 << j)) != 0){
+                        if(j % 2 == 1 && (((val & (1 << (j + 1))) != 0) != ((val & (1 << (j - 1))) != 0))){
+                            continue;
                         }
+
+                        Pixmap image = images[j];
+                        image.each((x, y) -> {
+                            color.set(image.getRaw(x, y));
+                            if(color.a > 0.1){
+                                //white -> bit 1 -> top
+                                //black -> bit 2 -> bottom
+                                mask[x][y] |= (color.r > 0.5f ? 1 : 2);
+                            }
+                        });
                     }
+                }
 
-                    result.each((x, y) -> {
-                        byte m = mask[x][y];
-                        if(m != 0){
-                            //mid
-                            if(m == 3){
-                                //find nearest non-mid color
-                                byte best = 0;
-                                float bestDst = 0;
-                                boolean found = false;
-                                //expand search range until found
-                                for(int rad = 9; rad < 64; rad += 7){
-                                    for(int cx = Math.max(x - rad, 0); cx <= Math.min(x + rad, size - 1); cx++){
-                                        for(int cy = Math.max(y - rad, 0); cy <= Math.min(y + rad, size - 1); cy++){
-                                            byte nval = mask[cx][cy];
-                                            if(nval == 1 || nval == 2){
-                                                float dst2 = Mathf.dst2(cx, cy, x, y);
-                                                if(dst2 <= rad * rad && (!found || dst2 < bestDst)){
-                                                    best = nval;
-                                                    bestDst = dst2;
-                                                    found = true;
-                                                }
+                result.each((x, y) -> {
+                    byte m = mask[x][y];
+                    if(m != 0){
+                        //mid
+                        if(m == 3){
+                            //find nearest non-mid color
+                            byte best = 0;
+                            float bestDst = 0;
+                            boolean found = false;
+                            //expand search range until found
+                            for(int rad = 9; rad < 64; rad += 7){
+                                for(int cx = Math.max(x - rad, 0); cx <= Math.min(x + rad, size - 1); cx++){
+                                    for(int cy = Math.max(y - rad, 0); cy <= Math.min(y + rad, size - 1); cy++){
+                                        byte nval = mask[cx][cy];
+                                        if(nval == 1 || nval == 2){
+                                            float dst2 = Mathf.dst2(cx, cy, x, y);
+                                            if(dst2 <= rad * rad && (!found || dst2 < bestDst)){
+                                                best = nval;
+                                                bestDst = dst2;
+                                                found = true;
                                             }
                                         }
                                     }
                                 }
-
-                                if(found){
-                                    m = best;
-                                }
                             }
 
-                            result.setRaw(x, y, m == 1 ? Color.whiteRgba : m == 2 ? dark : mid);
+                            if(found){
+                                m = best;
+                            }
                         }
-                    });
 
-                    Fi fi = Fi.get("../blocks/environment/cliffmask" + (val & 0xff) + ".png");
-                    fi.writePng(result);
-                    fi.copyTo(Fi.get("../editor").child("editor-" + fi.name()));
+                        result.setRaw(x, y, m == 1 ? Color.whiteRgba : m == 2 ? dark : mid);
+                    }
                 });
-            }
 
-            Threads.await(exec);
+                save(result, "../blocks/environment/cliffmask" + (val & 0xff));
+                save(result, "../editor/editor-cliffmask" + (val & 0xff));
+            });
         });
 
         generate("cracks", () -> {
@@ -271,7 +267,7 @@ public class Generators{
                         }
                     }
 
-                    Fi.get("../rubble/cracks-" + size + "-" + i + ".png").writePng(output);
+                    save(output, "../rubble/cracks-" + size + "-" + i);
                 }
             }
         });
@@ -279,8 +275,8 @@ public class Generators{
         generate("block-icons", () -> {
             Pixmap colors = new Pixmap(content.blocks().size, 1);
 
-            for(Block block : content.blocks()){
-                if(block.isAir() || block instanceof ConstructBlock || block instanceof OreBlock || block instanceof LegacyBlock) continue;
+            parallel(content.blocks(), block -> {
+                if(block.isAir() || block instanceof ConstructBlock || block instanceof OreBlock || block instanceof LegacyBlock) return;
 
                 Seq<TextureRegion> toOutline = new Seq<>();
                 block.getRegionsToOutline(toOutline);
@@ -291,7 +287,7 @@ public class Generators{
                     for(TextureRegion region : block.variantRegions()){
                         GenRegion gen = (GenRegion)region;
                         if(gen.path == null) continue;
-                        gen.path.copyTo(Fi.get("../editor/editor-" + gen.path.name()));
+                        copy(gen, "../editor/editor-" + gen.path.name());
                     }
                 }
 
@@ -328,7 +324,7 @@ public class Generators{
                 }
 
                 if(regions.length == 0){
-                    continue;
+                    return;
                 }
 
                 try{
@@ -346,7 +342,7 @@ public class Generators{
                             }
                         }
 
-                        region.path.delete();
+                        delete(region);
 
                         //1 pixel of padding to prevent edges with linear filtering
                         int padding = 1;
@@ -358,7 +354,7 @@ public class Generators{
                     }
 
                     if(!regions[0].found()){
-                        continue;
+                        return;
                     }
 
                     Pixmap image = get(regions[0]);
@@ -414,7 +410,7 @@ public class Generators{
                 }catch(NullPointerException e){
                     Log.err("Block &ly'@'&lr has an null region!", block);
                 }
-            }
+            });
 
             save(colors, "../../../assets/sprites/block_colors");
         });
@@ -507,7 +503,7 @@ public class Generators{
             }
         });
 
-        generate("unit-icons", () -> content.units().each(type -> {
+        generate("unit-icons", () -> parallel(content.units(), type -> {
             if(type.internal) return; //internal hidden units don't generate
 
             ObjectSet<String> outlined = new ObjectSet<>();
@@ -756,7 +752,7 @@ public class Generators{
             });
         });
 
-        generate("edges", () -> {
+        generate("edges", "shallows", () -> {
             content.blocks().<Floor>each(b -> b instanceof Floor && !(b instanceof OverlayFloor), floor -> {
 
                 if(has(floor.name + "-edge") || floor.blendGroup != floor){
@@ -780,7 +776,8 @@ public class Generators{
             });
         });
 
-        generate("scorches", () -> {
+        //uses the global random number generator, which is not thread safe
+        generate("scorches", "gas-frames", () -> {
             for(int size = 0; size < 10; size++){
                 for(int i = 0; i < 3; i++){
                     ScorchGenerator gen = new ScorchGenerator();
@@ -800,12 +797,14 @@ public class Generators{
 
                     Pixmap out = gen.generate();
                     Pixmap median = Pixmaps.median(out, 2, 0.75);
-                    Fi.get("../rubble/scorch-" + size + "-" + i + ".png").writePng(median);
+                    save(median, "../rubble/scorch-" + size + "-" + i);
                     out.dispose();
                     median.dispose();
                 }
             }
         });
+
+        GeneratorCache.run();
     }
 
     /** Generates a scorch pixmap based on parameters. Thread safe. */
@@ -2,6 +2,7 @@ package mindustry.tools;
 
 import arc.*;
 import arc.files.*;
+import arc.func.*;
 import arc.graphics.*;
 import arc.graphics.g2d.*;
 import arc.graphics.g2d.TextureAtlas.*;
@@ -42,8 +43,9 @@ public class ImagePacker{
         });
 
         Core.atlas = new TextureAtlas(){
+            //generators run on multiple threads, and sprites are loaded lazily
             @Override
-            public AtlasRegion find(String name){
+            public synchronized AtlasRegion find(String name){
                 if(!cache.containsKey(name)){
                     GenRegion region = new GenRegion(name, null);
                     region.invalid = true;
@@ -203,10 +205,19 @@ public class ImagePacker{
         return c.getContentType() + "-" + c.name + "-ui";
     }
 
+    /** Adds a generator step. Steps run in parallel once {@link GeneratorCache#run()} is called. */
     static void generate(String name, Runnable run){
-        Time.mark();
-        run.run();
-        Log.info("&ly[Generator]&lc Time to generate &lm@&lc: &lg@&lcms", name, Time.elapsed());
+        GeneratorCache.add(name, new String[0], run);
+    }
+
+    /** Adds a generator step that runs after another step, because it uses its results or shares non-thread-safe state with it. */
+    static void generate(String name, String dependency, Runnable run){
+        GeneratorCache.add(name, new String[]{dependency}, run);
+    }
+
+    /** Runs a function for every item in parallel, as part of the current generator step. */
+    static <T> void parallel(Seq<T> items, Cons<T> cons){
+        GeneratorCache.parallel(items, cons);
     }
 
     static Pixmap get(String name){
@@ -220,11 +231,21 @@ public class ImagePacker{
     static Pixmap get(TextureRegion region){
         validate(region);
 
-        return cache.get(((AtlasRegion)region).name).pixmap.copy();
+        String name = ((AtlasRegion)region).name;
+        PackIndex index = cache.get(name);
+        GeneratorCache.input(name, index.file);
+        return index.pixmap.copy();
     }
 
     static void save(Pixmap pix, String path){
-        Fi.get(path + ".png").writePng(pix);
+        GeneratorCache.write(path + ".png", pix);
+    }
+
+    /** Copies the file of a region to a path, including its extension. */
+    static void copy(TextureRegion region, String path){
+        GenRegion gen = (GenRegion)region;
+        GeneratorCache.input(gen.name, gen.path);
+        GeneratorCache.copy(gen.path, path);
     }
 
     static void drawCenter(Pixmap pix, Pixmap other){
@@ -239,19 +260,29 @@ public class ImagePacker{
     }
 
     static void drawScaledFit(Pixmap base, Pixmap image){
-        Vec2 size = Scaling.fit.apply(image.width, image.height, base.width, base.height);
-        int wx = (int)size.x, wy = (int)size.y;
+        int wx, wy;
+        //the returned vector is shared
+        synchronized(Scaling.class){
+            Vec2 size = Scaling.fit.apply(image.width, image.height, base.width, base.height);
+            wx = (int)size.x;
+            wy = (int)size.y;
+        }
         //TODO bad linear scaling
         base.draw(image, 0, 0, image.width, image.height, base.width/2 - wx/2, base.height/2 - wy/2, wx, wy, true, true);
     }
 
     static void delete(String name){
-        ((GenRegion)Core.atlas.find(name)).path.delete();
+        GeneratorCache.delete(((GenRegion)Core.atlas.find(name)).path);
+    }
+
+    /** Deletes the file of a region once all generators are done. */
+    static void delete(GenRegion region){
+        GeneratorCache.delete(region.path);
     }
 
     static void replace(String name, Pixmap image){
-        Fi.get(name + ".png").writePng(image);
-        ((GenRegion)Core.atlas.find(name)).path.delete();
+        save(image, name);
+        delete(name);
     }
 
     static void replace(TextureRegion region, Pixmap image){
@@ -285,8 +316,8 @@ public class ImagePacker{
     }
 
     static class PackIndex{
-        @Nullable AtlasRegion region;
-        @Nullable Pixmap pixmap;
+        volatile @Nullable AtlasRegion region;
+        volatile @Nullable Pixmap pixmap;
         Fi file;
 
         public PackIndex(Fi file){